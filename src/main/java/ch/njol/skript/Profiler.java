@@ -0,0 +1,361 @@
+/*
+ *   This file is part of Skript.
+ * 
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ * 
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.bukkit.event.Event;
+
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.TriggerItem;
+
+/**
+ * Measures how much time is spent in each event, trigger and line of the scripts. Only active after {@link #start()} has been called, otherwise the only
+ * overhead is checking {@link #isEnabled()}.
+ * <p>
+ * All counters are atomic, thus timings can be recorded from any thread without locking.
+ * 
+ * @author Peter Güttinger
+ */
+public abstract class Profiler {
+	private Profiler() {}
+	
+	/**
+	 * Allocations are only measured for every n-th invocation of each item, as measuring them costs about as much as executing a simple effect.
+	 */
+	private final static int ALLOCATION_SAMPLE_MASK = 0xF;
+	
+	/**
+	 * Each power of two is divided into this many buckets of the histograms (must be a power of two as well)
+	 */
+	private final static int SUB_BUCKETS = 4, SUB_BUCKET_BITS = 2;
+	
+	private final static int BUCKETS = 64 * SUB_BUCKETS;
+	
+	/**
+	 * Collects the timings of a single event class, trigger or trigger item.
+	 */
+	public final static class Timing {
+		final AtomicLong count = new AtomicLong(), totalNanos = new AtomicLong();
+		final AtomicLong allocationSamples = new AtomicLong(), allocatedBytes = new AtomicLong();
+		/**
+		 * Number of invocations by their duration, with {@link #SUB_BUCKETS} buckets per power of two
+		 */
+		final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+		
+		Timing() {}
+		
+		/**
+		 * @return The current thread's allocated bytes if allocations should be measured for the next invocation, or -1 otherwise. Must be passed to
+		 *         {@link #add(long, long)}.
+		 */
+		public long startAllocation() {
+			if (!measureAllocations || (count.get() & ALLOCATION_SAMPLE_MASK) != 0)
+				return -1;
+			return allocatedBytes();
+		}
+		
+		/**
+		 * @param nanos The duration of an invocation in nanoseconds
+		 * @param allocationStart The value returned by {@link #startAllocation()}
+		 */
+		public void add(final long nanos, final long allocationStart) {
+			if (allocationStart != -1) {
+				final long a = allocatedBytes();
+				if (a != -1) {
+					allocatedBytes.addAndGet(a - allocationStart);
+					allocationSamples.incrementAndGet();
+				}
+			}
+			count.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			histogram.incrementAndGet(bucket(nanos));
+		}
+		
+		public long getCount() {
+			return count.get();
+		}
+		
+		public long getTotalNanos() {
+			return totalNanos.get();
+		}
+		
+		public long getMeanNanos() {
+			final long c = count.get();
+			return c == 0 ? 0 : totalNanos.get() / c;
+		}
+		
+		/**
+		 * @param p The percentile, e.g. 0.99
+		 * @return An upper bound of the given percentile of all invocations' durations, which is at most 25% higher than the actual value.
+		 */
+		public long getPercentileNanos(final double p) {
+			final long c = count.get();
+			final long target = (long) Math.ceil(c * p);
+			long n = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				n += histogram.get(i);
+				if (n >= target)
+					return bucketUpperBound(i);
+			}
+			return bucketUpperBound(BUCKETS - 1);
+		}
+		
+		/**
+		 * @return The estimated average amount of bytes allocated per invocation, or -1 if allocations cannot be measured
+		 */
+		public long getMeanAllocatedBytes() {
+			final long s = allocationSamples.get();
+			return s == 0 ? -1 : allocatedBytes.get() / s;
+		}
+	}
+	
+	final static int bucket(final long nanos) {
+		if (nanos < SUB_BUCKETS)
+			return nanos < 0 ? 0 : (int) nanos;
+		final int log = 63 - Long.numberOfLeadingZeros(nanos);
+		return log << SUB_BUCKET_BITS | (int) (nanos >>> log - SUB_BUCKET_BITS & SUB_BUCKETS - 1);
+	}
+	
+	final static long bucketUpperBound(final int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		final int log = bucket >>> SUB_BUCKET_BITS;
+		final long base = 1L << log;
+		return base + ((bucket & SUB_BUCKETS - 1) + 1) * (base >>> SUB_BUCKET_BITS) - 1;
+	}
+	
+	/**
+	 * The only class that uses <tt>com.sun.management</tt>. It is only loaded after checking that this package exists, as it is not part of the Java API and
+	 * missing on some JVMs.
+	 */
+	private final static class Allocations {
+		private Allocations() {}
+		
+		/**
+		 * null if measuring allocations is not supported by the JVM
+		 */
+		final static com.sun.management.ThreadMXBean threadBean;
+		static {
+			com.sun.management.ThreadMXBean b = null;
+			try {
+				final java.lang.management.ThreadMXBean tb = ManagementFactory.getThreadMXBean();
+				if (tb instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) tb).isThreadAllocatedMemorySupported()) {
+					b = (com.sun.management.ThreadMXBean) tb;
+					if (!b.isThreadAllocatedMemoryEnabled())
+						b.setThreadAllocatedMemoryEnabled(true);
+				}
+			} catch (final RuntimeException e) { // UnsupportedOperationException, SecurityException
+				b = null;
+			}
+			threadBean = b;
+		}
+		
+		final static boolean isSupported() {
+			return threadBean != null;
+		}
+		
+		final static long allocatedBytes() {
+			return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+	
+	/**
+	 * Whether this JVM supports measuring the allocated memory of a thread
+	 */
+	private final static boolean measureAllocations;
+	static {
+		boolean m = false;
+		try {
+			Class.forName("com.sun.management.ThreadMXBean");
+			m = Allocations.isSupported();
+		} catch (final ClassNotFoundException e) {} catch (final LinkageError e) {}
+		measureAllocations = m;
+	}
+	
+	/**
+	 * @return The total amount of bytes allocated by the current thread, or -1 if not supported
+	 */
+	final static long allocatedBytes() {
+		if (!measureAllocations)
+			return -1;
+		return Allocations.allocatedBytes();
+	}
+	
+	private static volatile boolean enabled = false;
+	
+	private static long startTime = 0, stopTime = 0;
+	
+	private final static Map<Class<? extends Event>, Timing> events = new ConcurrentHashMap<Class<? extends Event>, Timing>();
+	private final static Map<Trigger, Timing> triggers = new ConcurrentHashMap<Trigger, Timing>();
+	private final static Map<TriggerItem, Timing> items = new ConcurrentHashMap<TriggerItem, Timing>();
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Clears all previous timings and starts profiling.
+	 */
+	public static void start() {
+		enabled = false;
+		events.clear();
+		triggers.clear();
+		items.clear();
+		startTime = System.currentTimeMillis();
+		stopTime = 0;
+		enabled = true;
+	}
+	
+	/**
+	 * Stops profiling. The timings are kept until profiling is started again.
+	 */
+	public static void stop() {
+		if (!enabled)
+			return;
+		enabled = false;
+		stopTime = System.currentTimeMillis();
+	}
+	
+	private final static <K> Timing getTiming(final Map<K, Timing> map, final K key) {
+		Timing t = map.get(key);
+		if (t == null) {
+			synchronized (map) {
+				t = map.get(key);
+				if (t == null)
+					map.put(key, t = new Timing());
+			}
+		}
+		return t;
+	}
+	
+	public static Timing getTiming(final Class<? extends Event> event) {
+		return getTiming(events, event);
+	}
+	
+	public static Timing getTiming(final Trigger trigger) {
+		return getTiming(triggers, trigger);
+	}
+	
+	public static Timing getTiming(final TriggerItem item) {
+		return getTiming(items, item);
+	}
+	
+	private final static int MAX_LINES = 100;
+	
+	/**
+	 * Writes a report of the collected timings into a new file in Skript's folder. Triggers and events are sorted by their total time, and only the
+	 * {@link #MAX_LINES} lines that took the most time in total are listed.
+	 * 
+	 * @return The file written to
+	 * @throws IOException
+	 */
+	public static File dump() throws IOException {
+		final File f = new File(Skript.getInstance().getDataFolder(), "profile-" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + ".txt");
+		PrintWriter out = null;
+		try {
+			out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(f), "UTF-8"));
+			final long duration = (stopTime == 0 ? System.currentTimeMillis() : stopTime) - startTime;
+			out.println("# Skript profile, recorded for " + duration / 1000. + " seconds" + (enabled ? " (still running)" : ""));
+			if (!measureAllocations)
+				out.println("# Allocations could not be measured as this JVM does not support it.");
+			else
+				out.println("# Allocations are estimated from every " + (ALLOCATION_SAMPLE_MASK + 1) + "th invocation.");
+			out.println("# All durations are in microseconds, percentiles are rounded up to the next histogram bucket.");
+			
+			out.println();
+			out.println("== Events ==");
+			header(out);
+			for (final Entry<Class<? extends Event>, Timing> e : sorted(events, -1))
+				line(out, e.getValue(), e.getKey().getName());
+			
+			out.println();
+			out.println("== Triggers ==");
+			header(out);
+			for (final Entry<Trigger, Timing> e : sorted(triggers, -1))
+				line(out, e.getValue(), location(e.getKey()) + ": on " + e.getKey().getName());
+			
+			out.println();
+			out.println("== Lines (the " + MAX_LINES + " most expensive) ==");
+			header(out);
+			for (final Entry<TriggerItem, Timing> e : sorted(items, MAX_LINES))
+				line(out, e.getValue(), location(e.getKey()) + ": " + e.getKey().getIndentation() + e.getKey().toString());
+		} finally {
+			if (out != null)
+				out.close();
+		}
+		return f;
+	}
+	
+	private final static <K> List<Entry<K, Timing>> sorted(final Map<K, Timing> map, final int limit) {
+		final List<Entry<K, Timing>> r = new ArrayList<Entry<K, Timing>>();
+		for (final Entry<K, Timing> e : map.entrySet()) {
+			if (!(e.getKey() instanceof Trigger && map == items)) // a trigger's own step only returns its first item
+				r.add(e);
+		}
+		Collections.sort(r, new Comparator<Entry<K, Timing>>() {
+			@Override
+			public int compare(final Entry<K, Timing> e1, final Entry<K, Timing> e2) {
+				final long t1 = e1.getValue().getTotalNanos(), t2 = e2.getValue().getTotalNanos();
+				return t1 > t2 ? -1 : t1 < t2 ? 1 : 0;
+			}
+		});
+		return limit < 0 || r.size() <= limit ? r : r.subList(0, limit);
+	}
+	
+	private final static String location(final TriggerItem i) {
+		Trigger t;
+		try {
+			t = i.getTrigger();
+		} catch (final IllegalStateException e) {
+			t = null;
+		}
+		final String script = t == null || t.getScript() == null ? "?" : t.getScript().getName();
+		return i.getLine() == -1 ? script : script + ":" + i.getLine();
+	}
+	
+	private final static void header(final PrintWriter out) {
+		out.println(String.format("%12s %12s %10s %10s %12s  %s", "count", "total", "mean", "p99", "bytes/call", "name"));
+	}
+	
+	private final static void line(final PrintWriter out, final Timing t, final String name) {
+		final long alloc = t.getMeanAllocatedBytes();
+		out.println(String.format("%12d %12d %10.1f %10.1f %12s  %s", t.getCount(), t.getTotalNanos() / 1000, t.getMeanNanos() / 1000., t.getPercentileNanos(0.99) / 1000., alloc == -1 ? "?" : "" + alloc, name));
+	}
+	
+}
@@ -23,23 +23,27 @@ package ch.njol.skript;
 
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.NotSerializableException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EmptyStackException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 
+import org.bukkit.Bukkit;
 import org.bukkit.event.Event;
 
 import ch.njol.skript.aliases.Aliases;
@@ -56,8 +60,10 @@ import ch.njol.skript.config.SimpleNode;
 import ch.njol.skript.effects.Delay;
 import ch.njol.skript.lang.Condition;
 import ch.njol.skript.lang.Conditional;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.Loop;
+import ch.njol.skript.lang.ParseCache;
 import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
 import ch.njol.skript.lang.SkriptEvent;
@@ -97,19 +103,191 @@ final public class ScriptLoader {
 			m_no_scripts = new Message("skript.no scripts");
 	private final static PluralizingArgsMessage m_scripts_loaded = new PluralizingArgsMessage("skript.scripts loaded");
 	
+	/**
+	 * The state of the script that is currently being loaded. Scripts can be parsed by multiple threads at once, thus every thread has its own state.
+	 */
+	private final static class LoaderState {
+		/**
+		 * Whether this is the state of Bukkit's main thread, whose state is kept in the deprecated public fields of {@link ScriptLoader} for addons that still
+		 * use them. The fields are thus only updated while the main thread loads scripts, and never reflect the scripts that are parsed by loader threads.
+		 */
+		private final boolean main;
+		
+		private Config currentScript = null;
+		
+		private String currentEventName = null;
+		Class<? extends Event>[] currentEvents = null;
+		
+		private final List<TriggerSection> currentSections = new ArrayList<TriggerSection>();
+		private final List<Loop> currentLoops = new ArrayList<Loop>();
+		/**
+		 * The layout of the frames of the trigger that is currently being loaded. Local variables and loops get their position in the trigger's frames from it.
+		 */
+		ExecutionFrame.Layout currentFrameLayout = null;
+		final Map<String, ItemType> currentAliases = new HashMap<String, ItemType>();
+		final HashMap<String, String> currentOptions = new HashMap<String, String>();
+		
+		private Kleenean hasDelayBefore = Kleenean.FALSE;
+		
+		String indentation = "";
+		
+		/**
+		 * The cache of the script that is currently being parsed, or null if caching is disabled
+		 */
+		ParseCache parseCache = null;
+		
+		LoaderState(final boolean main) {
+			this.main = main;
+		}
+		
+		@SuppressWarnings("deprecation")
+		Config getCurrentScript() {
+			return main ? ScriptLoader.currentScript : currentScript;
+		}
+		
+		@SuppressWarnings("deprecation")
+		void setCurrentScript(final Config script) {
+			if (main)
+				ScriptLoader.currentScript = script;
+			else
+				currentScript = script;
+		}
+		
+		@SuppressWarnings("deprecation")
+		String getCurrentEventName() {
+			return main ? ScriptLoader.currentEventName : currentEventName;
+		}
+		
+		@SuppressWarnings("deprecation")
+		void setCurrentEventName(final String name) {
+			if (main)
+				ScriptLoader.currentEventName = name;
+			else
+				currentEventName = name;
+		}
+		
+		@SuppressWarnings("deprecation")
+		List<TriggerSection> getCurrentSections() {
+			return main ? ScriptLoader.currentSections : currentSections;
+		}
+		
+		@SuppressWarnings("deprecation")
+		List<Loop> getCurrentLoops() {
+			return main ? ScriptLoader.currentLoops : currentLoops;
+		}
+		
+		@SuppressWarnings("deprecation")
+		Kleenean getHasDelayBefore() {
+			return main ? ScriptLoader.hasDelayBefore : hasDelayBefore;
+		}
+		
+		@SuppressWarnings("deprecation")
+		void setHasDelayBefore(final Kleenean delay) {
+			if (main)
+				ScriptLoader.hasDelayBefore = delay;
+			else
+				hasDelayBefore = delay;
+		}
+	}
+	
+	private final static ThreadLocal<LoaderState> state = new ThreadLocal<LoaderState>() {
+		@Override
+		protected LoaderState initialValue() {
+			return new LoaderState(Bukkit.getServer() != null && Bukkit.isPrimaryThread());
+		}
+	};
+	
+	/**
+	 * @deprecated Only holds the script loaded by Bukkit's main thread. Use {@link #getCurrentScript()} instead.
+	 */
+	@Deprecated
 	public static Config currentScript = null;
 	
+	/**
+	 * @deprecated Only holds the event of Bukkit's main thread. Use {@link #getCurrentEventName()} instead.
+	 */
+	@Deprecated
 	public static String currentEventName = null;
-//	private static SkriptEvent currentEvent = null;
-	private static Class<? extends Event>[] currentEvents = null;
 	
+	/**
+	 * @deprecated Only holds the sections of Bukkit's main thread. Use {@link #getCurrentSections()} instead.
+	 */
+	@Deprecated
 	public static List<TriggerSection> currentSections = new ArrayList<TriggerSection>();
+	
+	/**
+	 * @deprecated Only holds the loops of Bukkit's main thread. Use {@link #getCurrentLoops()} instead.
+	 */
+	@Deprecated
 	public static List<Loop> currentLoops = new ArrayList<Loop>();
-	private final static Map<String, ItemType> currentAliases = new HashMap<String, ItemType>();
-	final static HashMap<String, String> currentOptions = new HashMap<String, String>();
+	
+	/**
+	 * @deprecated Only holds the delay state of Bukkit's main thread. Use {@link #getHasDelayBefore()} and {@link #setHasDelayBefore(Kleenean)} instead.
+	 */
+	@Deprecated
+	public static Kleenean hasDelayBefore = Kleenean.FALSE;
+	
+	/**
+	 * @return The script that is currently being loaded by this thread, or null if no script is being loaded
+	 */
+	public static Config getCurrentScript() {
+		return state.get().getCurrentScript();
+	}
+	
+	public static String getCurrentEventName() {
+		return state.get().getCurrentEventName();
+	}
+	
+	public static List<TriggerSection> getCurrentSections() {
+		return state.get().getCurrentSections();
+	}
+	
+	public static List<Loop> getCurrentLoops() {
+		return state.get().getCurrentLoops();
+	}
+	
+	/**
+	 * @return The layout of the frames of the trigger that is currently being loaded. Local variables and loops get their position in the trigger's frames from
+	 *         it.
+	 */
+	public static ExecutionFrame.Layout getCurrentFrameLayout() {
+		return state.get().currentFrameLayout;
+	}
+	
+	public static void setCurrentFrameLayout(final ExecutionFrame.Layout layout) {
+		state.get().currentFrameLayout = layout;
+	}
+	
+	public static Kleenean getHasDelayBefore() {
+		return state.get().getHasDelayBefore();
+	}
+	
+	public static void setHasDelayBefore(final Kleenean hasDelayBefore) {
+		state.get().setHasDelayBefore(hasDelayBefore);
+	}
+	
+	/**
+	 * @return The cache of the script that is currently being parsed by this thread, or null if scripts are not cached
+	 */
+	public static ParseCache getCurrentParseCache() {
+		return state.get().parseCache;
+	}
 	
 	public static Map<String, ItemType> getScriptAliases() {
-		return currentAliases;
+		return state.get().currentAliases;
+	}
+	
+	/**
+	 * Prints what was simplified while loading the current script if {@link SkriptConfig#logSimplifications} is enabled.
+	 * 
+	 * @param message
+	 * @param line The line that was simplified or -1 if unknown
+	 */
+	public static void logSimplification(final String message, final int line) {
+		final Config script = state.get().getCurrentScript();
+		if (script == null || !SkriptConfig.logSimplifications.value())
+			return;
+		Skript.info(message + " (" + script.getFileName() + (line == -1 ? "" : ", line " + line) + ")");
 	}
 	
 	/**
@@ -117,8 +295,6 @@ final public class ScriptLoader {
 	 */
 	private final static ScriptInfo loadedScripts = new ScriptInfo();
 	
-	public static Kleenean hasDelayBefore = Kleenean.FALSE;
-	
 	public static class ScriptInfo {
 		public int files, triggers, commands;
 		
@@ -143,16 +319,120 @@ final public class ScriptLoader {
 		}
 	}
 	
-	private final static class SerializedScript implements Serializable {
-		final static long serialVersionUID = -6209530262798192214L;
+	/**
+	 * A script that has been parsed by {@link #parseScript(File, long)}, but whose triggers and commands have not yet been registered.
+	 */
+	private final static class ParsedScript {
+		/**
+		 * Everything logged while parsing the script, printed when the script is registered
+		 */
+		final RetainingLogHandler log;
 		
-		public SerializedScript() {}
+		/**
+		 * Whether the script could be loaded at all
+		 */
+		boolean loaded = false;
 		
-		public final List<Trigger> triggers = new ArrayList<Trigger>();
-		public final List<ScriptCommand> commands = new ArrayList<ScriptCommand>();
+		final List<Trigger> triggers = new ArrayList<Trigger>();
+		final List<ScriptCommand> commands = new ArrayList<ScriptCommand>();
+		/**
+		 * The events of each trigger, or null for self registering triggers
+		 */
+		final List<Class<? extends Event>[]> events = new ArrayList<Class<? extends Event>[]>();
+		/**
+		 * The default variables defined in the script's variables section
+		 */
+		final List<Pair<String, Object>> variables = new ArrayList<Pair<String, Object>>();
+		
+		Config config = null;
+		
+		ParsedScript(final RetainingLogHandler log) {
+			this.log = log;
+		}
 	}
 	
-	private static String indentation = "";
+	/**
+	 * A thread that parses scripts in parallel to the main thread. Has its own log handlers, see {@link SkriptLogger#startSeparateLog()}.
+	 */
+	private final static class LoaderThread extends Thread {
+		LoaderThread(final Runnable r) {
+			super(r, "Skript script loader");
+			setDaemon(true);
+		}
+		
+		@Override
+		public void run() {
+			SkriptLogger.startSeparateLog();
+			super.run();
+		}
+	}
+	
+	private final static ThreadFactory loaderThreadFactory = new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			return new LoaderThread(r);
+		}
+	};
+	
+	/**
+	 * Tasks of loader threads that have to be run on the main thread, which runs them while it waits for the loader threads. Null if no loader threads are
+	 * running.
+	 */
+	private static volatile BlockingQueue<FutureTask<?>> mainThreadTasks = null;
+	
+	/**
+	 * Calls the given method on the main thread if the calling thread is a loader thread, or calls it directly otherwise. Used for the parts of parsing that may
+	 * use Bukkit, e.g. initialising events. Everything the method logs is logged on the calling thread, i.e. to the log of the script that is being parsed.
+	 * <p>
+	 * The method must not use the state of the script that is being loaded (e.g. {@link #getCurrentScript()}), as it's called with the main thread's state.
+	 * 
+	 * @param c
+	 * @return What the method returned
+	 */
+	public final static <T> T callOnMainThread(final Callable<T> c) {
+		final BlockingQueue<FutureTask<?>> tasks = mainThreadTasks;
+		if (tasks == null || !(Thread.currentThread() instanceof LoaderThread)) {
+			try {
+				return c.call();
+			} catch (final RuntimeException e) {
+				throw e;
+			} catch (final Exception e) {
+				throw new RuntimeException(e);
+			}
+		}
+		final Node node = SkriptLogger.getNode();
+		final RetainingLogHandler[] log = new RetainingLogHandler[1];
+		final FutureTask<T> f = new FutureTask<T>(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				final Node previousNode = SkriptLogger.getNode();
+				SkriptLogger.setNode(node);
+				log[0] = SkriptLogger.startRetainingLog();
+				try {
+					return c.call();
+				} finally {
+					log[0].stopRetaining();
+					SkriptLogger.setNode(previousNode);
+				}
+			}
+		});
+		tasks.add(f);
+		try {
+			return f.get();
+		} catch (final InterruptedException e) {
+			// loader threads are only interrupted if the main thread stopped waiting for them, i.e. doesn't run any more tasks
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally {
+			if (log[0] != null)
+				log[0].printLog();
+		}
+	}
 	
 	static ScriptInfo loadScripts() {
 		final File scriptsFolder = new File(Skript.getInstance().getDataFolder(), Skript.SCRIPTSFOLDER + File.separator);
@@ -204,23 +484,20 @@ final public class ScriptLoader {
 	 * @return Info on the loaded scripts
 	 */
 	public final static ScriptInfo loadScripts(final File directory) {
-		final ScriptInfo i = new ScriptInfo();
-		final boolean wasLocal = Language.setUseLocal(false);
-		try {
-			final File[] files = directory.listFiles(scriptFilter);
-			Arrays.sort(files);
-			for (final File f : files) {
-				if (f.isDirectory()) {
-					i.add(loadScripts(f));
-				} else {
-					i.add(loadScript(f));
-				}
-			}
-		} finally {
-			if (wasLocal)
-				Language.setUseLocal(true);
+		final List<File> files = new ArrayList<File>();
+		listScripts(directory, files);
+		return loadScripts(files);
+	}
+	
+	private final static void listScripts(final File directory, final List<File> files) {
+		final File[] fs = directory.listFiles(scriptFilter);
+		Arrays.sort(fs);
+		for (final File f : fs) {
+			if (f.isDirectory())
+				listScripts(f, files);
+			else
+				files.add(f);
 		}
-		return i;
 	}
 	
 	/**
@@ -231,95 +508,172 @@ final public class ScriptLoader {
 	 */
 	public final static ScriptInfo loadScripts(final File[] files) {
 		Arrays.sort(files);
+		final ScriptInfo i = loadScripts(Arrays.asList(files));
+		
+		synchronized (loadedScripts) {
+			loadedScripts.add(i);
+		}
+		
+		SkriptEventHandler.registerBukkitEvents();
+		
+		return i;
+	}
+	
+	/**
+	 * Parses the given scripts, using multiple threads if {@link SkriptConfig#scriptLoaderThreads} allows it, and registers them in the given order on the
+	 * calling thread, i.e. scripts are always registered in the same order and their messages are never interleaved.
+	 * 
+	 * @param files
+	 * @return Info on the loaded scripts
+	 */
+	private final static ScriptInfo loadScripts(final List<File> files) {
 		final ScriptInfo i = new ScriptInfo();
 		final boolean wasLocal = Language.setUseLocal(false);
 		try {
-			for (final File f : files) {
-				i.add(loadScript(f));
+			int threads = SkriptConfig.scriptLoaderThreads.value();
+			if (threads <= 0)
+				threads = Runtime.getRuntime().availableProcessors();
+			threads = Math.min(threads, files.size());
+			
+			final long fingerprint = SkriptConfig.enableScriptCaching.value() ? ParseCache.getRegistryFingerprint() : 0;
+			
+			if (threads <= 1) {
+				for (final File f : files)
+					i.add(registerScript(parseScript(f, fingerprint)));
+				return i;
 			}
+			
+			final BlockingQueue<FutureTask<?>> tasks = new LinkedBlockingQueue<FutureTask<?>>();
+			mainThreadTasks = tasks;
+			final ExecutorService executor = Executors.newFixedThreadPool(threads, loaderThreadFactory);
+			final List<ParsedScript> parsed = new ArrayList<ParsedScript>(files.size());
+			try {
+				final List<Future<ParsedScript>> futures = new ArrayList<Future<ParsedScript>>(files.size());
+				for (final File f : files) {
+					futures.add(executor.submit(new Callable<ParsedScript>() {
+						@Override
+						public ParsedScript call() throws Exception {
+							return parseScript(f, fingerprint);
+						}
+					}));
+				}
+				// scripts are only registered once all are parsed, as registering commands and triggers is not thread-safe
+				for (int j = 0; j < futures.size(); j++) {
+					final Future<ParsedScript> future = futures.get(j);
+					while (!future.isDone()) {
+						final FutureTask<?> t = tasks.poll(10, TimeUnit.MILLISECONDS);
+						if (t != null)
+							t.run();
+					}
+					try {
+						parsed.add(future.get());
+					} catch (final ExecutionException e) {
+						Skript.exception(e.getCause(), "Could not load " + files.get(j).getName());
+					}
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				mainThreadTasks = null;
+				executor.shutdownNow();
+			}
+			for (final ParsedScript s : parsed)
+				i.add(registerScript(s));
 		} finally {
 			if (wasLocal)
 				Language.setUseLocal(true);
 		}
+		return i;
+	}
+	
+	/**
+	 * Registers the triggers, commands and default variables of a parsed script and prints everything that was logged while parsing it. Must be called from
+	 * the main thread.
+	 * 
+	 * @param parsed
+	 * @return Info on the registered script
+	 */
+	private final static ScriptInfo registerScript(final ParsedScript parsed) {
+		parsed.log.printLog();
+		if (!parsed.loaded)
+			return new ScriptInfo();
+		
+		if (parsed.config != null && SkriptConfig.keepConfigsLoaded.value())
+			SkriptConfig.configs.add(parsed.config);
+		
+		for (final Pair<String, Object> v : parsed.variables) {
+			if (Variables.getVariable(v.first, null, false) == null)
+				Variables.setVariable(v.first, v.second, null, false);
+		}
 		
-		synchronized (loadedScripts) {
-			loadedScripts.add(i);
+		final List<Trigger> triggers = parsed.triggers;
+		for (int j = 0; j < triggers.size(); j++) {
+			final Trigger t = triggers.get(j);
+			final Class<? extends Event>[] events = parsed.events.get(j);
+			if (events == null) {
+				((SelfRegisteringSkriptEvent) t.getEvent()).register(t);
+				SkriptEventHandler.addSelfRegisteringTrigger(t);
+			} else {
+				SkriptEventHandler.addTrigger(events, t);
+			}
 		}
 		
-		SkriptEventHandler.registerBukkitEvents();
+		int numCommands = 0;
+		for (final ScriptCommand c : parsed.commands) {
+			if (Commands.registerCommand(c))
+				numCommands++;
+		}
 		
-		return i;
+		return new ScriptInfo(1, triggers.size(), numCommands);
+	}
+	
+	/**
+	 * Parses a script without registering anything, thus this can be called from any thread. Scripts of different files can be parsed simultaneously, as all
+	 * state of the script that is currently being parsed is local to the parsing thread.
+	 * 
+	 * @param f
+	 * @param fingerprint The fingerprint of the registered syntax if scripts are cached, see {@link ParseCache#getRegistryFingerprint()}
+	 * @return The parsed script, which must be registered with {@link #registerScript(ParsedScript)}
+	 */
+	private final static ParsedScript parseScript(final File f, final long fingerprint) {
+		final ParsedScript parsed = new ParsedScript(SkriptLogger.startRetainingLog());
+		try {
+			parseScript(f, fingerprint, parsed);
+		} finally {
+			parsed.log.stopRetaining();
+		}
+		return parsed;
 	}
 	
 	@SuppressWarnings("unchecked")
-	private final static ScriptInfo loadScript(final File f) {
+	private final static void parseScript(final File f, final long fingerprint, final ParsedScript parsed) {
+		final LoaderState state = ScriptLoader.state.get();
 		File cache = null;
+		byte[] hash = null;
 		if (SkriptConfig.enableScriptCaching.value()) {
 			cache = new File(f.getParentFile(), "cache" + File.separator + f.getName() + "c");
-			if (cache.exists()) {
-				final RetainingLogHandler log = SkriptLogger.startRetainingLog();
-				ObjectInputStream in = null;
-				try {
-					in = new ObjectInputStream(new FileInputStream(cache));
-					final long lastModified = in.readLong();
-					if (lastModified == f.lastModified()) {
-						final SerializedScript script = (SerializedScript) in.readObject();
-						triggersLoop: for (final Trigger t : script.triggers) {
-							if (t.getEvent() instanceof SelfRegisteringSkriptEvent) {
-								((SelfRegisteringSkriptEvent) t.getEvent()).register(t);
-								SkriptEventHandler.addSelfRegisteringTrigger(t);
-							} else {
-								for (final SkriptEventInfo<?> e : Skript.getEvents()) {
-									if (e.c == t.getEvent().getClass()) {
-										SkriptEventHandler.addTrigger(e.events, t);
-										continue triggersLoop;
-									}
-								}
-								throw new EmptyStackException();
-							}
-						}
-						for (final ScriptCommand c : script.commands) {
-							Commands.registerCommand(c);
-						}
-						log.printLog();
-						return new ScriptInfo(1, script.triggers.size(), script.commands.size());
-					} else {
-						cache.delete();
-					}
-				} catch (final Exception e) {
-					if (Skript.testing()) {
-						System.err.println("[debug] Error loading cached script '" + f.getName() + "':");
-						e.printStackTrace();
-					}
-					unloadScript(f);
-					if (in != null) {
-						try {
-							in.close();
-						} catch (final IOException e1) {}
-					}
-					cache.delete();
-				} finally {
-					log.stop();
-					if (in != null) {
-						try {
-							in.close();
-						} catch (final IOException e) {}
-					}
+			try {
+				hash = ParseCache.hash(f);
+				state.parseCache = ParseCache.read(cache, hash, fingerprint);
+			} catch (final IOException e) {
+				if (Skript.testing()) {
+					System.err.println("[debug] Error loading cached script '" + f.getName() + "':");
+					e.printStackTrace();
 				}
+				cache.delete();
 			}
+			if (state.parseCache == null)
+				state.parseCache = ParseCache.record();
 		}
 		try {
 			final Config config = new Config(f, true, false, ":");
-			if (SkriptConfig.keepConfigsLoaded.value())
-				SkriptConfig.configs.add(config);
+			parsed.config = config;
 			int numTriggers = 0;
 			int numCommands = 0;
 			
-			currentAliases.clear();
-			currentOptions.clear();
-			currentScript = config;
-			
-			final SerializedScript script = new SerializedScript();
+			state.currentAliases.clear();
+			state.currentOptions.clear();
+			state.setCurrentScript(config);
 			
 			final CountingLogHandler numErrors = SkriptLogger.startLogHandler(new CountingLogHandler(Level.SEVERE));
 			
@@ -340,10 +694,11 @@ final public class ScriptLoader {
 								Skript.error("invalid line in aliases section");
 								continue;
 							}
+							// only reads the registered aliases, which cannot be reloaded while scripts are loaded, and the aliases of this script
 							final ItemType t = Aliases.parseAlias(((EntryNode) n).getValue());
 							if (t == null)
 								continue;
-							currentAliases.put(((EntryNode) n).getKey().toLowerCase(), t);
+							state.currentAliases.put(((EntryNode) n).getKey().toLowerCase(), t);
 						}
 						continue;
 					} else if (event.equalsIgnoreCase("options")) {
@@ -353,7 +708,7 @@ final public class ScriptLoader {
 								Skript.error("invalid line in options");
 								continue;
 							}
-							currentOptions.put(((EntryNode) n).getKey(), ((EntryNode) n).getValue());
+							state.currentOptions.put(((EntryNode) n).getKey(), ((EntryNode) n).getValue());
 						}
 						continue;
 					} else if (event.equalsIgnoreCase("variables")) {
@@ -415,7 +770,7 @@ final public class ScriptLoader {
 									continue;
 								}
 							}
-							Variables.setVariable(name, o, null, false);
+							parsed.variables.add(new Pair<String, Object>(name, o));
 						}
 						continue;
 					}
@@ -424,21 +779,19 @@ final public class ScriptLoader {
 						continue;
 					
 					if (event.toLowerCase().startsWith("command ")) {
-//						currentEvent = null;
-						currentEventName = "command";
-						currentEvents = CollectionUtils.array(CommandEvent.class);
-						hasDelayBefore = Kleenean.FALSE;
+						state.setCurrentEventName("command");
+						state.currentEvents = CollectionUtils.array(CommandEvent.class);
+						state.setHasDelayBefore(Kleenean.FALSE);
 						
 						final ScriptCommand c = Commands.loadCommand(node);
 						if (c != null) {
 							numCommands++;
-							script.commands.add(c);
+							parsed.commands.add(c);
 						}
 						
-//						currentEvent = null;
-						currentEventName = null;
-						currentEvents = null;
-						hasDelayBefore = Kleenean.FALSE;
+						state.setCurrentEventName(null);
+						state.currentEvents = null;
+						state.setHasDelayBefore(Kleenean.FALSE);
 						
 						continue;
 					}
@@ -460,26 +813,21 @@ final public class ScriptLoader {
 					if (Skript.debug() || node.debug())
 						Skript.debug(event + " (" + parsedEvent.second.toString(null, true) + "):");
 					
-//					currentEvent = parsedEvent.second;
-					currentEventName = parsedEvent.first.getName().toLowerCase(Locale.ENGLISH);
-					currentEvents = parsedEvent.first.events;
-					hasDelayBefore = Kleenean.FALSE;
+					state.setCurrentEventName(parsedEvent.first.getName().toLowerCase(Locale.ENGLISH));
+					state.currentEvents = parsedEvent.first.events;
+					state.setHasDelayBefore(Kleenean.FALSE);
+					state.currentFrameLayout = new ExecutionFrame.Layout();
 					
 					final Trigger trigger = new Trigger(config.getFile(), event, parsedEvent.second, loadItems(node));
 					
-//					currentEvent = null;
-					currentEventName = null;
-					currentEvents = null;
-					hasDelayBefore = Kleenean.FALSE;
-					
-					if (parsedEvent.second instanceof SelfRegisteringSkriptEvent) {
-						((SelfRegisteringSkriptEvent) parsedEvent.second).register(trigger);
-						SkriptEventHandler.addSelfRegisteringTrigger(trigger);
-					} else {
-						SkriptEventHandler.addTrigger(parsedEvent.first.events, trigger);
-					}
+					state.setCurrentEventName(null);
+					state.currentEvents = null;
+					state.setHasDelayBefore(Kleenean.FALSE);
+					state.currentFrameLayout = null;
 					
-					script.triggers.add(trigger);
+					// registered later on the main thread
+					parsed.triggers.add(trigger);
+					parsed.events.add(parsedEvent.second instanceof SelfRegisteringSkriptEvent ? null : parsedEvent.first.events);
 					
 					numTriggers++;
 				}
@@ -487,45 +835,29 @@ final public class ScriptLoader {
 				if (Skript.logHigh())
 					Skript.info("loaded " + numTriggers + " trigger" + (numTriggers == 1 ? "" : "s") + " and " + numCommands + " command" + (numCommands == 1 ? "" : "s") + " from '" + config.getFileName() + "'");
 				
-				currentScript = null;
+				state.setCurrentScript(null);
 			} finally {
 				numErrors.stop();
 			}
+			parsed.loaded = true;
 			
-			if (SkriptConfig.enableScriptCaching.value()) {
-				if (numErrors.getCount() > 0) {
-					ObjectOutputStream out = null;
-					try {
-						cache.getParentFile().mkdirs();
-						out = new ObjectOutputStream(new FileOutputStream(cache));
-						out.writeLong(f.lastModified());
-						out.writeObject(script);
-					} catch (final NotSerializableException e) {
-						Skript.exception(e, "Cannot cache " + f.getName());
-						if (out != null)
-							out.close();
-						cache.delete();
-					} catch (final IOException e) {
-						Skript.warning("Cannot cache " + f.getName() + ": " + e.getLocalizedMessage());
-						if (out != null)
-							out.close();
-						cache.delete();
-					} finally {
-						if (out != null)
-							out.close();
-					}
+			// scripts with errors are not cached to make sure that they are checked again when reloaded
+			if (cache != null && hash != null && !state.parseCache.isReplaying() && numErrors.getCount() == 0) {
+				try {
+					state.parseCache.write(cache, hash, fingerprint);
+				} catch (final IOException e) {
+					Skript.warning("Cannot cache " + f.getName() + ": " + e.getLocalizedMessage());
+					cache.delete();
 				}
 			}
-			
-			return new ScriptInfo(1, numTriggers, numCommands);
 		} catch (final IOException e) {
 			Skript.error("Could not load " + f.getName() + ": " + ExceptionUtils.toString(e));
 		} catch (final Exception e) {
 			Skript.exception(e, "Could not load " + f.getName());
 		} finally {
+			state.parseCache = null;
 			SkriptLogger.setNode(null);
 		}
-		return new ScriptInfo();
 	}
 	
 	/**
@@ -564,6 +896,7 @@ final public class ScriptLoader {
 	public final static String replaceOptions(final String s) {
 		if (s == null)
 			return null;
+		final Map<String, String> currentOptions = state.get().currentOptions;
 		return StringUtils.replaceAll(s, "\\{@(.+?)\\}", new Callback<String, Matcher>() {
 			@Override
 			public String run(final Matcher m) {
@@ -579,9 +912,10 @@ final public class ScriptLoader {
 	
 	@SuppressWarnings("unchecked")
 	public static ArrayList<TriggerItem> loadItems(final SectionNode node) {
+		final LoaderState state = ScriptLoader.state.get();
 		
 		if (Skript.debug())
-			indentation += "    ";
+			state.indentation += "    ";
 		
 		final ArrayList<TriggerItem> items = new ArrayList<TriggerItem>();
 		
@@ -600,10 +934,10 @@ final public class ScriptLoader {
 				if (stmt == null)
 					continue;
 				if (Skript.debug() || n.debug())
-					Skript.debug(indentation + stmt.toString(null, true));
+					Skript.debug(state.indentation + stmt.toString(null, true));
 				items.add(stmt);
 				if (stmt instanceof Delay)
-					hasDelayBefore = Kleenean.TRUE;
+					state.setHasDelayBefore(Kleenean.TRUE);
 			} else if (n instanceof SectionNode) {
 				String name = replaceOptions(n.getKey());
 				if (name == null)
@@ -632,33 +966,33 @@ final public class ScriptLoader {
 						continue;
 					}
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "loop " + loopedExpr.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(state.indentation + "loop " + loopedExpr.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = state.getHasDelayBefore();
 					items.add(new Loop(loopedExpr, (SectionNode) n));
-					if (hadDelayBefore != Kleenean.TRUE && hasDelayBefore != Kleenean.FALSE)
-						hasDelayBefore = Kleenean.UNKNOWN;
+					if (hadDelayBefore != Kleenean.TRUE && state.getHasDelayBefore() != Kleenean.FALSE)
+						state.setHasDelayBefore(Kleenean.UNKNOWN);
 				} else if (StringUtils.startsWithIgnoreCase(name, "while ")) {
 					final String l = name.substring("while ".length());
 					final Condition c = Condition.parse(l, "Can't understand this condition: " + l);
 					if (c == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "while " + c.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(state.indentation + "while " + c.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = state.getHasDelayBefore();
 					items.add(new While(c, (SectionNode) n));
-					if (hadDelayBefore != Kleenean.TRUE && hasDelayBefore != Kleenean.FALSE)
-						hasDelayBefore = Kleenean.UNKNOWN;
+					if (hadDelayBefore != Kleenean.TRUE && state.getHasDelayBefore() != Kleenean.FALSE)
+						state.setHasDelayBefore(Kleenean.UNKNOWN);
 				} else if (name.equalsIgnoreCase("else")) {
 					if (items.size() == 0 || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
 						Skript.error("'else' has to be placed just after an 'if' or 'else if' section");
 						continue;
 					}
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "else:");
-					final Kleenean hadDelayAfterLastIf = hasDelayBefore;
-					hasDelayBefore = hadDelayBeforeLastIf;
+						Skript.debug(state.indentation + "else:");
+					final Kleenean hadDelayAfterLastIf = state.getHasDelayBefore();
+					state.setHasDelayBefore(hadDelayBeforeLastIf);
 					((Conditional) items.get(items.size() - 1)).loadElseClause((SectionNode) n);
-					hasDelayBefore = hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(hasDelayBefore));
+					state.setHasDelayBefore(hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(state.getHasDelayBefore())));
 				} else if (StringUtils.startsWithIgnoreCase(name, "else if ")) {
 					if (items.size() == 0 || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
 						Skript.error("'else if' has to be placed just after another 'if' or 'else if' section");
@@ -669,11 +1003,11 @@ final public class ScriptLoader {
 					if (cond == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "else if " + cond.toString(null, true));
-					final Kleenean hadDelayAfterLastIf = hasDelayBefore;
-					hasDelayBefore = hadDelayBeforeLastIf;
+						Skript.debug(state.indentation + "else if " + cond.toString(null, true));
+					final Kleenean hadDelayAfterLastIf = state.getHasDelayBefore();
+					state.setHasDelayBefore(hadDelayBeforeLastIf);
 					((Conditional) items.get(items.size() - 1)).loadElseIf(cond, (SectionNode) n);
-					hasDelayBefore = hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(hasDelayBefore.and(Kleenean.UNKNOWN)));
+					state.setHasDelayBefore(hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(state.getHasDelayBefore().and(Kleenean.UNKNOWN))));
 				} else {
 					if (StringUtils.startsWithIgnoreCase(name, "if "))
 						name = name.substring(3);
@@ -681,26 +1015,54 @@ final public class ScriptLoader {
 					if (cond == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + cond.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(state.indentation + cond.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = state.getHasDelayBefore();
 					hadDelayBeforeLastIf = hadDelayBefore;
 					items.add(new Conditional(cond, (SectionNode) n));
-					hasDelayBefore = hadDelayBefore.or(hasDelayBefore.and(Kleenean.UNKNOWN));
+					state.setHasDelayBefore(hadDelayBefore.or(state.getHasDelayBefore().and(Kleenean.UNKNOWN)));
 				}
 			}
 		}
 		
+		removeConstantConditions(items);
+		
 		for (int i = 0; i < items.size() - 1; i++)
 			items.get(i).setNext(items.get(i + 1));
 		
 		SkriptLogger.setNode(node);
 		
 		if (Skript.debug())
-			indentation = indentation.substring(0, indentation.length() - 4);
+			state.indentation = state.indentation.substring(0, state.indentation.length() - 4);
 		
 		return items;
 	}
 	
+	/**
+	 * Removes conditions that are always satisfied and sections that are never run, as well as all items after a condition that is never satisfied.
+	 * 
+	 * @param items The items of a section, before they are linked
+	 * @see Condition#getConstantResult()
+	 */
+	private static void removeConstantConditions(final List<TriggerItem> items) {
+		for (int i = 0; i < items.size(); i++) {
+			final TriggerItem item = items.get(i);
+			if (item instanceof Condition) {
+				final Kleenean result = ((Condition) item).getConstantResult();
+				if (result == Kleenean.TRUE) {
+					logSimplification("removed condition '" + item.toString(null, false) + "' as it's always true", item.getLine());
+					items.remove(i--);
+				} else if (result == Kleenean.FALSE && i < items.size() - 1) {
+					// the condition itself is kept as it stops the execution of this section
+					logSimplification("removed everything after '" + item.toString(null, false) + "' as it's never true", item.getLine());
+					items.subList(i + 1, items.size()).clear();
+				}
+			} else if (item instanceof Conditional && ((Conditional) item).isNeverRun()) {
+				logSimplification("removed section '" + item.toString(null, false) + "' as its condition is never true", item.getLine());
+				items.remove(i--);
+			}
+		}
+	}
+	
 	/**
 	 * For unit testing
 	 * 
@@ -714,13 +1076,14 @@ final public class ScriptLoader {
 		
 		final Pair<SkriptEventInfo<?>, SkriptEvent> parsedEvent = SkriptParser.parseEvent(event, "can't understand this event: '" + node.getKey() + "'");
 		
-//		currentEvent = parsedEvent.second;
-		currentEvents = parsedEvent.first.events;
+		final LoaderState state = ScriptLoader.state.get();
+		state.currentEvents = parsedEvent.first.events;
+		state.currentFrameLayout = new ExecutionFrame.Layout();
 		
 		final Trigger t = new Trigger(null, event, parsedEvent.second, loadItems(node));
 		
-//		currentEvent = null;
-		currentEvents = null;
+		state.currentEvents = null;
+		state.currentFrameLayout = null;
 		
 		return t;
 	}
@@ -744,22 +1107,22 @@ final public class ScriptLoader {
 	}
 	
 	public final static boolean isCurrentEvent(final Class<? extends Event> event) {
-		return CollectionUtils.containsSuperclass(currentEvents, event);
+		return CollectionUtils.containsSuperclass(state.get().currentEvents, event);
 	}
 	
 	public final static boolean isCurrentEvent(final Class<? extends Event>... events) {
-		return CollectionUtils.containsAnySuperclass(currentEvents, events);
+		return CollectionUtils.containsAnySuperclass(state.get().currentEvents, events);
 	}
 	
 	/**
 	 * @see #isCurrentEvent(Class)
 	 */
 	public static Class<? extends Event>[] getCurrentEvents() {
-		return currentEvents;
+		return state.get().currentEvents;
 	}
 	
 	public static void setCurrentEvents(final Class<? extends Event>... currentEvents) {
-		ScriptLoader.currentEvents = currentEvents;
+		state.get().currentEvents = currentEvents;
 	}
 	
 }
@@ -548,6 +548,7 @@ public final class Skript extends JavaPlugin implements Listener {
 		disableScripts();
 		
 		Bukkit.getScheduler().cancelTasks(this);
+		Task.cancelSyncQueue();
 		
 		for (final AutoCloseable c : closeOnDisable) {
 			try {
@@ -70,6 +70,10 @@ public class SkriptCommand implements CommandExecutor {
 					.add("check")
 					.add("changes")
 					.add("download")
+			).add(new CommandHelp("profile", ChatColor.DARK_RED)
+					.add("start")
+					.add("stop")
+					.add("dump")
 			//			).add(new CommandHelp("variable", "Commands for modifying variables", ChatColor.DARK_RED)
 //					.add("set", "Creates a new variable or changes an existing one")
 //					.add("delete", "Deletes a variable")
@@ -384,6 +388,25 @@ public class SkriptCommand implements CommandExecutor {
 				} finally {
 					Updater.stateLock.writeLock().unlock();
 				}
+			} else if (args[0].equalsIgnoreCase("profile")) {
+				if (args[1].equalsIgnoreCase("start")) {
+					Profiler.start();
+					info(sender, "profile.started");
+				} else if (args[1].equalsIgnoreCase("stop")) {
+					if (!Profiler.isEnabled()) {
+						info(sender, "profile.not started");
+						return true;
+					}
+					Profiler.stop();
+					info(sender, "profile.stopped");
+				} else if (args[1].equalsIgnoreCase("dump")) {
+					try {
+						final File f = Profiler.dump();
+						info(sender, "profile.dumped", f.getName());
+					} catch (final IOException e) {
+						error(sender, "profile.io error", ExceptionUtils.toString(e));
+					}
+				}
 			} else if (args[0].equalsIgnoreCase("help")) {
 				skriptCommandHelp.showHelp(sender);
 			}
@@ -162,6 +162,21 @@ public abstract class SkriptConfig {
 			.optional(true)
 			.defaultValue(false);
 	
+	/**
+	 * Number of threads used to parse scripts, or 0 to use one thread per available processor. Scripts are parsed on the main thread by default, as addons
+	 * might not expect their syntax elements to be parsed on other threads.
+	 */
+	public final static Option<Integer> scriptLoaderThreads = new Option<Integer>("script loader threads", Integer.class)
+			.optional(true)
+			.defaultValue(1);
+	
+	/**
+	 * Whether to print which expressions and conditions were simplified when scripts are loaded
+	 */
+	public final static Option<Boolean> logSimplifications = new Option<Boolean>("log simplifications", Boolean.class)
+			.optional(true)
+			.defaultValue(false);
+	
 	/**
 	 * This should only be used in special cases
 	 */
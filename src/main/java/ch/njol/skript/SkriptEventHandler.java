@@ -22,25 +22,28 @@
 package ch.njol.skript;
 
 import java.io.File;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Bukkit;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
 import org.bukkit.event.Event.Result;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.server.ServerCommandEvent;
 import org.bukkit.plugin.EventExecutor;
 
+import ch.njol.skript.Profiler.Timing;
 import ch.njol.skript.ScriptLoader.ScriptInfo;
 import ch.njol.skript.command.Commands;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
@@ -52,99 +55,98 @@ import ch.njol.skript.lang.Trigger;
 public abstract class SkriptEventHandler {
 	private SkriptEventHandler() {}
 	
+	/**
+	 * Triggers by the event they are registered for. Must be synchronised, as asynchronous events can be called from any thread.
+	 */
 	final static Map<Class<? extends Event>, List<Trigger>> triggers = new HashMap<Class<? extends Event>, List<Trigger>>();
 	
 	private final static List<Trigger> selfRegisteredTriggers = new ArrayList<Trigger>();
 	
-	private final static Iterator<Trigger> getTriggers(final Class<? extends Event> event) {
-		return new Iterator<Trigger>() {
-			private Class<?> e = event;
-			private Iterator<Trigger> current = null;
-			
-			@Override
-			public boolean hasNext() {
-				while (current == null || !current.hasNext()) {
-					if (e == null || !Event.class.isAssignableFrom(e))
-						return false;
-					final List<Trigger> l = triggers.get(e);
-					current = l == null ? null : l.iterator();
-					e = e.getSuperclass();
-				}
-				return true;
-			}
-			
-			@Override
-			public Trigger next() {
-				if (!hasNext())
-					throw new NoSuchElementException();
-				return current.next();
-			}
-			
-			@Override
-			public void remove() {
-				throw new UnsupportedOperationException();
+	private final static Trigger[] noTriggers = new Trigger[0];
+	
+	/**
+	 * All triggers that have to be checked for an event of a given class, i.e. the triggers of the class and all its superclasses in this order. Calculated when
+	 * an event of the class is called the first time and cleared whenever triggers are added or removed.
+	 */
+	private final static Map<Class<? extends Event>, Trigger[]> dispatchTable = new ConcurrentHashMap<Class<? extends Event>, Trigger[]>();
+	
+	private final static Trigger[] getTriggers(final Class<? extends Event> event) {
+		Trigger[] ts = dispatchTable.get(event);
+		if (ts != null)
+			return ts;
+		synchronized (triggers) {
+			final List<Trigger> l = new ArrayList<Trigger>();
+			for (Class<?> e = event; e != null && Event.class.isAssignableFrom(e); e = e.getSuperclass()) {
+				final List<Trigger> t = triggers.get(e);
+				if (t != null)
+					l.addAll(t);
 			}
-		};
+			ts = l.isEmpty() ? noTriggers : l.toArray(new Trigger[l.size()]);
+			dispatchTable.put(event, ts);
+			return ts;
+		}
 	}
 	
-	static Event last = null;
-	
 	final static EventExecutor ee = new EventExecutor() {
 		@Override
 		public void execute(final Listener l, final Event e) {
-			if (last == e) // an event is received multiple times if multiple superclasses of it are registered
+			if (Profiler.isEnabled()) {
+				final Timing t = Profiler.getTiming(e.getClass());
+				final long a = t.startAllocation(), start = System.nanoTime();
+				check(e);
+				t.add(System.nanoTime() - start, a);
 				return;
-			last = e;
+			}
 			check(e);
 		}
 	};
 	
 	static void check(final Event e) {
-		Iterator<Trigger> ts = getTriggers(e.getClass());
-		if (!ts.hasNext())
+		final Trigger[] ts = getTriggers(e.getClass());
+		if (ts.length == 0)
 			return;
 		
-		if (Skript.logVeryHigh()) {
-			boolean hasTrigger = false;
-			while (ts.hasNext()) {
-				if (ts.next().getEvent().check(e)) {
-					hasTrigger = true;
-					break;
-				}
-			}
-			if (!hasTrigger)
-				return;
-			ts = getTriggers(e.getClass());
-			
-			logEventStart(e);
-		}
-		
 		if (e instanceof Cancellable && ((Cancellable) e).isCancelled() &&
 				!(e instanceof PlayerInteractEvent && (((PlayerInteractEvent) e).getAction() == Action.LEFT_CLICK_AIR || ((PlayerInteractEvent) e).getAction() == Action.RIGHT_CLICK_AIR) && ((PlayerInteractEvent) e).useItemInHand() != Result.DENY)
 				|| e instanceof ServerCommandEvent && (((ServerCommandEvent) e).getCommand() == null || ((ServerCommandEvent) e).getCommand().isEmpty())) {
-			if (Skript.logVeryHigh())
-				Skript.info(" -x- was cancelled");
+			if (Skript.logVeryHigh()) {
+				for (final Trigger t : ts) {
+					if (t.getEvent().check(e)) {
+						logEventStart(e);
+						Skript.info(" -x- was cancelled");
+						break;
+					}
+				}
+			}
 			return;
 		}
 		
-		while (ts.hasNext()) {
-			final Trigger t = ts.next();
+		boolean started = false;
+		for (final Trigger t : ts) {
 			if (!t.getEvent().check(e))
 				continue;
+			if (!started) {
+				logEventStart(e);
+				started = true;
+			}
 			logTriggerStart(t);
 			t.execute(e);
 			logTriggerEnd(t);
 		}
 		
-		logEventEnd();
+		if (started)
+			logEventEnd();
 	}
 	
-	private static long startEvent;
+	/**
+	 * Per thread, as triggers of asynchronous events may run on the event's thread (see {@link Trigger#isAsyncSafe()})
+	 */
+	private final static ThreadLocal<Long> startEvent = new ThreadLocal<Long>(), startTrigger = new ThreadLocal<Long>();
 	
 	public static void logEventStart(final Event e) {
 		if (!Skript.logVeryHigh())
 			return;
-		startEvent = System.nanoTime();
+		startEvent.set(System.nanoTime());
 		Skript.info("");
 		Skript.info("== " + e.getClass().getName() + " ==");
 	}
@@ -152,30 +154,37 @@ public abstract class SkriptEventHandler {
 	public static void logEventEnd() {
 		if (!Skript.logVeryHigh())
 			return;
-		Skript.info("== took " + 1. * (System.nanoTime() - startEvent) / 1000000. + " milliseconds ==");
+		final Long start = startEvent.get();
+		if (start == null)
+			return;
+		Skript.info("== took " + 1. * (System.nanoTime() - start) / 1000000. + " milliseconds ==");
 	}
 	
-	static long startTrigger;
-	
 	public static void logTriggerStart(final Trigger t) {
 		if (!Skript.logVeryHigh())
 			return;
 		Skript.info("# " + t.getName());
-		startTrigger = System.nanoTime();
+		startTrigger.set(System.nanoTime());
 	}
 	
 	public static void logTriggerEnd(final Trigger t) {
 		if (!Skript.logVeryHigh())
 			return;
-		Skript.info("# " + t.getName() + " took " + 1. * (System.nanoTime() - startTrigger) / 1000000. + " milliseconds");
+		final Long start = startTrigger.get();
+		if (start == null)
+			return;
+		Skript.info("# " + t.getName() + " took " + 1. * (System.nanoTime() - start) / 1000000. + " milliseconds");
 	}
 	
 	static void addTrigger(final Class<? extends Event>[] events, final Trigger trigger) {
-		for (final Class<? extends Event> e : events) {
-			List<Trigger> ts = triggers.get(e);
-			if (ts == null)
-				triggers.put(e, ts = new ArrayList<Trigger>());
-			ts.add(trigger);
+		synchronized (triggers) {
+			for (final Class<? extends Event> e : events) {
+				List<Trigger> ts = triggers.get(e);
+				if (ts == null)
+					triggers.put(e, ts = new ArrayList<Trigger>());
+				ts.add(trigger);
+			}
+			dispatchTable.clear();
 		}
 	}
 	
@@ -193,18 +202,21 @@ public abstract class SkriptEventHandler {
 		final ScriptInfo info = new ScriptInfo();
 		info.files = 1;
 		
-		final Iterator<List<Trigger>> triggersIter = SkriptEventHandler.triggers.values().iterator();
-		while (triggersIter.hasNext()) {
-			final List<Trigger> ts = triggersIter.next();
-			for (int i = 0; i < ts.size(); i++) {
-				if (ts.get(i).getScript().equals(script)) {
-					info.triggers++;
-					ts.remove(i);
-					i--;
-					if (ts.isEmpty())
-						triggersIter.remove();
+		synchronized (triggers) {
+			final Iterator<List<Trigger>> triggersIter = SkriptEventHandler.triggers.values().iterator();
+			while (triggersIter.hasNext()) {
+				final List<Trigger> ts = triggersIter.next();
+				for (int i = 0; i < ts.size(); i++) {
+					if (ts.get(i).getScript().equals(script)) {
+						info.triggers++;
+						ts.remove(i);
+						i--;
+						if (ts.isEmpty())
+							triggersIter.remove();
+					}
 				}
 			}
+			dispatchTable.clear();
 		}
 		
 		for (int i = 0; i < selfRegisteredTriggers.size(); i++) {
@@ -223,7 +235,10 @@ public abstract class SkriptEventHandler {
 	}
 	
 	static void removeAllTriggers() {
-		triggers.clear();
+		synchronized (triggers) {
+			triggers.clear();
+			dispatchTable.clear();
+		}
 		for (final Trigger t : selfRegisteredTriggers)
 			((SelfRegisteringSkriptEvent) t.getEvent()).unregisterAll();
 		selfRegisteredTriggers.clear();
@@ -234,23 +249,45 @@ public abstract class SkriptEventHandler {
 	 * Stores which events are currently registered with Bukkit
 	 */
 	private final static Set<Class<? extends Event>> registeredEvents = new HashSet<Class<? extends Event>>();
+	/**
+	 * The handler lists {@link #listener} is registered to. Bukkit calls all listeners of the handler list of an event's class, thus the listener is only
+	 * registered once per handler list so that each event is received exactly once, even if events are called from within triggers.
+	 */
+	private final static Set<HandlerList> registeredHandlerLists = new HashSet<HandlerList>();
 	private final static Listener listener = new Listener() {};
 	
-	@SuppressWarnings({"unchecked", "rawtypes"})
 	final static void registerBukkitEvents() {
 		for (final Class<? extends Event> e : triggers.keySet()) {
-			if (!containsSuperclass((Set) registeredEvents, e)) { // I just love Java's generics
+			if (registeredEvents.contains(e))
+				continue;
+			final HandlerList h = getHandlerList(e);
+			if (h == null || registeredHandlerLists.add(h))
 				Bukkit.getPluginManager().registerEvent(e, listener, SkriptConfig.defaultEventPriority.value(), ee, Skript.getInstance());
-				registeredEvents.add(e);
-//				for (final Iterator<Class<? extends Event>> i = registeredEvents.iterator(); i.hasNext();) {
-//					final Class<? extends Event> ev = i.next();
-//					if (e.isAssignableFrom(ev)) {
-//						if (unregisterEvent(ev))
-//							i.remove();
-//					}
-//				}
+			registeredEvents.add(e);
+		}
+	}
+	
+	/**
+	 * Finds the handler list of an event class the same way as Bukkit does, i.e. by calling the static method <tt>getHandlerList()</tt> of the class or the
+	 * first superclass that declares it.
+	 * 
+	 * @return The handler list or null if it could not be found, in which case Bukkit will not allow to register the event anyway.
+	 */
+	private final static HandlerList getHandlerList(final Class<? extends Event> event) {
+		for (Class<?> c = event; c != null && Event.class.isAssignableFrom(c); c = c.getSuperclass()) {
+			try {
+				final Method m = c.getDeclaredMethod("getHandlerList");
+				m.setAccessible(true);
+				return (HandlerList) m.invoke(null);
+			} catch (final NoSuchMethodException e) {
+				continue;
+			} catch (final Exception e) {
+				if (Skript.testing())
+					e.printStackTrace();
+				return null;
 			}
 		}
+		return null;
 	}
 	
 	public final static boolean containsSuperclass(final Set<Class<?>> classes, final Class<?> c) {
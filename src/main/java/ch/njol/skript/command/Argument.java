@@ -21,10 +21,7 @@
 
 package ch.njol.skript.command;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.WeakHashMap;
 
 import org.bukkit.event.Event;
 
@@ -55,13 +52,6 @@ public class Argument<T> implements Serializable {
 	
 	private final boolean optional;
 	
-	private transient WeakHashMap<Event, T[]> current = new WeakHashMap<Event, T[]>();
-	
-	private void readObject(final ObjectInputStream in) throws ClassNotFoundException, IOException {
-		in.defaultReadObject();
-		current = new WeakHashMap<Event, T[]>();
-	}
-	
 	public Argument(final Expression<? extends T> def, final Class<T> type, final boolean single, final int index, final boolean optional) {
 		this.def = def;
 		this.type = type;
@@ -121,18 +111,24 @@ public class Argument<T> implements Serializable {
 	
 	public void setToDefault(final ScriptCommandEvent event) {
 		if (def != null)
-			current.put(event, def.getArray(event));
+			event.setArgument(index, def.getArray(event));
 	}
 	
-	@SuppressWarnings("unchecked")
 	public void set(final ScriptCommandEvent e, final Object[] o) {
 		if (o == null || !(type.isAssignableFrom(o.getClass().getComponentType())))
 			throw new IllegalArgumentException();
-		current.put(e, (T[]) o);
+		e.setArgument(index, o);
 	}
 	
+	/**
+	 * @param e
+	 * @return The values of this argument in the given command event, or null if it is not set or the event is not a command event
+	 */
+	@SuppressWarnings("unchecked")
 	public T[] getCurrent(final Event e) {
-		return current.get(e);
+		if (!(e instanceof ScriptCommandEvent))
+			return null;
+		return (T[]) ((ScriptCommandEvent) e).getArgument(index);
 	}
 	
 	public Class<T> getType() {
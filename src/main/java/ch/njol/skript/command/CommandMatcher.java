@@ -0,0 +1,262 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.command;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.classes.Parser;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.ParseContext;
+import ch.njol.skript.lang.SkriptParser;
+import ch.njol.skript.log.ErrorQuality;
+import ch.njol.skript.registrations.Classes;
+
+/**
+ * Matches the arguments of a {@link ScriptCommand} like {@link SkriptParser#parseArguments(String, ScriptCommand, ScriptCommandEvent)}, but with the command's
+ * pattern and the parsers of its arguments being looked up only once when the command is loaded.
+ * <p>
+ * Command patterns only consist of literal text, spaces, optional parts and arguments, as any other special characters are escaped by
+ * {@link Commands#loadCommand(ch.njol.skript.config.SectionNode)}. Patterns using anything else cannot be compiled.
+ * <p>
+ * Errors are logged to the caller's log handler, i.e. like with {@link SkriptParser#parseArguments(String, ScriptCommand, ScriptCommandEvent)} a parse log
+ * must be started before calling {@link #match(String, ScriptCommandEvent)}.
+ * 
+ * @author Peter Güttinger
+ */
+final class CommandMatcher {
+	
+	private final static int LITERAL = 0, SPACE = 1, OPTIONAL = 2, ARGUMENT = 3;
+	
+	/**
+	 * The kind of each element of the pattern
+	 */
+	private final int[] kinds;
+	/**
+	 * The lowercase character of literals
+	 */
+	private final char[] chars;
+	/**
+	 * The element after the end of optional parts, or the index of arguments
+	 */
+	private final int[] values;
+	/**
+	 * The number of arguments before each element, used to unset all arguments of a skipped optional part
+	 */
+	private final int[] argumentsBefore;
+	
+	private final Class<?>[] types;
+	private final boolean[] single;
+	private final Parser<?>[] parsers;
+	
+	/**
+	 * @param pattern
+	 * @param types The type of each argument
+	 * @param single Whether each argument only accepts a single value
+	 * @param parsers The parser of each argument
+	 * @throws IllegalArgumentException If the pattern contains anything that is not supported by this matcher
+	 */
+	CommandMatcher(final String pattern, final Class<?>[] types, final boolean[] single, final Parser<?>[] parsers) {
+		assert types.length == single.length && types.length == parsers.length;
+		this.types = types;
+		this.single = single;
+		this.parsers = parsers;
+		
+		final int[] kinds = new int[pattern.length()], values = new int[pattern.length()], argumentsBefore = new int[pattern.length() + 1];
+		final char[] chars = new char[pattern.length()];
+		final int[] optionals = new int[pattern.length()];
+		int n = 0, arguments = 0, optionalLevel = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			argumentsBefore[n] = arguments;
+			switch (c) {
+				case '[':
+					kinds[n] = OPTIONAL;
+					optionals[optionalLevel++] = n++;
+					break;
+				case ']':
+					if (optionalLevel == 0)
+						throw new IllegalArgumentException("Unexpected ']' in " + pattern);
+					values[optionals[--optionalLevel]] = n;
+					break;
+				case '%':
+					final int end = pattern.indexOf('%', i + 1);
+					if (end == -1)
+						throw new IllegalArgumentException("Odd number of '%' in " + pattern);
+					if (arguments == types.length)
+						throw new IllegalArgumentException("Too many arguments in " + pattern);
+					kinds[n] = ARGUMENT;
+					values[n++] = arguments++;
+					i = end;
+					break;
+				case ' ':
+					kinds[n++] = SPACE;
+					break;
+				case '(':
+				case ')':
+				case '|':
+				case '<':
+				case '>':
+					throw new IllegalArgumentException("Unsupported character '" + c + "' in " + pattern);
+				case '\\':
+					if (++i == pattern.length())
+						throw new IllegalArgumentException("Must not end with a backslash: " + pattern);
+					c = pattern.charAt(i);
+					//$FALL-THROUGH$
+				default:
+					kinds[n] = LITERAL;
+					chars[n++] = Character.toLowerCase(c);
+			}
+		}
+		if (optionalLevel != 0)
+			throw new IllegalArgumentException("Missing ']' in " + pattern);
+		if (arguments != types.length)
+			throw new IllegalArgumentException("Too few arguments in " + pattern);
+		argumentsBefore[n] = arguments;
+		
+		this.kinds = new int[n];
+		System.arraycopy(kinds, 0, this.kinds, 0, n);
+		this.chars = new char[n];
+		System.arraycopy(chars, 0, this.chars, 0, n);
+		this.values = new int[n];
+		System.arraycopy(values, 0, this.values, 0, n);
+		this.argumentsBefore = new int[n + 1];
+		System.arraycopy(argumentsBefore, 0, this.argumentsBefore, 0, n + 1);
+	}
+	
+	/**
+	 * @param command
+	 * @return A matcher for the given command, or null if the command's pattern cannot be compiled
+	 */
+	static CommandMatcher compile(final ScriptCommand command) {
+		final List<Argument<?>> arguments = command.getArguments();
+		final Class<?>[] types = new Class<?>[arguments.size()];
+		final boolean[] single = new boolean[arguments.size()];
+		final Parser<?>[] parsers = new Parser<?>[arguments.size()];
+		for (int i = 0; i < types.length; i++) {
+			final Argument<?> a = arguments.get(i);
+			types[i] = a.getType();
+			single[i] = a.isSingle();
+			parsers[i] = Classes.getCombinedParser(a.getType(), ParseContext.COMMAND);
+		}
+		try {
+			return new CommandMatcher(command.getPattern(), types, single, parsers);
+		} catch (final IllegalArgumentException e) {
+			if (Skript.testing())
+				e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * @param args The arguments as entered by the user
+	 * @param event The event the arguments will be set in
+	 * @return The values of all arguments, with unset arguments being null, or null if the arguments don't match
+	 */
+	Object[][] match(final String args, final ScriptCommandEvent event) {
+		final Object[][] r = new Object[types.length][];
+		return match(args.trim(), 0, 0, r, event) ? r : null;
+	}
+	
+	/**
+	 * Works exactly like SkriptParser's pattern matching, e.g. arguments are as short as possible and are parsed only after the rest of the pattern has matched.
+	 * 
+	 * @param s The arguments
+	 * @param i Position in the arguments
+	 * @param j Position in the pattern
+	 * @param r The values of the arguments
+	 * @param event
+	 * @return Whether the arguments from i on match the pattern from j on
+	 */
+	private final boolean match(final String s, int i, int j, final Object[][] r, final ScriptCommandEvent event) {
+		while (j < kinds.length) {
+			switch (kinds[j]) {
+				case OPTIONAL:
+					if (match(s, i, j + 1, r, event))
+						return true;
+					for (int a = argumentsBefore[j]; a < argumentsBefore[values[j]]; a++)
+						r[a] = null;
+					j = values[j];
+					continue;
+				case ARGUMENT:
+					if (i == s.length())
+						return false;
+					for (int i2 = j == kinds.length - 1 ? s.length() : i + 1; i2 <= s.length(); i2++) {
+						if (match(s, i2, j + 1, r, event)) {
+							final int a = values[j];
+							return (r[a] = parse(a, s.substring(i, i2), event)) != null;
+						}
+					}
+					return false;
+				case SPACE:
+					if (i == 0 || i == s.length() || s.charAt(i - 1) == ' ') {
+						j++;
+						continue;
+					} else if (s.charAt(i) != ' ') {
+						return false;
+					}
+					i++;
+					j++;
+					continue;
+				default:
+					if (i == s.length() || Character.toLowerCase(s.charAt(i)) != chars[j])
+						return false;
+					i++;
+					j++;
+			}
+		}
+		return i == s.length();
+	}
+	
+	/**
+	 * @param a The argument's index
+	 * @param arg The argument
+	 * @param event
+	 * @return The values of the argument or null if the argument is invalid
+	 */
+	private final Object[] parse(final int a, final String arg, final ScriptCommandEvent event) {
+		final String s = arg.trim();
+		if (!s.isEmpty()) {
+			final Object o = parsers[a].parse(s, ParseContext.COMMAND);
+			if (o != null) {
+				final Object[] r = (Object[]) Array.newInstance(types[a], 1);
+				r[0] = o;
+				return r;
+			}
+			if (SkriptParser.listSplitPattern.matcher(s).find()) {
+				// the argument might be a list, which is quite rare, thus the generic parser is good enough
+				final Expression<?> e = new SkriptParser(s, SkriptParser.PARSE_LITERALS, ParseContext.COMMAND).parseExpression(types[a]);
+				if (e != null) {
+					if (single[a] && !e.isSingle()) {
+						Skript.error(Commands.m_too_many_arguments.toString(Classes.getSuperClassInfo(types[a]).getName().getIndefiniteArticle(), Classes.getSuperClassInfo(types[a]).getName().toString()), ErrorQuality.SEMANTIC_ERROR);
+						return null;
+					}
+					return e.getArray(event);
+				}
+			}
+		}
+		Skript.error("'" + arg + "' is " + SkriptParser.notOfType(types[a]), ErrorQuality.NOT_AN_EXPRESSION);
+		return null;
+	}
+	
+}
@@ -31,8 +31,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.logging.Filter;
 import java.util.logging.LogRecord;
 import java.util.regex.Matcher;
@@ -63,6 +61,7 @@ import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.config.validate.SectionValidator;
 import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.localization.ArgsMessage;
@@ -72,6 +71,7 @@ import ch.njol.skript.log.BukkitLoggerFilter;
 import ch.njol.skript.log.RetainingLogHandler;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.Task;
 import ch.njol.skript.util.Utils;
 import ch.njol.util.Callback;
 import ch.njol.util.Pair;
@@ -125,7 +125,17 @@ public abstract class Commands {
 			.addEntry("executable by", true)
 			.addSection("trigger", false);
 	
-	public static List<Argument<?>> currentArguments = null;
+	/**
+	 * The arguments of the command that is currently being loaded by each thread
+	 */
+	private final static ThreadLocal<List<Argument<?>>> currentArguments = new ThreadLocal<List<Argument<?>>>();
+	
+	/**
+	 * @return The arguments of the command that is currently being loaded by this thread, or null if no command is being loaded
+	 */
+	public static List<Argument<?>> getCurrentArguments() {
+		return currentArguments.get();
+	}
 	
 	private final static Pattern escape = Pattern.compile("[" + Pattern.quote("(|)<>%\\") + "]");
 	private final static Pattern unescape = Pattern.compile("\\\\[" + Pattern.quote("(|)<>%\\") + "]");
@@ -195,23 +205,15 @@ public abstract class Commands {
 				if (handleEffectCommand(e.getPlayer(), e.getMessage()))
 					e.setCancelled(true);
 			} else {
-				final Future<Boolean> f = Bukkit.getScheduler().callSyncMethod(Skript.getInstance(), new Callable<Boolean>() {
+				// effect commands are parsed and executed on the main thread, but don't need a task of their own
+				final Boolean cancel = Task.callSyncBatched(new Callable<Boolean>() {
 					@Override
 					public Boolean call() throws Exception {
 						return handleEffectCommand(e.getPlayer(), e.getMessage());
 					}
 				});
-				try {
-					while (true) {
-						try {
-							if (f.get())
-								e.setCancelled(true);
-							break;
-						} catch (final InterruptedException e1) {}
-					}
-				} catch (final ExecutionException e1) {
-					Skript.exception(e1);
-				}
+				if (cancel != null && cancel)
+					e.setCancelled(true);
 			}
 		}
 	};
@@ -312,7 +314,7 @@ public abstract class Commands {
 		final String arguments = m.group(3) == null ? "" : m.group(3);
 		final StringBuilder pattern = new StringBuilder();
 		
-		currentArguments = new ArrayList<Argument<?>>();
+		currentArguments.set(new ArrayList<Argument<?>>());
 		m = Pattern.compile("<([a-zA-Z -]+?)\\s*(=\\s*(" + SkriptParser.wildcard + "))?>").matcher(arguments);
 		int lastEnd = 0;
 		int optionals = 0;
@@ -340,7 +342,7 @@ public abstract class Commands {
 			final Argument<?> arg = Argument.newInstance(c.getC(), m.group(3), i, !p.second, optionals > 0);
 			if (arg == null)
 				return null;
-			currentArguments.add(arg);
+			currentArguments.get().add(arg);
 			
 			if (arg.isOptional() && optionals == 0) {
 				pattern.append('[');
@@ -406,12 +408,13 @@ public abstract class Commands {
 		if (Skript.debug() || node.debug())
 			Skript.debug("command " + desc + ":");
 		
-		final ScriptCommand c = new ScriptCommand(node.getConfig().getFile(), command, pattern.toString(), currentArguments, description, usage, aliases, permission, permissionMessage, executableBy, ScriptLoader.loadItems(trigger));
-		registerCommand(c);
+		ScriptLoader.setCurrentFrameLayout(new ExecutionFrame.Layout());
+		final ScriptCommand c = new ScriptCommand(node.getConfig().getFile(), command, pattern.toString(), currentArguments.get(), description, usage, aliases, permission, permissionMessage, executableBy, ScriptLoader.loadItems(trigger));
+		ScriptLoader.setCurrentFrameLayout(null);
 		
 		if (Skript.logVeryHigh() && !Skript.debug())
-			Skript.info("registered command " + desc);
-		currentArguments = null;
+			Skript.info("loaded command " + desc);
+		currentArguments.set(null);
 		return c;
 	}
 	
@@ -420,7 +423,18 @@ public abstract class Commands {
 //		return c != null && c.getName().equals(command);
 //	}
 	
-	public static void registerCommand(final ScriptCommand command) {
+	/**
+	 * Registers a command loaded with {@link #loadCommand(SectionNode)}. Must be called from the main thread.
+	 * 
+	 * @param command
+	 * @return Whether the command was registered, i.e. false if another script already defines a command with the same name
+	 */
+	public static boolean registerCommand(final ScriptCommand command) {
+		final ScriptCommand existingCommand = commands.get(command.getLabel());
+		if (existingCommand != null && existingCommand.getLabel().equals(command.getLabel())) {
+			Skript.error("A command with the name /" + command.getLabel() + " is already defined in " + existingCommand.getScript().getName());
+			return false;
+		}
 		if (commandMap != null)
 			command.register(commandMap, cmKnownCommands, cmAliases);
 		commands.put(command.getLabel(), command);
@@ -428,6 +442,7 @@ public abstract class Commands {
 			commands.put(alias.toLowerCase(), command);
 		}
 		command.registerHelp();
+		return true;
 	}
 	
 	public static int unregisterCommands(final File script) {
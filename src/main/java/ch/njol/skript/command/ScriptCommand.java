@@ -92,6 +92,11 @@ public class ScriptCommand implements CommandExecutor, Serializable {
 	private final String pattern;
 	private final List<Argument<?>> arguments;
 	
+	/**
+	 * The compiled pattern, or null if the arguments have to be parsed with {@link SkriptParser#parseArguments(String, ScriptCommand, ScriptCommandEvent)}
+	 */
+	private transient CommandMatcher matcher;
+	
 	public final static int PLAYERS = 0x1, CONSOLE = 0x2, BOTH = PLAYERS | CONSOLE;
 	final int executableBy;
 	
@@ -131,9 +136,12 @@ public class ScriptCommand implements CommandExecutor, Serializable {
 		
 		trigger = new Trigger(script, "command /" + name, new SimpleEvent(), items);
 		
-		setupBukkitCommand();
+		matcher = CommandMatcher.compile(this);
 	}
 	
+	/**
+	 * Creates the Bukkit command. Only called when the command is registered, as commands can be loaded by other threads than the main thread.
+	 */
 	private void setupBukkitCommand() {
 		try {
 			final Constructor<PluginCommand> c = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
@@ -153,7 +161,7 @@ public class ScriptCommand implements CommandExecutor, Serializable {
 	
 	private void readObject(final ObjectInputStream in) throws ClassNotFoundException, IOException {
 		in.defaultReadObject();
-		setupBukkitCommand();
+		matcher = CommandMatcher.compile(this);
 	}
 	
 	@Override
@@ -188,7 +196,7 @@ public class ScriptCommand implements CommandExecutor, Serializable {
 				
 				final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 				try {
-					final boolean ok = SkriptParser.parseArguments(rest, ScriptCommand.this, event);
+					final boolean ok = matcher == null ? SkriptParser.parseArguments(rest, ScriptCommand.this, event) : setArguments(event, matcher.match(rest, event));
 					if (!ok) {
 						if (log.hasError())
 							sender.sendMessage(ChatColor.DARK_RED + log.getError().getMessage());
@@ -217,6 +225,18 @@ public class ScriptCommand implements CommandExecutor, Serializable {
 		});
 	}
 	
+	private boolean setArguments(final ScriptCommandEvent event, final Object[][] values) {
+		if (values == null)
+			return false;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null)
+				arguments.get(i).setToDefault(event);
+			else
+				arguments.get(i).set(event, values[i]);
+		}
+		return true;
+	}
+	
 	public void sendHelp(final CommandSender sender) {
 		if (!description.isEmpty())
 			sender.sendMessage(description);
@@ -241,6 +261,7 @@ public class ScriptCommand implements CommandExecutor, Serializable {
 	
 	public void register(final SimpleCommandMap commandMap, final Map<String, Command> knownCommands, final Set<String> aliases) {
 		synchronized (commandMap) {
+			final PluginCommand bukkitCommand = getBukkitCommand();
 			overriddenAliases = new HashMap<String, Command>();
 			overridden = knownCommands.put(label, bukkitCommand);
 			aliases.remove(label);
@@ -287,7 +308,7 @@ public class ScriptCommand implements CommandExecutor, Serializable {
 	public void registerHelp() {
 		helps = new ArrayList<HelpTopic>();
 		final HelpMap help = Bukkit.getHelpMap();
-		final HelpTopic t = new GenericCommandHelpTopic(bukkitCommand);
+		final HelpTopic t = new GenericCommandHelpTopic(getBukkitCommand());
 		help.addTopic(t);
 		helps.add(t);
 		final HelpTopic aliases = help.getHelpTopic("Aliases");
@@ -343,7 +364,12 @@ public class ScriptCommand implements CommandExecutor, Serializable {
 		return activeAliases;
 	}
 	
+	/**
+	 * Must only be called from the main thread, as the Bukkit command is created when it is first needed.
+	 */
 	public PluginCommand getBukkitCommand() {
+		if (bukkitCommand == null)
+			setupBukkitCommand();
 		return bukkitCommand;
 	}
 	
@@ -31,15 +31,29 @@ public class ScriptCommandEvent extends CommandEvent {
 	
 	private final ScriptCommand skriptCommand;
 	
+	/**
+	 * The values of the command's arguments by their index, set while the arguments are parsed
+	 */
+	private final Object[][] arguments;
+	
 	public ScriptCommandEvent(final ScriptCommand command, final CommandSender sender) {
 		super(sender, command.getLabel(), null);
 		skriptCommand = command;
+		arguments = new Object[command.getArguments().size()][];
 	}
 	
 	public ScriptCommand getSkriptCommand() {
 		return skriptCommand;
 	}
 	
+	Object[] getArgument(final int index) {
+		return arguments[index];
+	}
+	
+	void setArgument(final int index, final Object[] values) {
+		arguments[index] = values;
+	}
+	
 	@Override
 	public String[] getArgs() {
 		throw new UnsupportedOperationException();
@@ -30,9 +30,12 @@ import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.AsyncSafe;
 import ch.njol.skript.lang.Condition;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Variable;
+import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.log.ErrorQuality;
 import ch.njol.skript.log.RetainingLogHandler;
 import ch.njol.skript.log.SkriptLogger;
@@ -57,6 +60,7 @@ import ch.njol.util.Kleenean;
 		"time in the player's world is greater than 8:00",
 		"the creature is not an enderman or an ender dragon"})
 @Since("1.0")
+@AsyncSafe
 public class CondCompare extends Condition {
 	
 	private final static Patterns<Relation> patterns = new Patterns<Relation>(new Object[][] {
@@ -98,6 +102,10 @@ public class CondCompare extends Condition {
 	Relation relation;
 	@SuppressWarnings("rawtypes")
 	Comparator comp;
+	/**
+	 * Whether all expressions are single numbers (or variables), which can be compared without creating checkers
+	 */
+	private boolean numbers;
 	
 	@Override
 	public boolean init(final Expression<?>[] vars, final int matchedPattern, final Kleenean isDelayed, final ParseResult parser) {
@@ -128,9 +136,39 @@ public class CondCompare extends Condition {
 				}
 			}
 		}
+		numbers = isNumber(first) && isNumber(second) && (third == null || isNumber(third))
+				&& (comp == null || comp == Comparators.getComparator(Number.class, Number.class));
 		return true;
 	}
 	
+	/**
+	 * @param e
+	 * @return Whether the given expression is a single number, or a single variable which might be a number
+	 */
+	private final static boolean isNumber(final Expression<?> e) {
+		return e.isSingle() && (Number.class.isAssignableFrom(e.getReturnType()) || e instanceof Variable && e.getReturnType() == Object.class);
+	}
+	
+	/**
+	 * Compares numbers like the comparator of numbers
+	 */
+	private final static Relation compare(final double n1, final double n2) {
+		final double diff = n1 - n2;
+		if (Math.abs(diff) < Skript.EPSILON)
+			return Relation.EQUAL;
+		return Relation.get(diff);
+	}
+	
+	/**
+	 * Compares two single values, using {@link #compare(double, double)} if both are numbers
+	 */
+	@SuppressWarnings("unchecked")
+	private Relation compare(final Object o1, final Object o2) {
+		if (o1 instanceof Number && o2 instanceof Number)
+			return compare(((Number) o1).doubleValue(), ((Number) o2).doubleValue());
+		return comp != null ? comp.compare(o1, o2) : Comparators.compare(o1, o2);
+	}
+	
 	public final static String f(final Expression<?> e) {
 		if (e.getReturnType() == Object.class)
 			return e.toString(null, false);
@@ -202,6 +240,15 @@ public class CondCompare extends Condition {
 	 */
 	@Override
 	public boolean check(final Event e) {
+		if (numbers) {
+			// every expression is single, thus each one is evaluated exactly once and its value is used for both numbers and other values (of variables)
+			final Object o1 = first.getSingle(e), o2 = second.getSingle(e), o3 = third == null ? null : third.getSingle(e);
+			if (o1 == null || o2 == null || third != null && o3 == null)
+				return false; // like the checkers below if an expression has no value
+			if (third == null)
+				return relation.is(compare(o1, o2));
+			return relation == Relation.NOT_EQUAL ^ (Relation.GREATER_OR_EQUAL.is(compare(o1, o2)) && Relation.SMALLER_OR_EQUAL.is(compare(o1, o3)));
+		}
 		return first.check(e, new Checker<Object>() {
 			@Override
 			public boolean check(final Object o1) {
@@ -224,6 +271,16 @@ public class CondCompare extends Condition {
 		});
 	}
 	
+	/**
+	 * Only comparisons of literals and constants can be evaluated when the script is loaded. Default expressions are never constant, even literal ones.
+	 */
+	@Override
+	public Kleenean getConstantResult() {
+		if (SimpleExpression.isConstant(first) && SimpleExpression.isConstant(second) && (third == null || SimpleExpression.isConstant(third)))
+			return Kleenean.get(check(null));
+		return Kleenean.UNKNOWN;
+	}
+	
 	@Override
 	public String toString(final Event e, final boolean debug) {
 		String s;
@@ -21,10 +21,6 @@
 
 package ch.njol.skript.effects;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.WeakHashMap;
-
 import org.bukkit.Bukkit;
 import org.bukkit.event.Event;
 
@@ -34,6 +30,7 @@ import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.TriggerItem;
@@ -70,7 +67,9 @@ public class Delay extends Effect {
 		debug(e, true);
 		final long start = Skript.debug() ? System.nanoTime() : 0;
 		if (getNext() != null) {
-			delayed.add(e);
+			final ExecutionFrame frame = ExecutionFrame.get(e);
+			if (frame != null)
+				frame.setDelayed();
 			final Timespan d = duration.getSingle(e);
 			if (d == null)
 				return null;
@@ -79,17 +78,20 @@ public class Delay extends Effect {
 				public void run() {
 					if (Skript.debug())
 						Skript.info(getIndentation() + "... continuing after " + (System.nanoTime() - start) / 1000000000. + "s");
-					TriggerItem.walk(getNext(), e);
+					TriggerItem.walk(getNext(), e, frame);
 				}
 			}, d.getTicks());
 		}
 		return null;
 	}
 	
-	private final static Set<Event> delayed = Collections.newSetFromMap(new WeakHashMap<Event, Boolean>());
-	
+	/**
+	 * @param e
+	 * @return Whether the trigger that is currently executed for the given event has been delayed, i.e. whether the event has already passed.
+	 */
 	public final static boolean isDelayed(final Event e) {
-		return delayed.contains(e);
+		final ExecutionFrame f = ExecutionFrame.get(e);
+		return f != null && f.isDelayed();
 	}
 	
 	@Override
@@ -35,6 +35,7 @@ import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.AsyncSafe;
 import ch.njol.skript.lang.Effect;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
@@ -54,6 +55,7 @@ import ch.njol.util.Kleenean;
 		"	victim has the permission \"skript.god\"",
 		"	cancel the event"})
 @Since("1.0")
+@AsyncSafe
 public class EffCancelEvent extends Effect {
 	static {
 		Skript.registerEffect(EffCancelEvent.class, "cancel [the] event", "uncancel [the] event");
@@ -75,7 +77,7 @@ public class EffCancelEvent extends Effect {
 		if (ScriptLoader.isCurrentEvent(PlayerLoginEvent.class))
 			Skript.error("A connect event cannot be cancelled, but the player may be kicked ('kick player by reason of \"...\"')", ErrorQuality.SEMANTIC_ERROR);
 		else
-			Skript.error(Utils.A(ScriptLoader.currentEventName) + " event cannot be cancelled", ErrorQuality.SEMANTIC_ERROR);
+			Skript.error(Utils.A(ScriptLoader.getCurrentEventName()) + " event cannot be cancelled", ErrorQuality.SEMANTIC_ERROR);
 		return false;
 	}
 	
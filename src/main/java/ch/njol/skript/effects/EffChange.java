@@ -33,6 +33,7 @@ import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.AsyncSafe;
 import ch.njol.skript.lang.Effect;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.SkriptParser;
@@ -75,6 +76,7 @@ import ch.njol.util.Kleenean;
 		"reset walk speed of player",
 		"reset chunk at the targeted block"})
 @Since("1.0 (set, add, remove, delete), 2.0 (remove all)")
+@AsyncSafe // only if the changed expression is safe as well, which is checked like all other parts of a trigger
 public class EffChange extends Effect {
 	private static Patterns<ChangeMode> patterns = new Patterns<ChangeMode>(new Object[][] {
 			{"(add|give) %objects% to %~objects%", ChangeMode.ADD},
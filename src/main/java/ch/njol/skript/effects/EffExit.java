@@ -29,6 +29,7 @@ import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.AsyncSafe;
 import ch.njol.skript.lang.Conditional;
 import ch.njol.skript.lang.Effect;
 import ch.njol.skript.lang.Expression;
@@ -54,6 +55,7 @@ import ch.njol.util.Kleenean;
 		"		exit 2 sections",
 		"	set loop-block to water"})
 @Since("")
+@AsyncSafe
 public class EffExit extends Effect { // TODO [code style] warn user about code after a stop effect
 	static {
 		Skript.registerEffect(EffExit.class,
@@ -73,7 +75,7 @@ public class EffExit extends Effect { // TODO [code style] warn user about code
 	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parser) {
 		switch (matchedPattern) {
 			case 0:
-				breakLevels = ScriptLoader.currentSections.size() + 1;
+				breakLevels = ScriptLoader.getCurrentSections().size() + 1;
 				type = EVERYTHING;
 				break;
 			case 1:
@@ -102,9 +104,9 @@ public class EffExit extends Effect { // TODO [code style] warn user about code
 	
 	private final static int numLevels(final int type) {
 		if (type == EVERYTHING)
-			return ScriptLoader.currentSections.size();
+			return ScriptLoader.getCurrentSections().size();
 		int r = 0;
-		for (final TriggerSection s : ScriptLoader.currentSections) {
+		for (final TriggerSection s : ScriptLoader.getCurrentSections()) {
 			if (type == CONDITIONALS ? s instanceof Conditional : s instanceof Loop || s instanceof While)
 				r++;
 		}
@@ -118,6 +120,8 @@ public class EffExit extends Effect { // TODO [code style] warn user about code
 		for (int i = breakLevels; i > 0;) {
 			n = n.getParent();
 			assert n != null;
+			if (n instanceof Loop)
+				((Loop) n).exit(e);
 			if (type == EVERYTHING || type == CONDITIONALS && n instanceof Conditional || type == LOOPS && (n instanceof Loop || n instanceof While))
 				i--;
 		}
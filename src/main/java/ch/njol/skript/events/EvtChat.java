@@ -21,9 +21,10 @@
 
 package ch.njol.skript.events;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.bukkit.event.Event;
 import org.bukkit.event.EventException;
@@ -54,35 +55,48 @@ public class EvtChat extends SelfRegisteringSkriptEvent {
 				.since("1.4.1");
 	}
 	
-	final static Collection<Trigger> triggers = new ArrayList<Trigger>();
+	/**
+	 * Copy-on-write as the triggers are executed on the chat threads
+	 */
+	final static Collection<Trigger> triggers = new CopyOnWriteArrayList<Trigger>();
 	
 	private static boolean registeredExecutor = false;
 	private final static EventExecutor executor = new EventExecutor() {
 		
-		final void execute(final Event e) {
-			SkriptEventHandler.logEventStart(e);
-			for (final Trigger t : triggers) {
-				SkriptEventHandler.logTriggerStart(t);
-				t.execute(e);
-				SkriptEventHandler.logTriggerEnd(t);
+		final void execute(final Event e, final Trigger t) {
+			SkriptEventHandler.logTriggerStart(t);
+			t.execute(e);
+			SkriptEventHandler.logTriggerEnd(t);
+		}
+		
+		/**
+		 * Executes the remaining triggers in order. If <tt>async</tt> is true, the first trigger that is not {@link Trigger#isAsyncSafe() async safe} and all
+		 * triggers after it are executed on the main thread, while this thread waits for them to finish.
+		 */
+		final void execute(final Event e, final Iterator<Trigger> ts, final boolean async) {
+			while (ts.hasNext()) {
+				final Trigger t = ts.next();
+				if (async && !t.isAsyncSafe()) {
+					Task.callSyncBatched(new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							execute(e, t);
+							execute(e, ts, false);
+							return null;
+						}
+					});
+					return;
+				}
+				execute(e, t);
 			}
-			SkriptEventHandler.logEventEnd();
 		}
 		
 		@Override
 		public void execute(final Listener l, final Event e) throws EventException {
 			if (!triggers.isEmpty()) {
-				if (!Skript.isRunningMinecraft(1, 3) || !e.isAsynchronous()) {
-					execute(e);
-					return;
-				}
-				Task.callSync(new Callable<Void>() {
-					@Override
-					public Void call() throws Exception {
-						execute(e);
-						return null;
-					}
-				});
+				SkriptEventHandler.logEventStart(e);
+				execute(e, triggers.iterator(), Skript.isRunningMinecraft(1, 3) && e.isAsynchronous());
+				SkriptEventHandler.logEventEnd();
 			}
 		}
 	};
@@ -21,6 +21,8 @@
 
 package ch.njol.skript.expressions;
 
+import java.util.List;
+
 import org.bukkit.event.Event;
 
 import ch.njol.skript.Skript;
@@ -69,30 +71,31 @@ public class ExprArgument extends SimpleExpression<Object> {
 	
 	@Override
 	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parser) {
-		if (Commands.currentArguments == null) {
+		final List<Argument<?>> currentArguments = Commands.getCurrentArguments();
+		if (currentArguments == null) {
 			Skript.error("The expression 'argument' can only be used within a command", ErrorQuality.SEMANTIC_ERROR);
 			return false;
 		}
-		if (Commands.currentArguments.size() == 0) {
+		if (currentArguments.size() == 0) {
 			Skript.error("This command doesn't have any arguments", ErrorQuality.SEMANTIC_ERROR);
 			return false;
 		}
 		switch (matchedPattern) {
 			case 0:
-				arg = Commands.currentArguments.get(Commands.currentArguments.size() - 1);
+				arg = currentArguments.get(currentArguments.size() - 1);
 				break;
 			case 1:
 			case 2:
 				final int i = Utils.parseInt(parser.regexes.get(0).group(1));
-				if (i > Commands.currentArguments.size()) {
+				if (i > currentArguments.size()) {
 					Skript.error("The command doesn't have a " + StringUtils.fancyOrderNumber(i) + " argument", ErrorQuality.SEMANTIC_ERROR);
 					return false;
 				}
-				arg = Commands.currentArguments.get(i - 1);
+				arg = currentArguments.get(i - 1);
 				break;
 			case 3:
-				if (Commands.currentArguments.size() == 1) {
-					arg = Commands.currentArguments.get(0);
+				if (currentArguments.size() == 1) {
+					arg = currentArguments.get(0);
 				} else {
 					Skript.error("'argument(s)' cannot be used if the command has multiple arguments. Use 'argument 1', 'argument 2', etc. instead", ErrorQuality.SEMANTIC_ERROR);
 					return false;
@@ -103,7 +106,7 @@ public class ExprArgument extends SimpleExpression<Object> {
 				final ClassInfo<?> c = (ClassInfo<?>) exprs[0].getSingle(null);
 				final int num = parser.regexes.size() > 0 ? Utils.parseInt(parser.regexes.get(0).group()) : -1;
 				int j = 1;
-				for (final Argument<?> a : Commands.currentArguments) {
+				for (final Argument<?> a : currentArguments) {
 					if (!c.getC().isAssignableFrom(a.getType()))
 						continue;
 					if (arg != null) {
@@ -30,9 +30,12 @@ import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.AsyncSafe;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.util.ConstantExpression;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.util.Patterns;
 import ch.njol.util.Kleenean;
@@ -48,47 +51,63 @@ import ch.njol.util.Kleenean;
 		"	message \"Two useless numbers: %loop-num*2 - 5%, %2^loop-num - 1%\"",
 		"message \"You have %health of player * 2% half hearts of HP!\""})
 @Since("1.4.2")
-public class ExprArithmetic extends SimpleExpression<Number> {
+@AsyncSafe
+public class ExprArithmetic extends SimpleExpression<Number> implements NumberExpression {
 	
 	private static enum Operator {
 		PLUS('+') {
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Integer.valueOf(n1.intValue() + n2.intValue());
-				return Double.valueOf(n1.doubleValue() + n2.doubleValue());
+			public long calculate(final long n1, final long n2) {
+				return (int) n1 + (int) n2;
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return n1 + n2;
 			}
 		},
 		MINUS('-') {
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Integer.valueOf(n1.intValue() - n2.intValue());
-				return Double.valueOf(n1.doubleValue() - n2.doubleValue());
+			public long calculate(final long n1, final long n2) {
+				return (int) n1 - (int) n2;
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return n1 - n2;
 			}
 		},
 		MULT('*') {
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Integer.valueOf(n1.intValue() * n2.intValue());
-				return Double.valueOf(n1.doubleValue() * n2.doubleValue());
+			public long calculate(final long n1, final long n2) {
+				return (int) n1 * (int) n2;
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return n1 * n2;
 			}
 		},
 		DIV('/') {
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Integer.valueOf(n1.intValue() / n2.intValue());
-				return Double.valueOf(n1.doubleValue() / n2.doubleValue());
+			public long calculate(final long n1, final long n2) {
+				return (int) n1 / (int) n2;
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return n1 / n2;
 			}
 		},
 		EXP('^') {
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Integer.valueOf((int) Math.pow(n1.intValue(), n2.intValue()));
-				return Double.valueOf(Math.pow(n1.doubleValue(), n2.doubleValue()));
+			public long calculate(final long n1, final long n2) {
+				return (int) Math.pow((int) n1, (int) n2);
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return Math.pow(n1, n2);
 			}
 		};
 		
@@ -98,7 +117,12 @@ public class ExprArithmetic extends SimpleExpression<Number> {
 			this.sign = sign;
 		}
 		
-		public abstract Number calculate(Number n1, Number n2, boolean integer);
+		/**
+		 * Calculates the result for integers. The operands and the result are treated as ints, like Skript has always done.
+		 */
+		public abstract long calculate(long n1, long n2);
+		
+		public abstract double calculate(double n1, double n2);
 		
 		@Override
 		public String toString() {
@@ -163,15 +187,31 @@ public class ExprArithmetic extends SimpleExpression<Number> {
 		if (op == null)
 			return first.getArray(e);
 		final Number[] one = (Number[]) Array.newInstance(returnType, 1);
-		Number n1 = first.getSingle(e), n2 = second.getSingle(e);
-		if (n1 == null)
-			n1 = Integer.valueOf(0);
-		if (n2 == null)
-			n2 = Integer.valueOf(0);
-		one[0] = op.calculate(n1, n2, integer);
+		one[0] = integer ? Integer.valueOf((int) getLong(e, 0)) : Double.valueOf(getDouble(e, 0));
 		return one;
 	}
 	
+	/**
+	 * Missing operands are treated as 0, thus this never returns <tt>ifNone</tt> unless this expression is only a pair of brackets.
+	 */
+	@Override
+	public double getDouble(final Event e, final double ifNone) {
+		if (op == null)
+			return getDouble(first, e, ifNone);
+		if (integer)
+			return op.calculate(getLong(first, e, 0), getLong(second, e, 0));
+		return op.calculate(getDouble(first, e, 0), getDouble(second, e, 0));
+	}
+	
+	@Override
+	public long getLong(final Event e, final long ifNone) {
+		if (op == null)
+			return getLong(first, e, ifNone);
+		if (integer)
+			return op.calculate(getLong(first, e, 0), getLong(second, e, 0));
+		return (long) op.calculate(getDouble(first, e, 0), getDouble(second, e, 0));
+	}
+	
 	@Override
 	public Class<? extends Number> getReturnType() {
 		return returnType;
@@ -190,10 +230,20 @@ public class ExprArithmetic extends SimpleExpression<Number> {
 		return first.toString(e, debug) + " " + op + " " + second.toString(e, debug);
 	}
 	
+	/**
+	 * Calculates the result when the script is loaded if both operands are constant
+	 */
 	@Override
 	public Expression<? extends Number> simplify() {
 		if (op == null)
-			return first;
+			return first.simplify();
+		first = first.simplify();
+		second = second.simplify();
+		if (isConstant(first) && isConstant(second)) {
+			final Number n = getSingle(null);
+			if (n != null)
+				return new ConstantExpression<Number>(n);
+		}
 		return this;
 	}
 	
@@ -29,6 +29,7 @@ import org.bukkit.block.Block;
 import org.bukkit.event.Event;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.classes.Changer.ChangeMode;
 import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
@@ -38,6 +39,7 @@ import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.util.BlockSphereIterator;
+import ch.njol.skript.util.BlockUtils;
 import ch.njol.util.Kleenean;
 import ch.njol.util.coll.iterator.EmptyIterator;
 import ch.njol.util.coll.iterator.IteratorIterable;
@@ -88,6 +90,11 @@ public class ExprBlockSphere extends SimpleExpression<Block> {
 		return list.toArray(new Block[list.size()]);
 	}
 	
+	@Override
+	public void change(final Event e, final Object[] delta, final ChangeMode mode) {
+		BlockUtils.changeAll(iterator(e), delta, mode);
+	}
+	
 	@Override
 	public Class<? extends Block> getReturnType() {
 		return Block.class;
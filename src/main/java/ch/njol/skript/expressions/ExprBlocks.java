@@ -30,6 +30,7 @@ import org.bukkit.event.Event;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptConfig;
+import ch.njol.skript.classes.Changer.ChangeMode;
 import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
@@ -39,6 +40,7 @@ import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.util.BlockLineIterator;
+import ch.njol.skript.util.BlockUtils;
 import ch.njol.skript.util.Direction;
 import ch.njol.util.Kleenean;
 import ch.njol.util.coll.iterator.ArrayIterator;
@@ -115,6 +117,11 @@ public class ExprBlocks extends SimpleExpression<Block> {
 		return r.toArray(new Block[r.size()]);
 	}
 	
+	@Override
+	public void change(final Event e, final Object[] delta, final ChangeMode mode) {
+		BlockUtils.changeAll(iterator(e), delta, mode);
+	}
+	
 	@Override
 	public Iterator<Block> iterator(final Event e) {
 		try {
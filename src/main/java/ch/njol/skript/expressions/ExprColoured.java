@@ -31,6 +31,7 @@ import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.expressions.base.PropertyExpression;
+import ch.njol.skript.lang.AsyncSafe;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
@@ -49,6 +50,7 @@ import ch.njol.util.Kleenean;
 		"	trigger:",
 		"		set display name of the player-argument to uncoloured display name of the player-argument"})
 @Since("2.0")
+@AsyncSafe
 public class ExprColoured extends PropertyExpression<String, String> {
 	static {
 		Skript.registerExpression(ExprColoured.class, String.class, ExpressionType.NORMAL,
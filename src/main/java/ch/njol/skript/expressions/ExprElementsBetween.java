@@ -0,0 +1,109 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.expressions;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+import org.bukkit.event.Event;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.doc.Description;
+import ch.njol.skript.doc.Examples;
+import ch.njol.skript.doc.Name;
+import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.AsyncSafe;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Variable;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.util.Kleenean;
+import ch.njol.util.Pair;
+
+/**
+ * @author Peter Güttinger
+ */
+@SuppressWarnings("serial")
+@Name("Elements with Values Between")
+@Description({"The elements of a list variable whose numerical values lie between two numbers (inclusive), or their indices, ordered by their values.",
+		"Like <a href='#ExprTopElements'>top elements</a> this uses an index of the list's values and thus doesn't have to look at the whole list."})
+@Examples({"loop indices of {money::*} with values between 1000 and 10000:",
+		"	add loop-value to {_rich::*}"})
+@Since("2.1")
+@AsyncSafe
+public class ExprElementsBetween extends SimpleExpression<Object> {
+	
+	static {
+		Skript.registerExpression(ExprElementsBetween.class, Object.class, ExpressionType.PROPERTY,
+				"[all] [the] (value|element)s (of|in) %objects% with value[s] (between|from) %number% (and|to) %number%",
+				"[all] [the] ind(ices|exes) (of|in) %objects% with value[s] (between|from) %number% (and|to) %number%");
+	}
+	
+	private boolean indices;
+	
+	private Variable<?> list;
+	private Expression<Number> min, max;
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+		if (!(exprs[0] instanceof Variable) || exprs[0].isSingle()) {
+			Skript.error("Only the elements of list variables can be found by their values, e.g. 'indices of {scores::*} with values between 10 and 20'");
+			return false;
+		}
+		list = (Variable<?>) exprs[0];
+		min = (Expression<Number>) exprs[1];
+		max = (Expression<Number>) exprs[2];
+		indices = matchedPattern == 1;
+		return true;
+	}
+	
+	@Override
+	protected Object[] get(final Event e) {
+		final Number n1 = min.getSingle(e), n2 = max.getSingle(e);
+		if (n1 == null || n2 == null)
+			return (Object[]) Array.newInstance(getReturnType(), 0);
+		final double d1 = n1.doubleValue(), d2 = n2.doubleValue();
+		final List<Pair<String, Object>> elements = list.getElementsByValue(e, Math.min(d1, d2), Math.max(d1, d2), -1, false);
+		final Object[] r = (Object[]) Array.newInstance(getReturnType(), elements.size());
+		for (int i = 0; i < r.length; i++)
+			r[i] = indices ? elements.get(i).getKey() : elements.get(i).getValue();
+		return r;
+	}
+	
+	@Override
+	public boolean isSingle() {
+		return false;
+	}
+	
+	@Override
+	public Class<? extends Object> getReturnType() {
+		return indices ? String.class : Number.class;
+	}
+	
+	@Override
+	public String toString(final Event e, final boolean debug) {
+		return (indices ? "the indices" : "the values") + " of " + list.toString(e, debug) + " with values between " + min.toString(e, debug) + " and " + max.toString(e, debug);
+	}
+	
+}
@@ -30,7 +30,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
-import org.bukkit.entity.ExperienceOrb;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 
@@ -48,10 +47,10 @@ import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.log.BlockingLogHandler;
 import ch.njol.skript.log.LogHandler;
 import ch.njol.skript.log.SkriptLogger;
-import ch.njol.util.Checker;
+import ch.njol.skript.util.AABB;
+import ch.njol.skript.util.EntityLookup;
 import ch.njol.util.Kleenean;
 import ch.njol.util.StringUtils;
-import ch.njol.util.coll.iterator.CheckedIterator;
 import ch.njol.util.coll.iterator.NonNullIterator;
 
 /**
@@ -59,19 +58,22 @@ import ch.njol.util.coll.iterator.NonNullIterator;
  */
 @SuppressWarnings("serial")
 @Name("Entities")
-@Description("all entities in all world, in a specific world or in a radius around a certain location, e.g. 'all players', 'all creepers in the player's world', or 'players in radius 100 of the player'.")
+@Description("all entities in all world, in a specific world, in a radius around a certain location or in the box between two locations, e.g. 'all players', 'all creepers in the player's world', 'players in radius 100 of the player', or 'zombies between {arena.corner1} and {arena.corner2}'.")
 @Examples({"kill all creepers in the player's world",
 		"send \"Psst!\" to all players witin 100 meters of the player",
 		"give a diamond to all ops",
-		"heal all tamed wolves in radius 2000 around {town center}"})
-@Since("1.2.1")
+		"heal all tamed wolves in radius 2000 around {town center}",
+		"kill all zombies between {arena.corner1} and {arena.corner2}"})
+@Since("1.2.1, 2.1 (between two locations)")
 public class ExprEntities extends SimpleExpression<Entity> {
 	static {
 		Skript.registerExpression(ExprEntities.class, Entity.class, ExpressionType.PATTERN_MATCHES_EVERYTHING,
 				"[all] %*entitydatas% [(in|of) [world[s]] %-worlds%]",
 				"[all] entities of type[s] %entitydatas% [(in|of) [world[s]] %-worlds%]",
 				"[all] %*entitydatas% (within|[with]in radius) %number% [(block[s]|meter[s])] (of|around) %location%",
-				"[all] entities of type[s] %entitydatas% in radius %number% (of|around) %location%");
+				"[all] entities of type[s] %entitydatas% in radius %number% (of|around) %location%",
+				"[all] %*entitydatas% between %location% and %location%",
+				"[all] entities of type[s] %entitydatas% between %location% and %location%");
 	}
 	
 	Expression<? extends EntityData<?>> types;
@@ -82,6 +84,8 @@ public class ExprEntities extends SimpleExpression<Entity> {
 	private Expression<Location> center;
 	private Expression<? extends Entity> centerEntity;
 	
+	private Expression<Location> corner1, corner2;
+	
 	Class<? extends Entity> returnType = Entity.class;
 	
 	private int matchedPattern;
@@ -99,6 +103,9 @@ public class ExprEntities extends SimpleExpression<Entity> {
 		}
 		if (matchedPattern < 2) {
 			worlds = (Expression<World>) exprs[exprs.length - 1];
+		} else if (matchedPattern >= 4) {
+			corner1 = (Expression<Location>) exprs[exprs.length - 2];
+			corner2 = (Expression<Location>) exprs[exprs.length - 1];
 		} else {
 			radius = (Expression<Number>) exprs[exprs.length - 2];
 			center = (Expression<Location>) exprs[exprs.length - 1];
@@ -162,7 +169,12 @@ public class ExprEntities extends SimpleExpression<Entity> {
 	
 	@Override
 	public Iterator<? extends Entity> iterator(final Event e) {
-		if (matchedPattern >= 2) {
+		if (matchedPattern >= 4) {
+			final Location l1 = corner1.getSingle(e), l2 = corner2.getSingle(e);
+			if (l1 == null || l2 == null || l1.getWorld() != l2.getWorld())
+				return null;
+			return EntityLookup.getEntities(new AABB(l1, l2), types.getAll(e)).iterator();
+		} else if (matchedPattern >= 2) {
 			final Entity en;
 			final Location l;
 			if (centerEntity != null) {
@@ -171,32 +183,18 @@ public class ExprEntities extends SimpleExpression<Entity> {
 					return null;
 				l = en.getLocation();
 			} else {
+				en = null;
 				l = center.getSingle(e);
 				if (l == null)
 					return null;
-				en = l.getWorld().spawn(l, ExperienceOrb.class);
 			}
 			final Number n = radius.getSingle(e);
 			if (n == null)
 				return null;
-			final double d = n.doubleValue();
-			final List<Entity> es = en.getNearbyEntities(d, d, d);
-			if (centerEntity == null)
-				en.remove();
-			final double radiusSquared = d * d * Skript.EPSILON_MULT;
-			final EntityData<?>[] ts = types.getAll(e);
-			return new CheckedIterator<Entity>(es.iterator(), new Checker<Entity>() {
-				@Override
-				public boolean check(final Entity e) {
-					if (e.getLocation().distanceSquared(l) > radiusSquared)
-						return false;
-					for (final EntityData<?> t : ts) {
-						if (t.isInstance(e))
-							return true;
-					}
-					return false;
-				}
-			});
+			final List<Entity> es = EntityLookup.getEntities(l, n.doubleValue(), types.getAll(e));
+			if (en != null)
+				es.remove(en); // like Entity.getNearbyEntities
+			return es.iterator();
 		} else {
 			if (worlds == null && returnType == Player.class)
 				return super.iterator(e);
@@ -233,7 +231,8 @@ public class ExprEntities extends SimpleExpression<Entity> {
 	
 	@Override
 	public String toString(final Event e, final boolean debug) {
-		return "all entities of types " + types.toString(e, debug) + (worlds != null ? " in " + worlds.toString(e, debug) : radius != null ? " in radius " + radius.toString(e, debug) + " around " + center.toString(e, debug) : "");
+		return "all entities of types " + types.toString(e, debug) + (worlds != null ? " in " + worlds.toString(e, debug) : radius != null ? " in radius " + radius.toString(e, debug) + " around " + center.toString(e, debug)
+				: corner1 != null ? " between " + corner1.toString(e, debug) + " and " + corner2.toString(e, debug) : "");
 	}
 	
 }
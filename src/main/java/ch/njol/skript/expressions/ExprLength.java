@@ -26,6 +26,7 @@ import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.expressions.base.SimplePropertyExpression;
+import ch.njol.skript.lang.AsyncSafe;
 
 /**
  * @author Peter Güttinger
@@ -35,6 +36,7 @@ import ch.njol.skript.expressions.base.SimplePropertyExpression;
 @Description("The length of a text, in number of characters.")
 @Examples("set {_l} to length of the string argument")
 @Since("2.1")
+@AsyncSafe
 public class ExprLength extends SimplePropertyExpression<String, Integer> {
 	static {
 		register(ExprLength.class, Integer.class, "length", "strings");
@@ -35,6 +35,7 @@ import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.AsyncSafe;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.Loop;
@@ -65,6 +66,7 @@ import ch.njol.util.Kleenean;
 		"	loop blocks from the loop-block to the block 10 north of the loop-block:",
 		"		set loop-block-2 to any wool"})
 @Since("1.0")
+@AsyncSafe
 public class ExprLoopValue extends SimpleExpression<Object> {
 	static {
 		Skript.registerExpression(ExprLoopValue.class, Object.class, ExpressionType.SIMPLE, "[the] loop-<.+>");
@@ -91,7 +93,7 @@ public class ExprLoopValue extends SimpleExpression<Object> {
 		}
 		final Class<?> c = Classes.getClassFromUserInput(s);
 		int j = 1;
-		for (final Loop l : ScriptLoader.currentLoops) {
+		for (final Loop l : ScriptLoader.getCurrentLoops()) {
 			if ((c != null && c.isAssignableFrom(l.getLoopedExpression().getReturnType())) || l.getLoopedExpression().isLoopOf(s)) {
 				if (j < i) {
 					j++;
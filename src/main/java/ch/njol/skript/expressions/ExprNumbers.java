@@ -71,11 +71,11 @@ public class ExprNumbers extends SimpleExpression<Number> {
 	
 	@Override
 	protected Number[] get(final Event e) {
-		final Number s = start.getSingle(e), f = end.getSingle(e);
-		if (s == null || f == null || s.doubleValue() > f.doubleValue())
+		final double s = getDouble(start, e, Double.NaN), f = getDouble(end, e, Double.NaN);
+		if (Double.isNaN(s) || Double.isNaN(f) || s > f)
 			return null;
-		final Number[] array = integer ? new Integer[(int) (Math.floor(f.doubleValue()) - Math.ceil(s.doubleValue()) + 1)] : new Double[(int) Math.floor(f.doubleValue() - s.doubleValue() + 1)];
-		final double low = integer ? Math.ceil(s.doubleValue()) : s.doubleValue();
+		final Number[] array = integer ? new Integer[(int) (Math.floor(f) - Math.ceil(s) + 1)] : new Double[(int) Math.floor(f - s + 1)];
+		final double low = integer ? Math.ceil(s) : s;
 		for (int i = 0; i < array.length; i++) {
 			if (integer)
 				array[i] = Integer.valueOf((int) low + i);
@@ -87,11 +87,11 @@ public class ExprNumbers extends SimpleExpression<Number> {
 	
 	@Override
 	public Iterator<Number> iterator(final Event e) {
-		final Number s = start.getSingle(e), f = end.getSingle(e);
-		if (s == null || f == null || s.doubleValue() > f.doubleValue())
+		final double s = getDouble(start, e, Double.NaN), f = getDouble(end, e, Double.NaN);
+		if (Double.isNaN(s) || Double.isNaN(f) || s > f)
 			return null;
 		return new Iterator<Number>() {
-			double i = integer ? Math.ceil(s.doubleValue()) : s.doubleValue(), max = integer ? Math.floor(f.doubleValue()) : f.doubleValue();
+			double i = integer ? Math.ceil(s) : s, max = integer ? Math.floor(f) : f;
 			
 			@Override
 			public boolean hasNext() {
@@ -32,6 +32,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -46,7 +47,7 @@ import ch.njol.util.Kleenean;
 @Examples({"set the player's health to a random number between 5 and 10",
 		"send \"You rolled a %random integer from 1 to 6%!\" to the player"})
 @Since("1.4")
-public class ExprRandomNumber extends SimpleExpression<Number> {
+public class ExprRandomNumber extends SimpleExpression<Number> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprRandomNumber.class, Number.class, ExpressionType.NORMAL,
 				"[a] random (1¦integer|2¦number) (from|between) %number% (to|and) %number%");
@@ -69,17 +70,30 @@ public class ExprRandomNumber extends SimpleExpression<Number> {
 	
 	@Override
 	protected Number[] get(final Event e) {
-		final Number l = lower.getSingle(e);
-		final Number u = upper.getSingle(e);
-		if (u == null || l == null)
+		final double r = getDouble(e, Double.NaN);
+		if (Double.isNaN(r))
 			return null;
-		final double ll = Math.min(l.doubleValue(), u.doubleValue());
-		final double uu = Math.max(l.doubleValue(), u.doubleValue());
-		if (integer) {
-			return new Integer[] {(int) (Math.ceil(ll) + rand.nextInt((int) (Math.floor(uu) - Math.ceil(ll) + 1)))};
-		} else {
-			return new Double[] {ll + rand.nextDouble() * (uu - ll)};
-		}
+		if (integer)
+			return new Integer[] {(int) r};
+		return new Double[] {r};
+	}
+	
+	@Override
+	public double getDouble(final Event e, final double ifNone) {
+		final double l = getDouble(lower, e, Double.NaN), u = getDouble(upper, e, Double.NaN);
+		if (Double.isNaN(l) || Double.isNaN(u))
+			return ifNone;
+		final double ll = Math.min(l, u);
+		final double uu = Math.max(l, u);
+		if (integer)
+			return (int) (Math.ceil(ll) + rand.nextInt((int) (Math.floor(uu) - Math.ceil(ll) + 1)));
+		return ll + rand.nextDouble() * (uu - ll);
+	}
+	
+	@Override
+	public long getLong(final Event e, final long ifNone) {
+		final double r = getDouble(e, Double.NaN);
+		return Double.isNaN(r) ? ifNone : (long) r;
 	}
 	
 	@Override
@@ -32,7 +32,9 @@ import ch.njol.skript.doc.Since;
 import ch.njol.skript.expressions.base.PropertyExpression;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.util.ConstantExpression;
 import ch.njol.util.Kleenean;
 
 /**
@@ -46,7 +48,7 @@ import ch.njol.util.Kleenean;
 		"set {_x} to floor({_y}) - ceil({_x})",
 		"add rounded down argument to the player's health"})
 @Since("2.0")
-public class ExprRound extends PropertyExpression<Number, Long> {
+public class ExprRound extends PropertyExpression<Number, Long> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprRound.class, Long.class, ExpressionType.PROPERTY,
 				"floor\\(%number%\\)", "(a|the|) round[ed] down %number%",
@@ -73,11 +75,41 @@ public class ExprRound extends PropertyExpression<Number, Long> {
 					return n.longValue();
 				else if (n instanceof Long)
 					return (Long) n;
-				return (long) (action == -1 ? Math.floor(n.doubleValue()) : action == 0 ? Math.round(n.doubleValue()) : Math.ceil(n.doubleValue()));
+				return round(n.doubleValue());
 			}
 		});
 	}
 	
+	final long round(final double d) {
+		return (long) (action == -1 ? Math.floor(d) : action == 0 ? Math.round(d) : Math.ceil(d));
+	}
+	
+	@Override
+	public long getLong(final Event e, final long ifNone) {
+		final Class<?> c = getExpr().getReturnType();
+		if (c == Integer.class || c == Long.class)
+			return getLong(getExpr(), e, ifNone);
+		final double d = getDouble(getExpr(), e, Double.NaN);
+		return Double.isNaN(d) ? ifNone : round(d);
+	}
+	
+	@Override
+	public double getDouble(final Event e, final double ifNone) {
+		final double d = getDouble(getExpr(), e, Double.NaN);
+		return Double.isNaN(d) ? ifNone : round(d);
+	}
+	
+	@Override
+	public Expression<? extends Long> simplify() {
+		super.simplify();
+		if (isConstant(getExpr())) {
+			final Long l = getSingle(null);
+			if (l != null)
+				return new ConstantExpression<Long>(l);
+		}
+		return this;
+	}
+	
 	@Override
 	public Class<? extends Long> getReturnType() {
 		return Long.class;
@@ -55,7 +55,7 @@ public class ExprScript extends SimpleExpression<String> {
 	
 	@Override
 	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
-		name = ScriptLoader.currentScript.getFileName();
+		name = ScriptLoader.getCurrentScript().getFileName();
 		if (name.contains("."))
 			name = name.substring(0, name.lastIndexOf('.'));
 		return name != null;
@@ -0,0 +1,111 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.expressions;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+import org.bukkit.event.Event;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.doc.Description;
+import ch.njol.skript.doc.Examples;
+import ch.njol.skript.doc.Name;
+import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.AsyncSafe;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Variable;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.util.Kleenean;
+import ch.njol.util.Pair;
+
+/**
+ * @author Peter Güttinger
+ */
+@SuppressWarnings("serial")
+@Name("Top Elements")
+@Description({"The elements of a list variable with the highest or lowest numerical values, or their indices. Elements that are not numbers are ignored.",
+		"The values of the list are indexed when this is used the first time, thus this is much faster than sorting the list in the script, even for huge lists."})
+@Examples({"set {_best::*} to the top 10 indices of {kills::*}",
+		"loop {_best::*}:",
+		"	message \"%loop-value%: %{kills::%loop-value%}%\"",
+		"message \"the lowest score is %bottom 1 value of {scores::*}%\""})
+@Since("2.1")
+@AsyncSafe
+public class ExprTopElements extends SimpleExpression<Object> {
+	
+	static {
+		Skript.registerExpression(ExprTopElements.class, Object.class, ExpressionType.PROPERTY,
+				"[the] (top|1¦bottom) %number% [(value|element)[s]] (of|in) %objects%",
+				"[the] (top|1¦bottom) %number% ind(ex|ices|exes) (of|in) %objects%");
+	}
+	
+	private boolean bottom;
+	private boolean indices;
+	
+	private Expression<Number> amount;
+	private Variable<?> list;
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+		if (!(exprs[1] instanceof Variable) || exprs[1].isSingle()) {
+			Skript.error("Only the elements of list variables can be ordered by their values, e.g. 'top 10 indices of {scores::*}'");
+			return false;
+		}
+		amount = (Expression<Number>) exprs[0];
+		list = (Variable<?>) exprs[1];
+		bottom = parseResult.mark == 1;
+		indices = matchedPattern == 1;
+		return true;
+	}
+	
+	@Override
+	protected Object[] get(final Event e) {
+		final Number n = amount.getSingle(e);
+		if (n == null || n.intValue() <= 0)
+			return (Object[]) Array.newInstance(getReturnType(), 0);
+		final List<Pair<String, Object>> elements = list.getElementsByValue(e, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, n.intValue(), !bottom);
+		final Object[] r = (Object[]) Array.newInstance(getReturnType(), elements.size());
+		for (int i = 0; i < r.length; i++)
+			r[i] = indices ? elements.get(i).getKey() : elements.get(i).getValue();
+		return r;
+	}
+	
+	@Override
+	public boolean isSingle() {
+		return false;
+	}
+	
+	@Override
+	public Class<? extends Object> getReturnType() {
+		return indices ? String.class : Number.class;
+	}
+	
+	@Override
+	public String toString(final Event e, final boolean debug) {
+		return "the " + (bottom ? "bottom " : "top ") + amount.toString(e, debug) + (indices ? " indices" : " values") + " of " + list.toString(e, debug);
+	}
+	
+}
@@ -22,9 +22,9 @@
 package ch.njol.skript.expressions.base;
 
 import java.lang.reflect.Array;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.event.Event;
 
@@ -66,7 +66,23 @@ public class EventValueExpression<T> extends SimpleExpression<T> implements Defa
 	
 	private final Class<? extends T> c;
 	private SerializableChanger<? super T> changer;
-	private final Map<Class<? extends Event>, SerializableGetter<? extends T, ?>> getters = new HashMap<Class<? extends Event>, SerializableGetter<? extends T, ?>>();
+	/**
+	 * The getters for the events this expression is used in. Default expressions are shared by all scripts and can thus be initialised by multiple threads.
+	 */
+	private final Map<Class<? extends Event>, SerializableGetter<? extends T, ?>> getters = new ConcurrentHashMap<Class<? extends Event>, SerializableGetter<? extends T, ?>>();
+	/**
+	 * The getters for the actual classes of the events this expression was evaluated for, which don't have to check the event's class again
+	 */
+	private final Map<Class<? extends Event>, SerializableGetter<? extends T, ?>> exactGetters = new ConcurrentHashMap<Class<? extends Event>, SerializableGetter<? extends T, ?>>();
+	/**
+	 * Used for events that don't have this expression's value
+	 */
+	private final static SerializableGetter<?, Event> none = new SerializableGetter<Object, Event>() {
+		@Override
+		public Object get(final Event e) {
+			return null;
+		}
+	};
 	
 	public EventValueExpression(final Class<? extends T> c) {
 		this(c, null);
@@ -89,21 +105,27 @@ public class EventValueExpression<T> extends SimpleExpression<T> implements Defa
 	}
 	
 	private <E extends Event> T getValue(final E e) {
-		if (getters.containsKey(e.getClass())) {
-			final Getter<? extends T, ? super E> g = (Getter<? extends T, ? super E>) getters.get(e.getClass());
-			return g == null ? null : g.get(e);
-		}
-		
-		for (final Entry<Class<? extends Event>, SerializableGetter<? extends T, ?>> p : getters.entrySet()) {
-			if (p.getKey().isAssignableFrom(e.getClass())) {
-				getters.put(e.getClass(), p.getValue());
-				return p.getValue() == null ? null : ((Getter<? extends T, ? super E>) p.getValue()).get(e);
+		final Class<E> ec = (Class<E>) e.getClass();
+		SerializableGetter<? extends T, ?> g = exactGetters.get(ec);
+		if (g == null) {
+			g = (SerializableGetter<? extends T, ?>) none;
+			SerializableGetter<? extends T, ?> getter = getters.get(ec);
+			if (getter == null) {
+				for (final Entry<Class<? extends Event>, SerializableGetter<? extends T, ?>> p : getters.entrySet()) {
+					if (p.getKey().isAssignableFrom(ec)) {
+						getter = p.getValue();
+						break;
+					}
+				}
+			}
+			if (getter != null) {
+				final SerializableGetter<? extends T, ? super E> exact = EventValues.getExactGetter(getter, ec);
+				if (exact != null)
+					g = exact;
 			}
+			exactGetters.put(ec, g);
 		}
-		
-		getters.put(e.getClass(), null);
-		
-		return null;
+		return ((Getter<? extends T, ? super E>) g).get(e);
 	}
 	
 	@Override
@@ -126,11 +148,12 @@ public class EventValueExpression<T> extends SimpleExpression<T> implements Defa
 				final SerializableGetter<? extends T, ?> getter = EventValues.getEventValueGetter(e, c, getTime());
 				if (getter != null) {
 					getters.put(e, getter);
+					exactGetters.clear();
 					hasValue = true;
 				}
 			}
 			if (!hasValue) {
-				log.printError("There's no " + Classes.getSuperClassInfo(c).getName() + " in " + Utils.a(ScriptLoader.currentEventName) + " event");
+				log.printError("There's no " + Classes.getSuperClassInfo(c).getName() + " in " + Utils.a(ScriptLoader.getCurrentEventName()) + " event");
 				return false;
 			}
 			log.printLog();
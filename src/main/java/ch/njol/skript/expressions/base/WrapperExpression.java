@@ -132,7 +132,8 @@ public abstract class WrapperExpression<T> extends SimpleExpression<T> {
 	
 	@Override
 	public Expression<? extends T> simplify() {
-		return expr;
+		expr = expr.simplify();
+		return this;
 	}
 	
 }
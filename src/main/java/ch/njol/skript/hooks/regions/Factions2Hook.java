@@ -192,6 +192,14 @@ public class Factions2Hook extends RegionsPlugin<Factions> {
 		return Arrays.asList(new FactionsRegion(BoardColls.get().getFactionAt(PS.valueOf(l))));
 	}
 	
+	/**
+	 * Factions claims whole chunks
+	 */
+	@Override
+	public AABB getUnchangedArea_i(final Location l) {
+		return new AABB(l.getChunk());
+	}
+	
 	@Override
 	public Region getRegion_i(final World world, final String name) {
 		final Faction f = FactionColls.get().getForUniverse(world.getName()).getByName(name);
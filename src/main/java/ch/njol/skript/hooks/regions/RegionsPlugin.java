@@ -33,6 +33,7 @@ import org.bukkit.plugin.Plugin;
 
 import ch.njol.skript.hooks.Hook;
 import ch.njol.skript.hooks.regions.classes.Region;
+import ch.njol.skript.util.AABB;
 import ch.njol.skript.variables.Variables;
 import ch.njol.yggdrasil.ClassResolver;
 
@@ -90,6 +91,32 @@ public abstract class RegionsPlugin<P extends Plugin> extends Hook<P> {
 		return r;
 	}
 	
+	/**
+	 * Returns an area around the given location in which {@link #getRegionsAt_i(Location)} returns the same regions as at the location, e.g. the location's
+	 * chunk if all regions of this plugin consist of whole chunks.
+	 * 
+	 * @param l
+	 * @return The area, or null if this plugin cannot determine such an area cheaply
+	 */
+	public AABB getUnchangedArea_i(final Location l) {
+		return null;
+	}
+	
+	/**
+	 * @param l
+	 * @return The areas of all plugins as returned by {@link #getUnchangedArea_i(Location)}, or null if any plugin cannot determine its area. The regions at
+	 *         a location are the same as at the given location if the location is inside all these areas.
+	 */
+	public final static AABB[] getUnchangedAreas(final Location l) {
+		final AABB[] r = new AABB[plugins.size()];
+		int i = 0;
+		for (final RegionsPlugin<?> pl : plugins) {
+			if ((r[i++] = pl.getUnchangedArea_i(l)) == null)
+				return null;
+		}
+		return r;
+	}
+	
 	public abstract Region getRegion_i(World world, String name);
 	
 	public final static Region getRegion(final World world, final String name) {
@@ -23,21 +23,13 @@ package ch.njol.skript.hooks.regions.events;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Set;
 
-import org.bukkit.Bukkit;
-import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
-import org.bukkit.event.EventException;
-import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
-import org.bukkit.plugin.EventExecutor;
 
 import ch.njol.skript.Skript;
-import ch.njol.skript.SkriptConfig;
 import ch.njol.skript.classes.SerializableGetter;
-import ch.njol.skript.hooks.regions.RegionsPlugin;
 import ch.njol.skript.hooks.regions.classes.Region;
 import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
@@ -95,7 +87,7 @@ public class EvtRegionBorder extends SelfRegisteringSkriptEvent {
 	@Override
 	public void register(final Trigger t) {
 		triggers.add(t);
-		register();
+		RegionTracker.register();
 	}
 	
 	@Override
@@ -133,32 +125,4 @@ public class EvtRegionBorder extends SelfRegisteringSkriptEvent {
 		me.setCancelled(e.isCancelled());
 	}
 	
-	private final static EventExecutor ee = new EventExecutor() {
-		@Override
-		public void execute(final Listener listener, final Event event) throws EventException {
-			final PlayerMoveEvent e = (PlayerMoveEvent) event; // even WorldGuard doesn't have events, and this way all region plugins are supported for sure.
-			final Location to = e.getTo(), from = e.getFrom();
-			if (to.equals(from))
-				return;
-			final Set<? extends Region> oldRs = RegionsPlugin.getRegionsAt(from), newRs = RegionsPlugin.getRegionsAt(to);
-			for (final Region r : oldRs) {
-				if (!newRs.contains(r))
-					callEvent(r, e, false);
-			}
-			for (final Region r : newRs) {
-				if (!oldRs.contains(r))
-					callEvent(r, e, true);
-			}
-		}
-	};
-	
-	private static boolean registered = false;
-	
-	private final static void register() {
-		if (registered)
-			return;
-		Bukkit.getPluginManager().registerEvent(PlayerMoveEvent.class, new Listener() {}, SkriptConfig.defaultEventPriority.value(), ee, Skript.getInstance(), true);
-		registered = true;
-	}
-	
 }
@@ -0,0 +1,144 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.hooks.regions.events;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.EventExecutor;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptConfig;
+import ch.njol.skript.hooks.regions.RegionsPlugin;
+import ch.njol.skript.hooks.regions.classes.Region;
+import ch.njol.skript.util.AABB;
+
+/**
+ * Keeps track of the regions each player is in to call {@link RegionBorderEvent}s. The regions are only looked up again when a player moves into another
+ * block, and not at all while the player stays inside the areas returned by {@link RegionsPlugin#getUnchangedAreas(Location)}.
+ * <p>
+ * A player's regions are forgotten when the player teleports, respawns, changes worlds or quits, i.e. like before no events are called for teleports.
+ * <p>
+ * Only used from the main thread.
+ * 
+ * @author Peter Güttinger
+ */
+final class RegionTracker {
+	private RegionTracker() {}
+	
+	private final static class PlayerRegions {
+		final World world;
+		int x, y, z;
+		final Set<? extends Region> regions;
+		/**
+		 * null if the regions have to be looked up whenever the player moves into another block
+		 */
+		final AABB[] unchanged;
+		
+		PlayerRegions(final Location l, final Set<? extends Region> regions) {
+			world = l.getWorld();
+			x = l.getBlockX();
+			y = l.getBlockY();
+			z = l.getBlockZ();
+			this.regions = regions;
+			unchanged = RegionsPlugin.getUnchangedAreas(l);
+		}
+		
+		boolean isSameBlock(final Location l) {
+			return l.getBlockX() == x && l.getBlockY() == y && l.getBlockZ() == z && l.getWorld() == world;
+		}
+		
+		boolean isUnchanged(final Location l) {
+			if (unchanged == null)
+				return false;
+			for (final AABB a : unchanged) {
+				if (!a.contains(l))
+					return false;
+			}
+			x = l.getBlockX();
+			y = l.getBlockY();
+			z = l.getBlockZ();
+			return true;
+		}
+	}
+	
+	private final static Map<Player, PlayerRegions> players = new HashMap<Player, PlayerRegions>();
+	
+	private final static EventExecutor moveExecutor = new EventExecutor() {
+		@Override
+		public void execute(final Listener listener, final Event event) throws EventException {
+			final PlayerMoveEvent e = (PlayerMoveEvent) event; // even WorldGuard doesn't have events, and this way all region plugins are supported for sure.
+			final Location to = e.getTo();
+			final PlayerRegions current = players.get(e.getPlayer());
+			if (current != null && (current.isSameBlock(to) || current.isUnchanged(to)))
+				return;
+			final Set<? extends Region> oldRs = current == null ? RegionsPlugin.getRegionsAt(e.getFrom()) : current.regions, newRs = RegionsPlugin.getRegionsAt(to);
+			for (final Region r : oldRs) {
+				if (!newRs.contains(r))
+					EvtRegionBorder.callEvent(r, e, false);
+			}
+			for (final Region r : newRs) {
+				if (!oldRs.contains(r))
+					EvtRegionBorder.callEvent(r, e, true);
+			}
+			if (!e.isCancelled()) // otherwise the player stays where the current regions have been looked up
+				players.put(e.getPlayer(), new PlayerRegions(to, newRs));
+		}
+	};
+	
+	private final static EventExecutor invalidateExecutor = new EventExecutor() {
+		@Override
+		public void execute(final Listener listener, final Event event) throws EventException {
+			players.remove(((PlayerEvent) event).getPlayer());
+		}
+	};
+	
+	private static boolean registered = false;
+	
+	static void register() {
+		if (registered)
+			return;
+		final Listener l = new Listener() {};
+		Bukkit.getPluginManager().registerEvent(PlayerMoveEvent.class, l, SkriptConfig.defaultEventPriority.value(), moveExecutor, Skript.getInstance(), true);
+		Bukkit.getPluginManager().registerEvent(PlayerTeleportEvent.class, l, EventPriority.MONITOR, invalidateExecutor, Skript.getInstance(), true);
+		Bukkit.getPluginManager().registerEvent(PlayerChangedWorldEvent.class, l, EventPriority.MONITOR, invalidateExecutor, Skript.getInstance(), false);
+		Bukkit.getPluginManager().registerEvent(PlayerRespawnEvent.class, l, EventPriority.MONITOR, invalidateExecutor, Skript.getInstance(), false);
+		Bukkit.getPluginManager().registerEvent(PlayerQuitEvent.class, l, EventPriority.MONITOR, invalidateExecutor, Skript.getInstance(), false);
+		registered = true;
+	}
+	
+}
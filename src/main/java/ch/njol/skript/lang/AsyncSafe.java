@@ -0,0 +1,44 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.lang;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a syntax element that can be executed on any thread, i.e. one which neither accesses the world nor any other state that may only be used from
+ * Bukkit's main thread. This applies to all uses of the element, including changing it if it's an expression.
+ * <p>
+ * Triggers of asynchronous events which only consist of such elements are executed on the event's thread directly, while all other triggers have to be
+ * executed on the main thread. An element is only considered safe if all expressions it contains are safe as well, see {@link Trigger#isAsyncSafe()}.
+ * 
+ * @author Peter Güttinger
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AsyncSafe {
+	
+}
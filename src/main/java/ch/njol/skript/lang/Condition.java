@@ -28,6 +28,7 @@ import org.bukkit.event.Event;
 import ch.njol.skript.Skript;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Checker;
+import ch.njol.util.Kleenean;
 
 /**
  * A condition which must be fulfilled for the trigger to continue. If the condition is in a section the behaviour depends on the section.
@@ -58,6 +59,18 @@ public abstract class Condition extends Statement {
 		return check(e);
 	}
 	
+	/**
+	 * Used to remove conditions from triggers when the script is loaded if they are always or never satisfied, e.g. comparisons of literals.
+	 * <p>
+	 * The default implementation returns {@link Kleenean#UNKNOWN}.
+	 * 
+	 * @return {@link Kleenean#TRUE} or {@link Kleenean#FALSE} if this condition always returns the same result regardless of the event and the state of the
+	 *         server, or {@link Kleenean#UNKNOWN} otherwise.
+	 */
+	public Kleenean getConstantResult() {
+		return Kleenean.UNKNOWN;
+	}
+	
 	/**
 	 * Sets the negation status of this condition. This will change the behaviour of {@link Expression#check(Event, Checker, boolean)}.
 	 * 
@@ -24,6 +24,7 @@ package ch.njol.skript.lang;
 import org.bukkit.event.Event;
 
 import ch.njol.skript.config.SectionNode;
+import ch.njol.util.Kleenean;
 
 /**
  * Represents a conditional trigger section.
@@ -36,17 +37,22 @@ import ch.njol.skript.config.SectionNode;
 public class Conditional extends TriggerSection {
 	
 	private final Condition cond;
+	/**
+	 * The result of the condition if it is always the same, see {@link Condition#getConstantResult()}
+	 */
+	private final Kleenean constant;
 	
 	private TriggerSection elseClause = null;
 	
 	public Conditional(final Condition cond, final SectionNode node) {
 		super(node);
 		this.cond = cond;
+		constant = cond.getConstantResult();
 	}
 	
 	@Override
 	protected TriggerItem walk(final Event e) {
-		if (cond.run(e)) {
+		if (constant == Kleenean.UNKNOWN ? cond.run(e) : constant == Kleenean.TRUE) {
 			return walk(e, true);
 		} else {
 			debug(e, false);
@@ -97,6 +103,13 @@ public class Conditional extends TriggerSection {
 		return elseClause != null && !(elseClause instanceof Conditional);
 	}
 	
+	/**
+	 * @return Whether this section's condition is never satisfied and there is no else clause, i.e. whether this section can be removed from its trigger.
+	 */
+	public boolean isNeverRun() {
+		return constant == Kleenean.FALSE && elseClause == null;
+	}
+	
 	@Override
 	public void setNext(final TriggerItem next) {
 		super.setNext(next);
@@ -0,0 +1,236 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.lang;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.event.Event;
+
+import ch.njol.skript.variables.VariablesMap;
+
+/**
+ * Holds the state of a single execution of a trigger, i.e. its local variables, the current values of its loops and whether it has been delayed. A frame is
+ * created whenever a trigger is executed and is kept if the trigger is continued after a delay.
+ * <p>
+ * As expressions are only passed the event, the frame that is currently executed by a thread can be retrieved with {@link #get(Event)}.
+ * <p>
+ * Local variables thus belong to a single execution of a trigger and not to the event as they did before frames existed: two triggers of the same event no
+ * longer see each other's local variables, and local variables set outside of any trigger (e.g. by an effect command) are discarded.
+ * 
+ * @author Peter Güttinger
+ */
+public final class ExecutionFrame {
+	
+	/**
+	 * The local variables and loops of a trigger. Built while the trigger is parsed and used to determine the size of the trigger's frames.
+	 */
+	@SuppressWarnings("serial")
+	public final static class Layout implements Serializable {
+		
+		private int locals = 0, loops = 0;
+		
+		/**
+		 * Only used while parsing
+		 */
+		private transient Map<String, LocalSlot> slots = new HashMap<String, LocalSlot>();
+		private transient boolean dynamicLocals = false;
+		
+		public Layout() {}
+		
+		final int addLoop() {
+			return loops++;
+		}
+		
+		/**
+		 * Returns the slot of a local variable that can be stored in a frame directly instead of in the frame's map of local variables. This is only possible
+		 * for variables whose name is constant and which are never accessed as part of a list, e.g. <tt>{_x}</tt> cannot be stored in a slot if the trigger
+		 * also uses <tt>{_x::1}</tt> or <tt>{_%player%}</tt>. As such variables can appear after the variable has already been parsed the slot's index may be
+		 * reset to -1 later on.
+		 * 
+		 * @param name The variable's name without the local variable token
+		 * @return The slot of the variable or null if the variable must be stored in the map
+		 */
+		final LocalSlot getLocalSlot(final VariableString name) {
+			if (slots == null)
+				return null;
+			final String prefix = name.getPrefix().toLowerCase(Locale.ENGLISH);
+			final int sep = prefix.indexOf(Variable.SEPARATOR);
+			if (!name.isSimple() && sep == -1) {
+				// the variable can have any name, thus no local variable can be stored in a slot
+				dynamicLocals = true;
+				for (final LocalSlot s : slots.values())
+					s.index = -1;
+				return null;
+			}
+			if (sep != -1) {
+				final String root = prefix.substring(0, sep);
+				final LocalSlot s = slots.get(root);
+				if (s == null)
+					slots.put(root, new LocalSlot(-1));
+				else
+					s.index = -1;
+				return null;
+			}
+			LocalSlot s = slots.get(prefix);
+			if (s == null)
+				slots.put(prefix, s = new LocalSlot(dynamicLocals ? -1 : locals++));
+			return s.index == -1 ? null : s;
+		}
+		
+	}
+	
+	/**
+	 * The position of a local variable in a frame, or -1 if the variable has to be stored in the frame's map
+	 */
+	@SuppressWarnings("serial")
+	final static class LocalSlot implements Serializable {
+		int index;
+		
+		LocalSlot(final int index) {
+			this.index = index;
+		}
+	}
+	
+	private final static ThreadLocal<ExecutionFrame> current = new ThreadLocal<ExecutionFrame>();
+	
+	private final Event event;
+	private final Layout layout;
+	
+	private Object[] locals = null;
+	private VariablesMap localVariables = null;
+	
+	private Object[] loopValues = null;
+	private Iterator<?>[] loopIterators = null;
+	
+	private boolean delayed = false;
+	
+	public ExecutionFrame(final Event event, final Layout layout) {
+		assert event != null && layout != null;
+		this.event = event;
+		this.layout = layout;
+	}
+	
+	/**
+	 * @param e
+	 * @return The frame that is currently executed by this thread if it was created for the given event, null otherwise.
+	 */
+	public final static ExecutionFrame get(final Event e) {
+		final ExecutionFrame f = current.get();
+		return f != null && f.event == e ? f : null;
+	}
+	
+	/**
+	 * Makes the given frame the current frame of this thread.
+	 * 
+	 * @param f
+	 * @return The previous frame, which must be passed to {@link #exit(ExecutionFrame)} when the execution of this frame stops.
+	 */
+	final static ExecutionFrame enter(final ExecutionFrame f) {
+		final ExecutionFrame previous = current.get();
+		if (previous != f)
+			current.set(f);
+		return previous;
+	}
+	
+	final static void exit(final ExecutionFrame previous) {
+		current.set(previous);
+	}
+	
+	public Event getEvent() {
+		return event;
+	}
+	
+	final Object getLocal(final int slot) {
+		return locals == null || slot >= locals.length ? null : locals[slot];
+	}
+	
+	final void setLocal(final int slot, final Object value) {
+		if (locals == null || slot >= locals.length) {
+			if (value == null)
+				return;
+			final Object[] ls = new Object[Math.max(layout.locals, slot + 1)];
+			if (locals != null)
+				System.arraycopy(locals, 0, ls, 0, locals.length);
+			locals = ls;
+		}
+		locals[slot] = value;
+	}
+	
+	/**
+	 * @return The local variables that are not stored in slots, or null if no such variable has been set yet
+	 */
+	public VariablesMap getLocalVariables() {
+		return localVariables;
+	}
+	
+	public VariablesMap getOrCreateLocalVariables() {
+		if (localVariables == null)
+			localVariables = new VariablesMap();
+		return localVariables;
+	}
+	
+	private final void ensureLoops(final int loop) {
+		if (loopValues != null && loop < loopValues.length)
+			return;
+		final int n = Math.max(layout.loops, loop + 1);
+		final Object[] vs = new Object[n];
+		final Iterator<?>[] is = new Iterator<?>[n];
+		if (loopValues != null) {
+			System.arraycopy(loopValues, 0, vs, 0, loopValues.length);
+			System.arraycopy(loopIterators, 0, is, 0, loopIterators.length);
+		}
+		loopValues = vs;
+		loopIterators = is;
+	}
+	
+	final Object getLoopValue(final int loop) {
+		return loopValues == null || loop >= loopValues.length ? null : loopValues[loop];
+	}
+	
+	final Iterator<?> getLoopIterator(final int loop) {
+		return loopIterators == null || loop >= loopIterators.length ? null : loopIterators[loop];
+	}
+	
+	/**
+	 * @param loop
+	 * @param iter The loop's iterator or null if the loop has ended
+	 * @param value The current value of the loop
+	 */
+	final void setLoop(final int loop, final Iterator<?> iter, final Object value) {
+		ensureLoops(loop);
+		loopIterators[loop] = iter;
+		loopValues[loop] = value;
+	}
+	
+	public boolean isDelayed() {
+		return delayed;
+	}
+	
+	public void setDelayed() {
+		delayed = true;
+	}
+	
+}
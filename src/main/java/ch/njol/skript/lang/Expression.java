@@ -32,6 +32,7 @@ import ch.njol.skript.classes.Changer.ChangeMode;
 import ch.njol.skript.classes.Changer.ChangerUtils;
 import ch.njol.skript.classes.Converter;
 import ch.njol.skript.conditions.CondIsSet;
+import ch.njol.skript.lang.util.ConstantExpression;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.log.ErrorQuality;
 import ch.njol.util.Checker;
@@ -203,11 +204,15 @@ public interface Expression<T> extends SyntaxElement, Debuggable {
 	public Expression<?> getSource();
 	
 	/**
-	 * Simplifies the expression, e.g. if it only contains literals the expression may be simplified to a literal, and wrapped expressions are unwrapped.
+	 * Simplifies the expression, e.g. if it only contains literals the expression may be simplified to a {@link ConstantExpression}, and wrapped expressions are unwrapped.
+	 * <p>
+	 * Expressions must not be simplified to a {@link Literal} if they weren't one before, as syntax elements check for literals to tell apart what the user wrote.
 	 * <p>
 	 * After this method was used the toString methods are likely not useful anymore.
 	 * <p>
-	 * This method is not yet used but will be used to improve efficiency in the future.
+	 * This method is called by the parser on every expression used in a syntax element, after the expression has been initialised, i.e. the expressions that
+	 * are passed to {@link SyntaxElement#init(Expression[], int, ch.njol.util.Kleenean, ch.njol.skript.lang.SkriptParser.ParseResult) init} have
+	 * already been simplified.
 	 * 
 	 * @return A reference to a simpler version of this expression. Can change this expression directly and return itself if applicable, i.e. no references to the expression before
 	 *         this method call should be kept!
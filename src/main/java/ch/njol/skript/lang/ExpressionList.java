@@ -283,7 +283,7 @@ public class ExpressionList<T> implements Expression<T> {
 		boolean isSimpleList = true;
 		for (int i = 0; i < expressions.length; i++) {
 			expressions[i] = expressions[i].simplify();
-			isLiteralList &= expressions[i] instanceof Literal;
+			isLiteralList &= expressions[i] instanceof Literal && !(expressions[i] instanceof UnparsedLiteral); // unparsed literals are converted later
 			isSimpleList &= expressions[i].isSingle();
 		}
 		if (isLiteralList && isSimpleList) {
@@ -75,8 +75,11 @@ public class LiteralList<T> extends ExpressionList<T> implements Literal<T> {
 	@Override
 	public Expression<T> simplify() {
 		boolean isSimpleList = true;
-		for (int i = 0; i < expressions.length; i++)
+		for (int i = 0; i < expressions.length; i++) {
+			if (expressions[i] instanceof UnparsedLiteral) // converted later
+				return this;
 			isSimpleList &= expressions[i].isSingle();
+		}
 		if (isSimpleList) {
 			final T[] values = (T[]) Array.newInstance(getReturnType(), expressions.length);
 			for (int i = 0; i < values.length; i++)
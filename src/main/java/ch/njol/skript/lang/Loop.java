@@ -21,11 +21,8 @@
 
 package ch.njol.skript.lang;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.List;
 
 import org.bukkit.event.Event;
 
@@ -46,14 +43,10 @@ public class Loop extends TriggerSection {
 	
 	private final Expression<?> expr;
 	
-	private transient Map<Event, Object> current = new WeakHashMap<Event, Object>();
-	private transient Map<Event, Iterator<?>> currentIter = new WeakHashMap<Event, Iterator<?>>();
-	
-	private void readObject(final ObjectInputStream in) throws ClassNotFoundException, IOException {
-		in.defaultReadObject();
-		current = new WeakHashMap<Event, Object>();
-		currentIter = new WeakHashMap<Event, Iterator<?>>();
-	}
+	/**
+	 * The index of this loop in the frames of its trigger
+	 */
+	private final int index;
 	
 	private TriggerItem actualNext;
 	
@@ -68,44 +61,54 @@ public class Loop extends TriggerSection {
 		} else {
 			this.expr = expr;
 		}
-		ScriptLoader.currentSections.add(this);
-		ScriptLoader.currentLoops.add(this);
+		// loops loaded without a layout (e.g. by addons calling ScriptLoader.loadItems directly) use their nesting depth, as frames grow as needed
+		final ExecutionFrame.Layout layout = ScriptLoader.getCurrentFrameLayout();
+		final List<Loop> loops = ScriptLoader.getCurrentLoops();
+		index = layout == null ? loops.size() : layout.addLoop();
+		ScriptLoader.getCurrentSections().add(this);
+		loops.add(this);
 		setTriggerItems(ScriptLoader.loadItems(node));
-		ScriptLoader.currentLoops.remove(ScriptLoader.currentLoops.size() - 1);
-		ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+		loops.remove(loops.size() - 1);
+		ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 		super.setNext(this);
 	}
 	
 	@Override
 	protected TriggerItem walk(final Event e) {
-		Iterator<?> iter = currentIter.get(e);
-		if (iter == null) {
+		final ExecutionFrame f = ExecutionFrame.get(e);
+		assert f != null;
+		Iterator<?> iter = f.getLoopIterator(index);
+		if (iter == null)
 			iter = expr instanceof Variable ? ((Variable<?>) expr).variablesIterator(e) : expr.iterator(e);
-			if (iter != null) {
-				if (iter.hasNext())
-					currentIter.put(e, iter);
-				else
-					iter = null;
-			}
-		}
 		if (iter == null || !iter.hasNext()) {
-			if (iter != null)
-				currentIter.remove(e); // a loop inside another loop can be called multiple times in the same event
+			f.setLoop(index, null, null); // a loop inside another loop can be called multiple times in the same event
 			debug(e, false);
 			return actualNext;
 		} else {
-			current.put(e, iter.next());
+			f.setLoop(index, iter, iter.next());
 			return walk(e, true);
 		}
 	}
 	
+	/**
+	 * Must be called when this loop is left without it having ended, e.g. by 'stop loop', so that it starts anew when it is reached again.
+	 * 
+	 * @param e
+	 */
+	public void exit(final Event e) {
+		final ExecutionFrame f = ExecutionFrame.get(e);
+		if (f != null)
+			f.setLoop(index, null, null);
+	}
+	
 	@Override
 	public String toString(final Event e, final boolean debug) {
 		return "loop " + expr.toString(e, debug);
 	}
 	
 	public Object getCurrent(final Event e) {
-		return current.get(e);
+		final ExecutionFrame f = ExecutionFrame.get(e);
+		return f == null ? null : f.getLoopValue(index);
 	}
 	
 	public Expression<?> getLoopedExpression() {
@@ -0,0 +1,55 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.lang;
+
+import org.bukkit.event.Event;
+
+import ch.njol.skript.lang.util.SimpleExpression;
+
+/**
+ * An expression that can return its single value as a primitive number, i.e. without allocating an array and boxing the number like
+ * {@link Expression#getSingle(Event)}. Numbers that are used often, e.g. in comparisons or arithmetic, should be retrieved with
+ * {@link SimpleExpression#getDouble(Expression, Event, double)} and {@link SimpleExpression#getLong(Expression, Event, long)}, which use these methods
+ * if possible.
+ * <p>
+ * The methods must only be called if the expression is single. Expressions that can return other values than numbers, e.g. variables, must return
+ * <tt>ifNone</tt> if their value is not a number.
+ * 
+ * @author Peter Güttinger
+ */
+public interface NumberExpression {
+	
+	/**
+	 * @param e
+	 * @param ifNone The value to return if this expression has no value. Callers that need to know whether there is a value can pass {@link Double#NaN}.
+	 * @return The value of this expression like {@link Number#doubleValue()}, or <tt>ifNone</tt>
+	 */
+	public double getDouble(Event e, double ifNone);
+	
+	/**
+	 * @param e
+	 * @param ifNone The value to return if this expression has no value
+	 * @return The value of this expression like {@link Number#longValue()}, or <tt>ifNone</tt>
+	 */
+	public long getLong(Event e, long ifNone);
+	
+}
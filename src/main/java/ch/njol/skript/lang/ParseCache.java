@@ -0,0 +1,294 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.lang;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptAddon;
+
+/**
+ * Remembers which syntax elements and patterns matched the strings of a script, so the script can be parsed again without trying every pattern that did
+ * not match last time. The triggers are still built by the parser, but it only tries the patterns that matched before. Strings that never matched are
+ * skipped entirely.
+ * <p>
+ * The cache is stored in a compact binary file next to the script. It is only valid as long as the script's contents and the registered syntax stay the
+ * same (see {@link #getRegistryFingerprint()}). A cache is only used by the thread that parses its script.
+ * 
+ * @author Peter Güttinger
+ */
+public final class ParseCache {
+	
+	private final static int MAGIC = 0x536B5043; // "SkPC"
+	private final static int VERSION = 1;
+	
+	/**
+	 * Keys longer than this cannot be written with {@link DataOutputStream#writeUTF(String)}
+	 */
+	private final static int MAX_KEY_LENGTH = 0xFFFF / 3;
+	
+	private final static int[] NO_MATCH = new int[0];
+	/**
+	 * Marks strings that were matched by a syntax element that is not registered with Skript, e.g. by an entity type, which thus cannot be cached
+	 */
+	private final static int[] UNCACHEABLE = new int[0];
+	
+	/**
+	 * The syntax elements and patterns that matched each string, as pairs of {@link SyntaxElementInfo#index} and pattern
+	 */
+	private final Map<String, int[]> matches;
+	
+	private final boolean replaying;
+	
+	private ParseCache(final Map<String, int[]> matches, final boolean replaying) {
+		this.matches = matches;
+		this.replaying = replaying;
+	}
+	
+	/**
+	 * @return A new cache that records which patterns match while a script is being parsed
+	 */
+	public static ParseCache record() {
+		return new ParseCache(new HashMap<String, int[]>(), false);
+	}
+	
+	/**
+	 * @return Whether this cache was read from a file, i.e. whether the parser should only try the patterns that matched when the cache was written
+	 */
+	public boolean isReplaying() {
+		return replaying;
+	}
+	
+	final static String key(final String expr, final int flags, final ParseContext context) {
+		return flags + ":" + context.ordinal() + ":" + expr;
+	}
+	
+	/**
+	 * @param key
+	 * @return The syntax elements and patterns that matched the given string, an empty array if the string never matched, or null if the string is unknown or
+	 *         cannot be cached
+	 */
+	final int[] get(final String key) {
+		final int[] m = matches.get(key);
+		return m == UNCACHEABLE ? null : m;
+	}
+	
+	final void recordMatch(final String key, final SyntaxElementInfo<?> info, final int pattern) {
+		final int[] m = matches.get(key);
+		if (m == UNCACHEABLE)
+			return;
+		if (info.index == -1 || pattern > 0xFFFF) {
+			matches.put(key, UNCACHEABLE);
+			return;
+		}
+		if (m == null) {
+			matches.put(key, new int[] {info.index, pattern});
+		} else if (!contains(m, info, pattern)) {
+			final int[] n = Arrays.copyOf(m, m.length + 2);
+			n[m.length] = info.index;
+			n[m.length + 1] = pattern;
+			matches.put(key, n);
+		}
+	}
+	
+	final void recordNoMatch(final String key) {
+		if (!matches.containsKey(key))
+			matches.put(key, NO_MATCH);
+	}
+	
+	final static boolean contains(final int[] matches, final SyntaxElementInfo<?> info, final int pattern) {
+		if (info.index == -1)
+			return false;
+		for (int i = 0; i < matches.length; i += 2) {
+			if (matches[i] == info.index && matches[i + 1] == pattern)
+				return true;
+		}
+		return false;
+	}
+	
+	final static boolean containsAny(final int[] matches, final List<? extends SyntaxElementInfo<?>> infos) {
+		for (final SyntaxElementInfo<?> info : infos) {
+			if (info.index == -1)
+				continue;
+			for (int i = 0; i < matches.length; i += 2) {
+				if (matches[i] == info.index)
+					return true;
+			}
+		}
+		return false;
+	}
+	
+	private static boolean indexed = false;
+	private static long fingerprint;
+	
+	/**
+	 * Numbers all registered syntax elements and calculates a fingerprint of Skript's and its addons' versions and the registered syntax. Cached matches are
+	 * only used if the fingerprint hasn't changed since they were written.
+	 * <p>
+	 * Must only be called after all syntax elements have been registered.
+	 * 
+	 * @return The fingerprint of the registered syntax
+	 */
+	public final static synchronized long getRegistryFingerprint() {
+		if (indexed)
+			return fingerprint;
+		assert !Skript.isAcceptRegistrations();
+		long h = hash(VERSION, "" + Skript.getVersion());
+		for (final SkriptAddon a : Skript.getAddons())
+			h = hash(hash(h, a.getName()), "" + a.version);
+		int index = 0;
+		for (final SyntaxElementInfo<?> info : Skript.getStatements()) {
+			info.index = index++;
+			h = hash(h, info);
+		}
+		for (final Iterator<ExpressionInfo<?, ?>> i = Skript.getExpressions(); i.hasNext();) {
+			final SyntaxElementInfo<?> info = i.next();
+			info.index = index++;
+			h = hash(h, info);
+		}
+		fingerprint = h;
+		indexed = true;
+		return h;
+	}
+	
+	private final static long hash(long h, final SyntaxElementInfo<?> info) {
+		h = hash(h, info.c.getName());
+		for (final String p : info.patterns)
+			h = hash(h, p);
+		return h;
+	}
+	
+	private final static long hash(final long h, final String s) {
+		return 31 * h + s.hashCode() * 0x9E3779B97F4A7C15L + s.length();
+	}
+	
+	/**
+	 * @param f
+	 * @return The MD5 hash of the given file's contents
+	 * @throws IOException
+	 */
+	public final static byte[] hash(final File f) throws IOException {
+		final MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("MD5");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		final InputStream in = new FileInputStream(f);
+		try {
+			final byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) != -1)
+				md.update(buffer, 0, n);
+		} finally {
+			in.close();
+		}
+		return md.digest();
+	}
+	
+	/**
+	 * @param f The cache file
+	 * @param hash The hash of the script's contents, see {@link #hash(File)}
+	 * @param fingerprint The fingerprint of the registered syntax, see {@link #getRegistryFingerprint()}
+	 * @return The cache stored in the given file, or null if there is no cache or it was written for another version of the script or another syntax
+	 * @throws IOException If the file could not be read
+	 */
+	public final static ParseCache read(final File f, final byte[] hash, final long fingerprint) throws IOException {
+		if (!f.exists())
+			return null;
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+			final byte[] h = new byte[in.readUnsignedByte()];
+			in.readFully(h);
+			if (!Arrays.equals(h, hash) || in.readLong() != fingerprint)
+				return null;
+			final int n = in.readInt();
+			final Map<String, int[]> matches = new HashMap<String, int[]>(n * 4 / 3 + 1);
+			for (int i = 0; i < n; i++) {
+				final String key = in.readUTF();
+				final int[] m = new int[2 * in.readUnsignedShort()];
+				for (int j = 0; j < m.length; j++)
+					m[j] = in.readUnsignedShort();
+				matches.put(key, m.length == 0 ? NO_MATCH : m);
+			}
+			return new ParseCache(matches, true);
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Writes the recorded matches to the given file.
+	 * 
+	 * @param f The cache file
+	 * @param hash The hash of the script's contents, see {@link #hash(File)}
+	 * @param fingerprint The fingerprint of the registered syntax, see {@link #getRegistryFingerprint()}
+	 * @throws IOException
+	 */
+	public final void write(final File f, final byte[] hash, final long fingerprint) throws IOException {
+		int n = 0;
+		for (final Entry<String, int[]> e : matches.entrySet()) {
+			if (e.getValue() != UNCACHEABLE && e.getKey().length() <= MAX_KEY_LENGTH)
+				n++;
+		}
+		f.getParentFile().mkdirs();
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeByte(hash.length);
+			out.write(hash);
+			out.writeLong(fingerprint);
+			out.writeInt(n);
+			for (final Entry<String, int[]> e : matches.entrySet()) {
+				final int[] m = e.getValue();
+				if (m == UNCACHEABLE || e.getKey().length() > MAX_KEY_LENGTH)
+					continue;
+				out.writeUTF(e.getKey());
+				out.writeShort(m.length / 2);
+				for (final int i : m)
+					out.writeShort(i);
+			}
+		} finally {
+			out.close();
+		}
+	}
+	
+}
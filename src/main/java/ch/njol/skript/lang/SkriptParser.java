@@ -27,6 +27,7 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -37,12 +38,14 @@ import org.bukkit.inventory.ItemStack;
 import ch.njol.skript.ScriptLoader;
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptAPIException;
+import ch.njol.skript.SkriptConfig;
 import ch.njol.skript.aliases.ItemType;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.command.Argument;
 import ch.njol.skript.command.Commands;
 import ch.njol.skript.command.ScriptCommand;
 import ch.njol.skript.command.ScriptCommandEvent;
+import ch.njol.skript.config.Node;
 import ch.njol.skript.expressions.ExprParse;
 import ch.njol.skript.lang.util.SimpleLiteral;
 import ch.njol.skript.localization.Language;
@@ -77,6 +80,11 @@ public class SkriptParser {
 	
 	public final ParseContext context;
 	
+	/**
+	 * The expression in lower case, see {@link #canMatch(String[])}
+	 */
+	private String lowerExpr = null;
+	
 	public SkriptParser(final String expr) {
 		this(expr, ALL_FLAGS);
 	}
@@ -189,12 +197,56 @@ public class SkriptParser {
 		}
 	}
 	
+	/**
+	 * The syntax element and pattern that matched in the last successful call to {@link #parse(Iterator, int[], List)}
+	 */
+	private SyntaxElementInfo<?> matchedInfo = null;
+	private int matchedPattern = -1;
+	
 	private final <T extends SyntaxElement> T parse(final Iterator<? extends SyntaxElementInfo<? extends T>> source) {
+		final ParseCache cache = ScriptLoader.getCurrentParseCache();
+		if (cache == null)
+			return parse(source, null, null);
+		final String key = ParseCache.key(expr, flags, context);
+		if (!cache.isReplaying()) {
+			final T t = parse(source, null, null);
+			if (t == null)
+				cache.recordNoMatch(key);
+			else
+				cache.recordMatch(key, matchedInfo, matchedPattern);
+			return t;
+		}
+		final int[] matches = cache.get(key);
+		if (matches == null)
+			return parse(source, null, null);
+		if (matches.length == 0)
+			return null;
+		final List<SyntaxElementInfo<? extends T>> seen = new ArrayList<SyntaxElementInfo<? extends T>>();
+		final T t = parse(source, matches, seen);
+		if (t != null || !ParseCache.containsAny(matches, seen))
+			return t;
+		// the patterns that matched when the cache was written don't match anymore, e.g. because aliases were changed
+		return parse(seen.iterator(), null, null);
+	}
+	
+	/**
+	 * @param source
+	 * @param matches If not null only these patterns are tried, see {@link ParseCache#get(String)}
+	 * @param seen If not null all syntax elements of the source are added to this list
+	 * @return The parsed element or null if no pattern matched
+	 */
+	private final <T extends SyntaxElement> T parse(final Iterator<? extends SyntaxElementInfo<? extends T>> source, final int[] matches, final List<SyntaxElementInfo<? extends T>> seen) {
 		final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 		try {
 			while (source.hasNext()) {
 				final SyntaxElementInfo<? extends T> info = source.next();
+				if (seen != null)
+					seen.add(info);
 				patternsLoop: for (int i = 0; i < info.patterns.length; i++) {
+					if (matches != null && !ParseCache.contains(matches, info, i))
+						continue;
+					if (!canMatch(info.getRequiredWords(i)))
+						continue;
 					log.clear();
 					try {
 						final ParseResult res = parse_i(info.patterns[i], 0, 0);
@@ -225,7 +277,9 @@ public class SkriptParser {
 								x = x2;
 							}
 							final T t = info.c.newInstance();
-							if (t.init(res.exprs, i, ScriptLoader.hasDelayBefore, res)) {
+							if (t.init(res.exprs, i, ScriptLoader.getHasDelayBefore(), res)) {
+								matchedInfo = info;
+								matchedPattern = i;
 								log.printLog();
 								return t;
 							}
@@ -244,6 +298,90 @@ public class SkriptParser {
 		}
 	}
 	
+	/**
+	 * Checks whether the expression contains all words a pattern requires (see {@link #getRequiredWords(String)}), i.e. whether it is worth trying to parse
+	 * the expression with the pattern at all.
+	 * 
+	 * @param words
+	 * @return false if the pattern cannot match the expression
+	 */
+	private final boolean canMatch(final String[] words) {
+		if (words.length == 0)
+			return true;
+		if (lowerExpr == null) {
+			final char[] cs = new char[expr.length()];
+			for (int i = 0; i < cs.length; i++)
+				cs[i] = Character.toLowerCase(expr.charAt(i));
+			lowerExpr = new String(cs);
+		}
+		for (final String w : words) {
+			if (!lowerExpr.contains(w))
+				return false;
+		}
+		return true;
+	}
+	
+	private final static String[] noWords = new String[0];
+	
+	/**
+	 * Finds the literal text of a pattern that every string matching the pattern must contain, i.e. all words that are neither part of an optional part nor of a
+	 * group. Words are separated by spaces, expressions and brackets, as spaces might be skipped by {@link #parse_i(String, int, int)}.
+	 * <p>
+	 * Patterns with regexes or choices that are not enclosed in a group are not analysed and thus have no required words.
+	 * 
+	 * @param pattern
+	 * @return The required words in lower case (compared character by character like in {@link #parse_i(String, int, int)})
+	 */
+	static String[] getRequiredWords(final String pattern) {
+		final List<String> words = new ArrayList<String>();
+		final StringBuilder word = new StringBuilder();
+		int level = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			final char c = pattern.charAt(i);
+			switch (c) {
+				case '[':
+				case '(':
+					level++;
+					break;
+				case ']':
+				case ')':
+					if (--level < 0)
+						return noWords;
+					break;
+				case '%':
+					i = pattern.indexOf('%', i + 1);
+					if (i == -1)
+						return noWords;
+					break;
+				case '<':
+					return noWords;
+				case '|':
+					if (level == 0)
+						return noWords;
+					break;
+				case ' ':
+					break;
+				case '\\':
+					if (++i == pattern.length())
+						return noWords;
+					if (level == 0)
+						word.append(Character.toLowerCase(pattern.charAt(i)));
+					continue;
+				default:
+					if (level == 0)
+						word.append(Character.toLowerCase(c));
+					continue;
+			}
+			if (word.length() != 0) {
+				words.add(word.toString());
+				word.setLength(0);
+			}
+		}
+		if (word.length() != 0)
+			words.add(word.toString());
+		return words.isEmpty() ? noWords : words.toArray(new String[words.size()]);
+	}
+	
 	private final static Pattern varPattern = Pattern.compile("((the )?var(iable)? )?\\{([^{}]|%\\{|\\}%)+\\}", Pattern.CASE_INSENSITIVE);
 	
 	/**
@@ -632,7 +770,16 @@ public class SkriptParser {
 						final ParseResult res = parse_i(info.patterns[i], 0, 0);
 						if (res != null) {
 							final SkriptEvent e = info.c.newInstance();
-							if (!e.init(Arrays.copyOf(res.exprs, res.exprs.length, Literal[].class), i, res)) {
+							final Literal<?>[] args = Arrays.copyOf(res.exprs, res.exprs.length, Literal[].class);
+							final int matchedPattern = i;
+							// events may use Bukkit in init, which must not be done by threads that load scripts in parallel
+							final boolean initialised = ScriptLoader.callOnMainThread(new Callable<Boolean>() {
+								@Override
+								public Boolean call() {
+									return e.init(args, matchedPattern, res);
+								}
+							});
+							if (!initialised) {
 								log.printError();
 								return null;
 							}
@@ -788,6 +935,25 @@ public class SkriptParser {
 		}
 	}
 	
+	/**
+	 * Simplifies an expression before it is passed to a syntax element and logs the simplification if enabled.
+	 * 
+	 * @param e
+	 * @return The simplified expression
+	 * @see Expression#simplify()
+	 */
+	private final static Expression<?> simplify(final Expression<?> e) {
+		if (!SkriptConfig.logSimplifications.value())
+			return e.simplify();
+		final String before = e.toString(null, false);
+		final Expression<?> s = e.simplify();
+		if (s != e) {
+			final Node n = SkriptLogger.getNode();
+			ScriptLoader.logSimplification("simplified '" + before + "' to '" + s.toString(null, false) + "'", n == null ? -1 : n.getLine());
+		}
+		return s;
+	}
+	
 	/**
 	 * Returns the next character in the expression, skipping strings, variables and groups.
 	 * 
@@ -951,7 +1117,7 @@ public class SkriptParser {
 											if (vi.time != 0) {
 												if (e instanceof Literal<?>)
 													return null;
-												if (ScriptLoader.hasDelayBefore == Kleenean.TRUE) {
+												if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE) {
 													Skript.error("Cannot use time states after the event has already passed", ErrorQuality.SEMANTIC_ERROR);
 													return null;
 												}
@@ -962,7 +1128,7 @@ public class SkriptParser {
 											}
 											log2.printLog();
 											log.printLog();
-											res.exprs[countUnescaped(pattern, '%', 0, j) / 2] = e;
+											res.exprs[countUnescaped(pattern, '%', 0, j) / 2] = vi.time == 0 ? simplify(e) : e; // literals cannot have time states
 											return res;
 										}
 									}
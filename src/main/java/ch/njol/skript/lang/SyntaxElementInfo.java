@@ -30,9 +30,34 @@ public class SyntaxElementInfo<E extends SyntaxElement> {
 	public final Class<E> c;
 	public final String[] patterns;
 	
+	/**
+	 * The position of this element in Skript's registry, or -1 if it is not registered. Set by {@link ParseCache#getRegistryFingerprint()}.
+	 */
+	int index = -1;
+	
+	/**
+	 * The words required by a pattern, kept together with the pattern as some syntax elements change their patterns, e.g. when the language changes.
+	 */
+	private final static class RequiredWords {
+		final String pattern;
+		final String[] words;
+		
+		RequiredWords(final String pattern) {
+			this.pattern = pattern;
+			words = SkriptParser.getRequiredWords(pattern);
+		}
+	}
+	
+	/**
+	 * Calculated when a pattern is used the first time. Can be accessed by multiple threads at once, as the entries are immutable and always the same for a
+	 * given pattern.
+	 */
+	private final RequiredWords[] requiredWords;
+	
 	public SyntaxElementInfo(final String[] patterns, final Class<E> c) throws IllegalArgumentException {
 		this.patterns = patterns;
 		this.c = c;
+		requiredWords = new RequiredWords[patterns.length];
 		try {
 			c.getConstructor();
 //			if (!c.getDeclaredConstructor().isAccessible())
@@ -44,4 +69,15 @@ public class SyntaxElementInfo<E extends SyntaxElement> {
 		}
 	}
 	
+	/**
+	 * @param pattern The index of a pattern
+	 * @return The words the pattern requires, see {@link SkriptParser#getRequiredWords(String)}
+	 */
+	final String[] getRequiredWords(final int pattern) {
+		RequiredWords w = requiredWords[pattern];
+		if (w == null || w.pattern != patterns[pattern])
+			requiredWords[pattern] = w = new RequiredWords(patterns[pattern]);
+		return w.words;
+	}
+	
 }
@@ -22,10 +22,20 @@
 package ch.njol.skript.lang;
 
 import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.bukkit.event.Event;
 
+import ch.njol.skript.Profiler;
+import ch.njol.skript.ScriptLoader;
+import ch.njol.skript.Profiler.Timing;
+import ch.njol.skript.expressions.base.EventValueExpression;
+
 /**
  * @author Peter Güttinger
  */
@@ -37,11 +47,67 @@ public class Trigger extends TriggerSection {
 	
 	private final File script;
 	
+	private final ExecutionFrame.Layout frameLayout;
+	
+	private final boolean asyncSafe;
+	
+	/**
+	 * The items must have been parsed with {@link ScriptLoader#currentFrameLayout} set, which is used as the layout of this trigger's frames.
+	 */
 	public Trigger(final File script, final String name, final SkriptEvent event, final List<TriggerItem> items) {
 		super(items);
 		this.script = script;
 		this.name = name;
 		this.event = event;
+		final ExecutionFrame.Layout layout = ScriptLoader.getCurrentFrameLayout();
+		frameLayout = layout == null ? new ExecutionFrame.Layout() : layout;
+		asyncSafe = layout != null && isAsyncSafe(this, new IdentityHashMap<Object, Object>());
+	}
+	
+	/**
+	 * Checks whether the given item or expression and everything it contains is {@link AsyncSafe}. The parts of an element are found through its fields, thus
+	 * default expressions and the targets of changes are checked as well without every element having to expose its parts.
+	 * <p>
+	 * Skript's own building blocks like sections, literals, converted expressions and event values are safe if their parts are, registered syntax elements
+	 * must be annotated, and global variables are never safe as changes like 'add 1 to {var}' are not atomic.
+	 * 
+	 * @param o The object to check. Objects that are neither items nor expressions, or arrays or collections of them, are not part of the trigger's code and
+	 *            are thus ignored.
+	 * @param checked Objects that have already been checked (or are being checked)
+	 */
+	private final static boolean isAsyncSafe(final Object o, final Map<Object, Object> checked) {
+		if (o == null || checked.put(o, o) != null)
+			return true;
+		if (o instanceof Object[] || o instanceof Collection) {
+			for (final Object e : o instanceof Object[] ? (Object[]) o : ((Collection<?>) o).toArray()) {
+				if (!isAsyncSafe(e, checked))
+					return false;
+			}
+			return true;
+		}
+		if (!(o instanceof TriggerItem) && !(o instanceof Expression))
+			return true;
+		if (o instanceof Variable && !((Variable<?>) o).local)
+			return false;
+		final Class<?> c = o.getClass();
+		if (!c.isAnnotationPresent(AsyncSafe.class) && !c.getName().startsWith("ch.njol.skript.lang.") && c != EventValueExpression.class)
+			return false;
+		for (Class<?> k = c; k != null && k != Object.class; k = k.getSuperclass()) {
+			for (final Field f : k.getDeclaredFields()) {
+				if (Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive())
+					continue;
+				try {
+					f.setAccessible(true);
+					if (!isAsyncSafe(f.get(o), checked))
+						return false;
+				} catch (final IllegalAccessException e) {
+					return false;
+				} catch (final SecurityException e) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 	
 	/**
@@ -49,7 +115,14 @@ public class Trigger extends TriggerSection {
 	 * @return false iff an exception occurred
 	 */
 	public boolean execute(final Event e) {
-		return TriggerItem.walk(this, e);
+		if (Profiler.isEnabled()) {
+			final Timing t = Profiler.getTiming(this);
+			final long a = t.startAllocation(), start = System.nanoTime();
+			final boolean r = TriggerItem.walk(this, e, new ExecutionFrame(e, frameLayout));
+			t.add(System.nanoTime() - start, a);
+			return r;
+		}
+		return TriggerItem.walk(this, e, new ExecutionFrame(e, frameLayout));
 	}
 	
 	@Override
@@ -74,4 +147,15 @@ public class Trigger extends TriggerSection {
 		return script;
 	}
 	
+	public ExecutionFrame.Layout getFrameLayout() {
+		return frameLayout;
+	}
+	
+	/**
+	 * @return Whether all syntax elements of this trigger are {@link AsyncSafe}, i.e. whether it can be executed on any thread
+	 */
+	public boolean isAsyncSafe() {
+		return asyncSafe;
+	}
+	
 }
@@ -25,7 +25,11 @@ import java.io.Serializable;
 
 import org.bukkit.event.Event;
 
+import ch.njol.skript.Profiler;
+import ch.njol.skript.Profiler.Timing;
 import ch.njol.skript.Skript;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.log.SkriptLogger;
 import ch.njol.util.StringUtils;
 
 /**
@@ -42,9 +46,18 @@ public abstract class TriggerItem implements Debuggable, Serializable {
 	protected TriggerSection parent = null;
 	private TriggerItem next = null;
 	
-	protected TriggerItem() {}
+	/**
+	 * The line this item was parsed from, or -1 if unknown
+	 */
+	private final int line;
+	
+	protected TriggerItem() {
+		final Node n = SkriptLogger.getNode();
+		line = n == null ? -1 : n.getLine();
+	}
 	
 	protected TriggerItem(final TriggerSection parent) {
+		this();
 		this.parent = parent;
 	}
 	
@@ -75,14 +88,44 @@ public abstract class TriggerItem implements Debuggable, Serializable {
 	protected abstract boolean run(Event e);
 	
 	/**
+	 * Executes the given item and all following items in the frame that is currently executed for the event, or in a new frame if the event is not currently
+	 * being handled by a trigger.
+	 * 
 	 * @param start
 	 * @param e
 	 * @return false iff an exception occurred
 	 */
 	public final static boolean walk(final TriggerItem start, final Event e) {
+		return walk(start, e, null);
+	}
+	
+	/**
+	 * @param start
+	 * @param e
+	 * @param frame The frame to execute the items in, e.g. the frame of a trigger that is continued after a delay. If null the current frame of the event or a
+	 *            new frame is used.
+	 * @return false iff an exception occurred
+	 */
+	public final static boolean walk(final TriggerItem start, final Event e, ExecutionFrame frame) {
 		assert start != null && e != null;
+		if (frame == null) {
+			frame = ExecutionFrame.get(e);
+			if (frame == null)
+				frame = new ExecutionFrame(e, start.getTrigger().getFrameLayout());
+		}
+		final ExecutionFrame previous = ExecutionFrame.enter(frame);
 		TriggerItem i = start;
 		try {
+			if (Profiler.isEnabled()) {
+				while (i != null) {
+					final Timing t = Profiler.getTiming(i);
+					final long a = t.startAllocation(), time = System.nanoTime();
+					final TriggerItem next = i.walk(e);
+					t.add(System.nanoTime() - time, a);
+					i = next;
+				}
+				return true;
+			}
 			while (i != null)
 				i = i.walk(e);
 			return true;
@@ -93,6 +136,8 @@ public abstract class TriggerItem implements Debuggable, Serializable {
 		} catch (final Exception ex) {
 			if (ex.getStackTrace().length != 0)// empty exceptions have already been printed
 				Skript.exception(ex, i);
+		} finally {
+			ExecutionFrame.exit(previous);
 		}
 		return false;
 	}
@@ -143,6 +188,13 @@ public abstract class TriggerItem implements Debuggable, Serializable {
 		return (Trigger) i;
 	}
 	
+	/**
+	 * @return The line of the script this item was parsed from, or -1 if unknown
+	 */
+	public int getLine() {
+		return line;
+	}
+	
 	public void setNext(final TriggerItem next) {
 		this.next = next;
 	}
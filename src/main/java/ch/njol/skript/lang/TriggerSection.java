@@ -49,9 +49,9 @@ public abstract class TriggerSection extends TriggerItem {
 	}
 	
 	protected TriggerSection(final SectionNode node) {
-		ScriptLoader.currentSections.add(this);
+		ScriptLoader.getCurrentSections().add(this);
 		setTriggerItems(ScriptLoader.loadItems(node));
-		ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+		ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 	}
 	
 	/**
@@ -63,9 +63,9 @@ public abstract class TriggerSection extends TriggerItem {
 	 * Remember to add this section to {@link ScriptLoader#currentSections} before parsing child elements!
 	 * 
 	 * <pre>
-	 * ScriptLoader.currentSections.add(this);
+	 * ScriptLoader.getCurrentSections().add(this);
 	 * setTriggerItems(ScriptLoader.loadItems(node));
-	 * ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+	 * ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 	 * </pre>
 	 * 
 	 * @param items
@@ -30,10 +30,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
-import java.util.TreeMap;
 
 import org.bukkit.event.Event;
 
+import ch.njol.skript.ScriptLoader;
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptAPIException;
 import ch.njol.skript.classes.Arithmetic;
@@ -42,6 +42,7 @@ import ch.njol.skript.classes.Changer.ChangeMode;
 import ch.njol.skript.classes.Changer.ChangerUtils;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.classes.Comparator.Relation;
+import ch.njol.skript.lang.ExecutionFrame.LocalSlot;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.registrations.Classes;
@@ -50,18 +51,18 @@ import ch.njol.skript.registrations.Converters;
 import ch.njol.skript.util.StringMode;
 import ch.njol.skript.util.Utils;
 import ch.njol.skript.variables.Variables;
+import ch.njol.skript.variables.VariablesMap;
 import ch.njol.util.Checker;
 import ch.njol.util.Kleenean;
 import ch.njol.util.Pair;
 import ch.njol.util.StringUtils;
 import ch.njol.util.coll.CollectionUtils;
-import ch.njol.util.coll.iterator.EmptyIterator;
 
 /**
  * @author Peter Güttinger
  */
 @SuppressWarnings("serial")
-public class Variable<T> implements Expression<T> {
+public class Variable<T> implements Expression<T>, NumberExpression {
 	
 	public final static String SEPARATOR = "::";
 	public final static String LOCAL_VARIABLE_TOKEN = "_";
@@ -77,9 +78,23 @@ public class Variable<T> implements Expression<T> {
 	final boolean local;
 	private final boolean list;
 	
+	/**
+	 * The slot of this variable in the frames of its trigger if this is a local variable that can be stored in a slot, null otherwise.
+	 */
+	private final LocalSlot slot;
+	
 	private final Variable<?> source;
 	
-	private Variable(final VariableString name, final Class<? extends T>[] types, final boolean local, final boolean list, final Variable<?> source) {
+	/**
+	 * The handle of this variable if it is a global variable with a constant name, created when the variable is first accessed.
+	 */
+	private transient Variables.Handle handle = null;
+	/**
+	 * The lowercased name of the default variable of this variable, see {@link #getDefaultName()}
+	 */
+	private transient String defaultName = null;
+	
+	private Variable(final VariableString name, final Class<? extends T>[] types, final boolean local, final boolean list, final LocalSlot slot, final Variable<?> source) {
 		assert name != null;
 		assert types != null && types.length > 0;
 		
@@ -89,6 +104,7 @@ public class Variable<T> implements Expression<T> {
 		this.list = list;
 		
 		this.name = name;
+		this.slot = slot;
 		
 		this.types = types;
 		this.superType = (Class<T>) Utils.getSuperType(types);
@@ -121,10 +137,13 @@ public class Variable<T> implements Expression<T> {
 			Skript.error("A variable's name must not contain the separator '" + SEPARATOR + "' multiple times in a row (error in variable {" + name + "})");
 			return null;
 		}
-		final VariableString vs = VariableString.newInstance(name.startsWith(LOCAL_VARIABLE_TOKEN) ? name.substring(LOCAL_VARIABLE_TOKEN.length()).trim() : name, StringMode.VARIABLE_NAME);
+		final boolean local = name.startsWith(LOCAL_VARIABLE_TOKEN);
+		final VariableString vs = VariableString.newInstance(local ? name.substring(LOCAL_VARIABLE_TOKEN.length()).trim() : name, StringMode.VARIABLE_NAME);
 		if (vs == null)
 			return null;
-		return new Variable<T>(vs, types, name.startsWith(LOCAL_VARIABLE_TOKEN), name.endsWith(SEPARATOR + "*"), null);
+		final ExecutionFrame.Layout layout = ScriptLoader.getCurrentFrameLayout();
+		final LocalSlot slot = local && layout != null ? layout.getLocalSlot(vs) : null;
+		return new Variable<T>(vs, types, local, name.endsWith(SEPARATOR + "*"), slot, null);
 	}
 	
 	@Override
@@ -156,19 +175,53 @@ public class Variable<T> implements Expression<T> {
 	
 	@Override
 	public <R> Variable<R> getConvertedExpression(final Class<R>... to) {
-		return new Variable<R>(name, to, local, list, this);
+		return new Variable<R>(name, to, local, list, slot, this);
+	}
+	
+	/**
+	 * @return The handle of this variable, or null if this variable is local or its name is not constant
+	 */
+	private final Variables.Handle getHandle() {
+		if (local || !name.isSimple())
+			return null;
+		Variables.Handle h = handle;
+		if (h == null)
+			handle = h = Variables.getHandle(name.toLowerCaseString(null));
+		return h;
+	}
+	
+	/**
+	 * @return The name of the global variable that is used if this variable is not set
+	 */
+	private final String getDefaultName() {
+		String n = defaultName;
+		if (n == null)
+			defaultName = n = (local ? LOCAL_VARIABLE_TOKEN : "") + name.getDefaultVariableName().toLowerCase(Locale.ENGLISH);
+		return n;
 	}
 	
 	/**
 	 * Gets the value of this variable as stored in the variables map.
 	 */
 	private Object getRaw(final Event e) {
-		final String n = name.toString(e).toLowerCase(Locale.ENGLISH);
+		final int s = slot == null ? -1 : slot.index;
+		final ExecutionFrame f = s == -1 ? null : ExecutionFrame.get(e);
+		if (f != null) {
+			final Object val = f.getLocal(s);
+			if (val == null)
+				return Variables.getVariable(getDefaultName(), e, false);
+			return val;
+		}
+		// without a frame a local variable is handled like one that is not stored in a slot, see set(Event, Object)
+		final Variables.Handle h = getHandle();
+		if (h != null) // the default variable of a constant global variable is the variable itself
+			return Variables.getVariable(h);
+		final String n = name.toLowerCaseString(e);
 		if (n.endsWith(Variable.SEPARATOR + "*") != list) // prevents e.g. {%expr%} where "%expr%" ends with "::*" from returning a Map
 			return null;
 		final Object val = Variables.getVariable(n, e, local);
 		if (val == null)
-			return Variables.getVariable((local ? LOCAL_VARIABLE_TOKEN : "") + name.getDefaultVariableName().toLowerCase(Locale.ENGLISH), e, false);
+			return Variables.getVariable(getDefaultName(), e, false);
 		return val;
 	}
 	
@@ -194,79 +247,26 @@ public class Variable<T> implements Expression<T> {
 	public Iterator<Pair<String, Object>> variablesIterator(final Event e) {
 		if (!list)
 			throw new SkriptAPIException("Looping a non-list variable");
-		final String name = StringUtils.substring(this.name.toString(e), 0, -1).toLowerCase(Locale.ENGLISH);
-		final Object val = Variables.getVariable(name + "*", e, local);
-		if (val == null)
-			return new EmptyIterator<Pair<String, Object>>();
-		assert val instanceof TreeMap;
-		// temporary list to prevent CMEs
-		@SuppressWarnings("unchecked")
-		final Iterator<String> keys = new ArrayList<String>(((Map<String, Object>) val).keySet()).iterator();
-		return new Iterator<Pair<String, Object>>() {
-			private String key;
-			private Object next = null;
-			
-			@Override
-			public boolean hasNext() {
-				if (next != null)
-					return true;
-				while (keys.hasNext()) {
-					key = keys.next();
-					if (key != null) {
-						next = Variables.getVariable(name + key, e, local);
-						if (next != null && !(next instanceof TreeMap))
-							return true;
-					}
-				}
-				next = null;
-				return false;
-			}
-			
-			@Override
-			public Pair<String, Object> next() {
-				if (!hasNext())
-					throw new NoSuchElementException();
-				final Pair<String, Object> n = new Pair<String, Object>(key, next);
-				next = null;
-				return n;
-			}
-			
-			@Override
-			public void remove() {
-				throw new UnsupportedOperationException();
-			}
-		};
+		return Variables.getListIterator(name.toLowerCaseString(e), e, local);
 	}
 	
 	@Override
 	public Iterator<T> iterator(final Event e) {
 		if (!list)
 			throw new SkriptAPIException("");
-		final String name = StringUtils.substring(this.name.toString(e), 0, -1).toLowerCase(Locale.ENGLISH);
-		final Object val = Variables.getVariable(name + "*", e, local);
-		if (val == null)
-			return new EmptyIterator<T>();
-		assert val instanceof TreeMap;
-		// temporary list to prevent CMEs
-		@SuppressWarnings("unchecked")
-		final Iterator<String> keys = new ArrayList<String>(((Map<String, Object>) val).keySet()).iterator();
+		final Iterator<Pair<String, Object>> iter = Variables.getListIterator(name.toLowerCaseString(e), e, local);
 		return new Iterator<T>() {
-			private String key;
 			private T next = null;
 			
 			@Override
 			public boolean hasNext() {
 				if (next != null)
 					return true;
-				while (keys.hasNext()) {
-					key = keys.next();
-					if (key != null) {
-						next = Converters.convert(Variables.getVariable(name + key, e, local), types);
-						if (next != null && !(next instanceof TreeMap))
-							return true;
-					}
+				while (iter.hasNext()) {
+					next = Converters.convert(iter.next().getValue(), types);
+					if (next != null)
+						return true;
 				}
-				next = null;
 				return false;
 			}
 			
@@ -286,6 +286,23 @@ public class Variable<T> implements Expression<T> {
 		};
 	}
 	
+	/**
+	 * Returns the elements of this list with numerical values in the given range, ordered by their values. Uses an index of the list's values, see
+	 * {@link Variables#getListElementsByValue(String, Event, boolean, double, double, int, boolean)}.
+	 * 
+	 * @param e
+	 * @param min The lowest value (inclusive)
+	 * @param max The highest value (inclusive)
+	 * @param amount The maximum amount of elements to return, or -1 for no limit
+	 * @param descending Whether to order the elements from the highest to the lowest value
+	 * @return The elements as pairs of their indices and values
+	 */
+	public List<Pair<String, Object>> getElementsByValue(final Event e, final double min, final double max, final int amount, final boolean descending) {
+		if (!list)
+			throw new SkriptAPIException("Querying the elements of a non-list variable");
+		return Variables.getListElementsByValue(name.toLowerCaseString(e), e, local, min, max, amount, descending);
+	}
+	
 	private T getConverted(final Event e) {
 		assert !list;
 		return Converters.convert(get(e), types);
@@ -297,12 +314,24 @@ public class Variable<T> implements Expression<T> {
 	}
 	
 	private final void set(final Event e, final Object value) {
-		Variables.setVariable(name.toString(e).toLowerCase(Locale.ENGLISH), value, e, local);
+		final int s = slot == null ? -1 : slot.index;
+		final ExecutionFrame f = s == -1 ? null : ExecutionFrame.get(e);
+		if (f != null) {
+			f.setLocal(s, value);
+			return;
+		}
+		// not executed in a frame: Variables decides what happens to local variables, just like it does for reading them in getRaw(Event)
+		final Variables.Handle h = getHandle();
+		if (h != null) {
+			Variables.setVariable(h, value);
+			return;
+		}
+		Variables.setVariable(name.toLowerCaseString(e), value, e, local);
 	}
 	
 	private final void setIndex(final Event e, final String index, final Object value) {
 		assert list;
-		final String s = name.toString(e).toLowerCase(Locale.ENGLISH);
+		final String s = name.toLowerCaseString(e);
 		Variables.setVariable(s.substring(0, s.length() - 1) + index.toLowerCase(Locale.ENGLISH), value, e, local);
 	}
 	
@@ -386,12 +415,13 @@ public class Variable<T> implements Expression<T> {
 						for (final String r : rem)
 							setIndex(e, r, null);
 					} else { // ADD
-						int i = 1;
+						// lists keep track of their first free index, thus appending to a list doesn't have to search it
+						int i = o == null ? 1 : VariablesMap.getFirstFreeIndex(o);
 						for (final Object d : delta) {
 							if (o != null)
-								while (o.containsKey("" + i))
+								while (o.containsKey(String.valueOf(i)))
 									i++;
-							setIndex(e, "" + i, d);
+							setIndex(e, String.valueOf(i), d);
 							i++;
 						}
 					}
@@ -450,6 +480,22 @@ public class Variable<T> implements Expression<T> {
 		return getConverted(e);
 	}
 	
+	@Override
+	public double getDouble(final Event e, final double ifNone) {
+		if (list)
+			throw new SkriptAPIException("Invalid call to getDouble");
+		final T t = getConverted(e);
+		return t instanceof Number ? ((Number) t).doubleValue() : ifNone;
+	}
+	
+	@Override
+	public long getLong(final Event e, final long ifNone) {
+		if (list)
+			throw new SkriptAPIException("Invalid call to getLong");
+		final T t = getConverted(e);
+		return t instanceof Number ? ((Number) t).longValue() : ifNone;
+	}
+	
 	@Override
 	public T[] getArray(final Event e) {
 		return getAll(e);
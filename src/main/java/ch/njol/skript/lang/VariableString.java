@@ -29,6 +29,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
@@ -42,6 +43,7 @@ import ch.njol.skript.SkriptConfig;
 import ch.njol.skript.classes.Changer.ChangeMode;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.util.ConstantExpression;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Noun;
@@ -82,6 +84,11 @@ public class VariableString implements Expression<String> {
 	private final String simple;
 	private final StringMode mode;
 	
+	/**
+	 * {@link #string} or {@link #simple} with all constant parts in lower case, calculated when first needed by {@link #toLowerCaseString(Event)}.
+	 */
+	private transient Object lowerCase = null;
+	
 	private VariableString(final String s) {
 		isSimple = true;
 		simple = s;
@@ -253,40 +260,42 @@ public class VariableString implements Expression<String> {
 	}
 	
 	private static void checkVariableConflicts(final String name, final StringMode mode, final Iterable<Object> string) {
-		if (mode != StringMode.VARIABLE_NAME || variableNames.containsKey(name))
-			return;
-		if (name.startsWith("%")) // inside the if to only print this message once per variable
-			Skript.warning("Starting a variable's name with an expression is discouraged ({" + name + "}). You could prefix it with the script's name: {" + StringUtils.substring(ScriptLoader.currentScript.getFileName(), 0, -3) + "." + name + "}");
-		
-		final Pattern pattern;
-		if (string != null) {
-			final StringBuilder p = new StringBuilder();
-			stringLoop: for (final Object o : string) {
-				if (o instanceof Expression) {
-					for (final ClassInfo<?> ci : Classes.getClassInfos()) {
-						if (ci.getParser() != null && ci.getC().isAssignableFrom(((Expression<?>) o).getReturnType())) {
-							p.append("(?!%)" + ci.getParser().getVariableNamePattern() + "(?<!%)");
-							continue stringLoop;
+		synchronized (variableNames) { // scripts are parsed by multiple threads
+			if (mode != StringMode.VARIABLE_NAME || variableNames.containsKey(name))
+				return;
+			if (name.startsWith("%")) // inside the if to only print this message once per variable
+				Skript.warning("Starting a variable's name with an expression is discouraged ({" + name + "}). You could prefix it with the script's name: {" + StringUtils.substring(ScriptLoader.getCurrentScript().getFileName(), 0, -3) + "." + name + "}");
+			
+			final Pattern pattern;
+			if (string != null) {
+				final StringBuilder p = new StringBuilder();
+				stringLoop: for (final Object o : string) {
+					if (o instanceof Expression) {
+						for (final ClassInfo<?> ci : Classes.getClassInfos()) {
+							if (ci.getParser() != null && ci.getC().isAssignableFrom(((Expression<?>) o).getReturnType())) {
+								p.append("(?!%)" + ci.getParser().getVariableNamePattern() + "(?<!%)");
+								continue stringLoop;
+							}
 						}
+						p.append("[^%*](.*[^%*])?"); // [^*] to not report {var::%index%}/{var::*} as conflict
+					} else {
+						p.append(Pattern.quote(o.toString()));
 					}
-					p.append("[^%*](.*[^%*])?"); // [^*] to not report {var::%index%}/{var::*} as conflict
-				} else {
-					p.append(Pattern.quote(o.toString()));
 				}
+				pattern = Pattern.compile(p.toString());
+			} else {
+				pattern = Pattern.compile(Pattern.quote(name));
 			}
-			pattern = Pattern.compile(p.toString());
-		} else {
-			pattern = Pattern.compile(Pattern.quote(name));
-		}
-		if (!SkriptConfig.disableVariableConflictWarnings.value()) {
-			for (final Entry<String, Pattern> e : variableNames.entrySet()) {
-				if (e.getValue().matcher(name).matches() || pattern.matcher(e.getKey()).matches()) {
-					Skript.warning("Possible name conflict of variables {" + name + "} and {" + e.getKey() + "} (there might be more conflicts).");
-					break;
+			if (!SkriptConfig.disableVariableConflictWarnings.value()) {
+				for (final Entry<String, Pattern> e : variableNames.entrySet()) {
+					if (e.getValue().matcher(name).matches() || pattern.matcher(e.getKey()).matches()) {
+						Skript.warning("Possible name conflict of variables {" + name + "} and {" + e.getKey() + "} (there might be more conflicts).");
+						break;
+					}
 				}
 			}
+			variableNames.put(name, pattern);
 		}
-		variableNames.put(name, pattern);
 	}
 	
 	private void readObject(final ObjectInputStream in) throws ClassNotFoundException, IOException {
@@ -379,6 +388,42 @@ public class VariableString implements Expression<String> {
 		return b.toString();
 	}
 	
+	/**
+	 * Same as <tt>toString(e).toLowerCase(Locale.ENGLISH)</tt>, but constant parts are only converted once. Used for variable names.
+	 * 
+	 * @param e
+	 * @return The string in lower case
+	 */
+	public String toLowerCaseString(final Event e) {
+		Object lc = lowerCase;
+		if (lc == null) {
+			if (isSimple) {
+				lc = simple.toLowerCase(Locale.ENGLISH);
+			} else if (mode != StringMode.MESSAGE) {
+				final Object[] l = new Object[string.length];
+				for (int i = 0; i < string.length; i++)
+					l[i] = string[i] instanceof String ? ((String) string[i]).toLowerCase(Locale.ENGLISH) : string[i];
+				lc = l;
+			} else {
+				lc = this;
+			}
+			lowerCase = lc;
+		}
+		if (lc instanceof String)
+			return (String) lc;
+		if (lc == this)
+			return toString(e).toLowerCase(Locale.ENGLISH);
+		final Object[] l = (Object[]) lc;
+		final StringBuilder b = new StringBuilder();
+		for (final Object o : l) {
+			if (o instanceof Expression<?>)
+				b.append(Classes.toString(((Expression<?>) o).getArray(e), true, mode).toLowerCase(Locale.ENGLISH));
+			else
+				b.append(o);
+		}
+		return b.toString();
+	}
+	
 	private final static ChatColor getLastColor(final CharSequence s) {
 		for (int i = s.length() - 2; i >= 0; i--) {
 			if (s.charAt(i) == ChatColor.COLOR_CHAR) {
@@ -430,6 +475,15 @@ public class VariableString implements Expression<String> {
 		return b.toString();
 	}
 	
+	/**
+	 * @return The text before the first expression of this string, or the whole string if it is simple
+	 */
+	public String getPrefix() {
+		if (isSimple)
+			return simple;
+		return string.length != 0 && string[0] instanceof String ? (String) string[0] : "";
+	}
+	
 	public boolean isSimple() {
 		return isSimple;
 	}
@@ -557,8 +611,13 @@ public class VariableString implements Expression<String> {
 		return e;
 	}
 	
+	/**
+	 * Strings without expressions are replaced with a {@link ConstantExpression}, as their string mode doesn't matter either (see {@link #setMode(StringMode)}).
+	 */
 	@Override
 	public Expression<String> simplify() {
+		if (isSimple)
+			return new ConstantExpression<String>(simple);
 		return this;
 	}
 	
@@ -0,0 +1,106 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.lang.util;
+
+import java.lang.reflect.Array;
+
+import org.bukkit.event.Event;
+
+import ch.njol.skript.classes.Changer.ChangeMode;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.NumberExpression;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.util.Kleenean;
+
+/**
+ * The value of an expression that only depends on constants, e.g. <tt>2 * 3</tt>, which is calculated once when the script is loaded.
+ * <p>
+ * This is intentionally not a {@link Literal}: many syntax elements check whether their arguments are literals to tell apart what the user
+ * actually wrote (e.g. <tt>2 of stone</tt> is an item type, while <tt>(1 + 1) of stone</tt> is not), thus simplifying an expression must not turn
+ * it into a literal.
+ * 
+ * @author Peter Güttinger
+ * @see SimpleExpression#isConstant(Expression)
+ */
+@SuppressWarnings("serial")
+public class ConstantExpression<T> extends SimpleExpression<T> implements NumberExpression {
+	
+	private final T[] data;
+	
+	@SuppressWarnings("unchecked")
+	public ConstantExpression(final T value) {
+		assert value != null;
+		data = (T[]) Array.newInstance(value.getClass(), 1);
+		data[0] = value;
+	}
+	
+	@Override
+	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	protected T[] get(final Event e) {
+		return data;
+	}
+	
+	@Override
+	public double getDouble(final Event e, final double ifNone) {
+		return data[0] instanceof Number ? ((Number) data[0]).doubleValue() : ifNone;
+	}
+	
+	@Override
+	public long getLong(final Event e, final long ifNone) {
+		return data[0] instanceof Number ? ((Number) data[0]).longValue() : ifNone;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public Class<? extends T> getReturnType() {
+		return (Class<? extends T>) data.getClass().getComponentType();
+	}
+	
+	@Override
+	public boolean isSingle() {
+		return true;
+	}
+	
+	@Override
+	public Class<?>[] acceptChange(final ChangeMode mode) {
+		return null;
+	}
+	
+	@Override
+	public boolean setTime(final int time) {
+		return false;
+	}
+	
+	@Override
+	public String toString(final Event e, final boolean debug) {
+		if (debug)
+			return "[" + Classes.toString(data[0]) + "]";
+		return Classes.toString(data[0]);
+	}
+	
+}
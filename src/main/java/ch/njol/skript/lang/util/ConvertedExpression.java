@@ -31,6 +31,7 @@ import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.classes.Converter;
 import ch.njol.skript.classes.SerializableConverter;
 import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.registrations.Converters;
@@ -231,10 +232,23 @@ public class ConvertedExpression<F, T> implements Expression<T> {
 		return source;
 	}
 	
+	/**
+	 * Converts literals and constants once instead of whenever they're used
+	 */
 	@SuppressWarnings("unchecked")
 	@Override
 	public Expression<? extends T> simplify() {
-		return source.simplify().getConvertedExpression(to);
+		source = source.simplify();
+		if (source instanceof Literal) {
+			final Expression<? extends T> l = source.getConvertedExpression(to);
+			if (l != null)
+				return l;
+		} else if (source instanceof ConstantExpression) {
+			final T t = conv.convert(source.getSingle(null));
+			if (t != null)
+				return new ConstantExpression<T>(t);
+		}
+		return this;
 	}
 	
 }
@@ -85,6 +85,11 @@ public class ConvertedLiteral<F, T> extends ConvertedExpression<F, T> implements
 		return ((Literal<F>) source).getConvertedExpression(to);
 	}
 	
+	@Override
+	public Literal<T> simplify() {
+		return this;
+	}
+	
 	@Override
 	public String toString(final Event e, final boolean debug) {
 		return Classes.toString(data, getAnd());
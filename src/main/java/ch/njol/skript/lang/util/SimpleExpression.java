@@ -35,6 +35,9 @@ import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.classes.Converter;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.NumberExpression;
+import ch.njol.skript.lang.UnparsedLiteral;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.util.Utils;
 import ch.njol.util.Checker;
@@ -169,6 +172,52 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 		return and;
 	}
 	
+	/**
+	 * Gets the single value of a number expression without boxing it if the expression is a {@link NumberExpression}.
+	 * 
+	 * @param expr A single expression
+	 * @param e
+	 * @param ifNone The value to return if the expression has no value or its value is not a number
+	 * @return The expression's value as double, or <tt>ifNone</tt>
+	 */
+	public final static double getDouble(final Expression<?> expr, final Event e, final double ifNone) {
+		if (expr instanceof NumberExpression)
+			return ((NumberExpression) expr).getDouble(e, ifNone);
+		final Object o = expr.getSingle(e);
+		return o instanceof Number ? ((Number) o).doubleValue() : ifNone;
+	}
+	
+	/**
+	 * Gets the single value of a number expression without boxing it if the expression is a {@link NumberExpression}.
+	 * 
+	 * @param expr A single expression
+	 * @param e
+	 * @param ifNone The value to return if the expression has no value or its value is not a number
+	 * @return The expression's value as long, or <tt>ifNone</tt>
+	 */
+	public final static long getLong(final Expression<?> expr, final Event e, final long ifNone) {
+		if (expr instanceof NumberExpression)
+			return ((NumberExpression) expr).getLong(e, ifNone);
+		final Object o = expr.getSingle(e);
+		return o instanceof Number ? ((Number) o).longValue() : ifNone;
+	}
+	
+	/**
+	 * Used by {@link Expression#simplify()} to determine whether an expression can be replaced with its value.
+	 * 
+	 * @param expr
+	 * Default expressions are never constant even if they are literals, as most default expressions depend on the event.
+	 * 
+	 * @param expr
+	 * @return Whether the given expression is a literal or {@link ConstantExpression} that always has the same, single value, i.e. whose value can be calculated
+	 *         when the script is loaded
+	 */
+	public final static boolean isConstant(final Expression<?> expr) {
+		if (expr instanceof ConstantExpression)
+			return true;
+		return expr instanceof Literal && !(expr instanceof UnparsedLiteral) && !expr.isDefault() && ((Literal<?>) expr).getAll().length == 1;
+	}
+	
 	/**
 	 * Converts this expression to another type. Unless the expression is special, the default implementation is sufficient.
 	 * <p>
@@ -219,7 +268,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	 */
 	@Override
 	public boolean setTime(final int time) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
@@ -228,7 +277,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	}
 	
 	protected final boolean setTime(final int time, final Class<? extends Event> applicableEvent, final Expression<?>... mustbeDefaultVars) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
@@ -244,7 +293,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	}
 	
 	protected final boolean setTime(final int time, final Expression<?> mustbeDefaultVar, final Class<? extends Event>... applicableEvents) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
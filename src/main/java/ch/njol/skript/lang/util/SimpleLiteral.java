@@ -35,6 +35,7 @@ import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.lang.DefaultExpression;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.UnparsedLiteral;
 import ch.njol.skript.registrations.Classes;
@@ -54,7 +55,7 @@ import ch.njol.util.coll.iterator.NonNullIterator;
  * @see UnparsedLiteral
  */
 @SuppressWarnings("serial")
-public class SimpleLiteral<T> implements Literal<T>, DefaultExpression<T> {
+public class SimpleLiteral<T> implements Literal<T>, DefaultExpression<T>, NumberExpression {
 	
 	protected final Class<T> c;
 	
@@ -151,6 +152,18 @@ public class SimpleLiteral<T> implements Literal<T>, DefaultExpression<T> {
 		return getSingle();
 	}
 	
+	@Override
+	public double getDouble(final Event e, final double ifNone) {
+		final T t = data.length == 1 ? data[0] : getSingle();
+		return t instanceof Number ? ((Number) t).doubleValue() : ifNone;
+	}
+	
+	@Override
+	public long getLong(final Event e, final long ifNone) {
+		final T t = data.length == 1 ? data[0] : getSingle();
+		return t instanceof Number ? ((Number) t).longValue() : ifNone;
+	}
+	
 	@Override
 	public Class<T> getReturnType() {
 		return c;
@@ -122,6 +122,14 @@ public class RetainingLogHandler extends LogHandler {
 		SkriptLogger.logAll(log);
 	}
 	
+	/**
+	 * Stops this handler without printing anything. Used if the log is printed later on, possibly by another thread, with {@link #printLog()}.
+	 */
+	public final void stopRetaining() {
+		printedErrorOrLog = true;
+		stop();
+	}
+	
 	public boolean hasErrors() {
 		return numErrors != 0;
 	}
@@ -49,6 +49,32 @@ public abstract class SkriptLogger {
 	
 	private final static HandlerList handlers = new HandlerList();
 	
+	/**
+	 * The log handlers and node of a thread that parses scripts in parallel to the main thread, see {@link #startSeparateLog()}.
+	 */
+	private final static class SeparateLog {
+		final HandlerList handlers = new HandlerList();
+		Node node = null;
+	}
+	
+	/**
+	 * Null for all threads that share the log handlers and node of the main thread, i.e. all threads except the script loader threads.
+	 */
+	private final static ThreadLocal<SeparateLog> separateLog = new ThreadLocal<SeparateLog>();
+	
+	/**
+	 * Gives the calling thread its own log handlers and node, so that scripts can be parsed by multiple threads without mixing up their logs. Only used by
+	 * the threads that load scripts in parallel to the main thread.
+	 */
+	public final static void startSeparateLog() {
+		separateLog.set(new SeparateLog());
+	}
+	
+	private final static HandlerList handlers() {
+		final SeparateLog l = separateLog.get();
+		return l == null ? handlers : l.handlers;
+	}
+	
 	/**
 	 * Shorthand for <tt>{@link #startLogHandler(LogHandler) startLogHandler}(new {@link RetainingLogHandler}());</tt>
 	 * 
@@ -92,11 +118,12 @@ public abstract class SkriptLogger {
 	 * @see RedirectingLogHandler
 	 */
 	public final static <T extends LogHandler> T startLogHandler(final T h) {
-		handlers.add(h);
+		handlers().add(h);
 		return h;
 	}
 	
 	final static void removeHandler(final LogHandler h) {
+		final HandlerList handlers = handlers();
 		if (!handlers.contains(h))
 			return;
 		if (!h.equals(handlers.remove())) {
@@ -108,7 +135,7 @@ public abstract class SkriptLogger {
 	}
 	
 	final static boolean isStopped(final LogHandler h) {
-		return !handlers.contains(h);
+		return !handlers().contains(h);
 	}
 	
 	final static StackTraceElement getCaller() {
@@ -126,11 +153,16 @@ public abstract class SkriptLogger {
 	}
 	
 	public static void setNode(final Node node) {
-		SkriptLogger.node = node == null || node.getParent() == null ? null : node;
+		final SeparateLog l = separateLog.get();
+		if (l == null)
+			SkriptLogger.node = node == null || node.getParent() == null ? null : node;
+		else
+			l.node = node == null || node.getParent() == null ? null : node;
 	}
 	
 	public static Node getNode() {
-		return node;
+		final SeparateLog l = separateLog.get();
+		return l == null ? node : l.node;
 	}
 	
 	/**
@@ -152,15 +184,16 @@ public abstract class SkriptLogger {
 	 * @see Skript#debug()
 	 */
 	public static void log(final Level level, final String message) {
-		log(new LogEntry(level, message, node));
+		log(new LogEntry(level, message, getNode()));
 	}
 	
 	public static void log(final LogEntry entry) {
 		if (entry == null)
 			return;
+		final Node node = getNode();
 		if (Skript.testing() && node != null && node.debug())
 			System.out.print("---> " + entry.level + ": " + entry.getMessage() + " ::" + LogEntry.findCaller());
-		for (final LogHandler h : handlers) {
+		for (final LogHandler h : handlers()) {
 			if (!h.log(entry))
 				return;
 		}
@@ -168,6 +201,7 @@ public abstract class SkriptLogger {
 	}
 	
 	public static void logAll(final Collection<LogEntry> entries) {
+		final HandlerList handlers = handlers();
 		outer: for (final LogEntry entry : entries) {
 			assert entry != null;
 			for (final LogHandler h : handlers) {
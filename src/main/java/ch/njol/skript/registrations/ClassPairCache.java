@@ -0,0 +1,84 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.registrations;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache of values that are looked up by a pair of classes, e.g. converters and comparators. Lookups don't allocate any objects and can be done from any
+ * thread, e.g. by scripts that are parsed concurrently or by triggers of asynchronous events.
+ * <p>
+ * Null values can be cached as well to remember that no value exists for a pair of classes.
+ * 
+ * @author Peter Güttinger
+ */
+final class ClassPairCache<V> {
+	
+	/**
+	 * Returned by {@link #get(Class, Class)} if no value is cached for the given classes
+	 */
+	final static Object UNKNOWN = new Object();
+	
+	/**
+	 * Stored instead of null as concurrent maps don't allow null values
+	 */
+	private final static Object NULL = new Object();
+	
+	private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> cache = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Object>>();
+	
+	/**
+	 * @param c1
+	 * @param c2
+	 * @return The cached value, which can be null, or {@link #UNKNOWN} if nothing is cached for the given classes
+	 */
+	final Object get(final Class<?> c1, final Class<?> c2) {
+		final ConcurrentMap<Class<?>, Object> m = cache.get(c1);
+		if (m == null)
+			return UNKNOWN;
+		final Object v = m.get(c2);
+		if (v == null)
+			return UNKNOWN;
+		return v == NULL ? null : v;
+	}
+	
+	/**
+	 * @param c1
+	 * @param c2
+	 * @param value The value to cache, or null to cache that there is no value for the given classes
+	 */
+	final void put(final Class<?> c1, final Class<?> c2, final V value) {
+		ConcurrentMap<Class<?>, Object> m = cache.get(c1);
+		if (m == null) {
+			final ConcurrentMap<Class<?>, Object> n = new ConcurrentHashMap<Class<?>, Object>();
+			m = cache.putIfAbsent(c1, n);
+			if (m == null)
+				m = n;
+		}
+		m.put(c2, value == null ? NULL : value);
+	}
+	
+	final void clear() {
+		cache.clear();
+	}
+	
+}
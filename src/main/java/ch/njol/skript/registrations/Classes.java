@@ -34,7 +34,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.bukkit.Bukkit;
@@ -72,7 +74,7 @@ public abstract class Classes {
 	private static ClassInfo<?>[] classInfos = null;
 	private final static List<ClassInfo<?>> tempClassInfos = new ArrayList<ClassInfo<?>>();
 	private final static HashMap<Class<?>, ClassInfo<?>> exactClassInfos = new HashMap<Class<?>, ClassInfo<?>>();
-	private final static HashMap<Class<?>, ClassInfo<?>> superClassInfos = new HashMap<Class<?>, ClassInfo<?>>();
+	private final static Map<Class<?>, ClassInfo<?>> superClassInfos = new ConcurrentHashMap<Class<?>, ClassInfo<?>>();
 	private final static HashMap<String, ClassInfo<?>> classInfosByCodeName = new HashMap<String, ClassInfo<?>>();
 	
 	/**
@@ -475,6 +477,94 @@ public abstract class Classes {
 		}
 	}
 	
+	/**
+	 * Gets a parser that parses strings like {@link #parse(String, Class, ParseContext)}, but only looks up the parsers and converters that can be used for the
+	 * given type and context once instead of every time a string is parsed. The returned parser's toString methods use the parser of the class info of the
+	 * given object, like {@link #toString(Object)}.
+	 * <p>
+	 * Unlike {@link #parse(String, Class, ParseContext)} the returned parser does not start any log handlers, thus errors of failed attempts are logged to the
+	 * caller's log handler.
+	 * 
+	 * @param c
+	 * @param context
+	 * @return A parser which returns null for any input if there is no way to parse the given type
+	 */
+	@SuppressWarnings("unchecked")
+	public final static <T> Parser<? extends T> getCombinedParser(final Class<T> c, final ParseContext context) {
+		checkAllowClassInfoInteraction();
+		final List<Parser<?>> parsers = getSimpleParsers(c, context);
+		for (final ConverterInfo<?, ?> conv : Converters.getConverters()) {
+			if (context == ParseContext.COMMAND && (conv.options & Converter.NO_COMMAND_ARGUMENTS) != 0)
+				continue;
+			if (c.isAssignableFrom(conv.to)) {
+				final List<Parser<?>> ps = getSimpleParsers(conv.from, context);
+				if (!ps.isEmpty())
+					parsers.add(createConvertedParser(ps.size() == 1 ? ps.get(0) : createCombinedParser(conv.from, ps.toArray(new Parser[ps.size()])), conv.converter));
+			}
+		}
+		return (Parser<? extends T>) createCombinedParser(c, parsers.toArray(new Parser[parsers.size()]));
+	}
+	
+	/**
+	 * @return The parsers {@link #parseSimple(String, Class, ParseContext)} tries in the order it tries them
+	 */
+	private final static List<Parser<?>> getSimpleParsers(final Class<?> c, final ParseContext context) {
+		final List<Parser<?>> r = new ArrayList<Parser<?>>();
+		for (final ClassInfo<?> info : classInfos) {
+			if (info.getParser() == null || !info.getParser().canParse(context) || !c.isAssignableFrom(info.getC()))
+				continue;
+			r.add(info.getParser());
+		}
+		return r;
+	}
+	
+	/**
+	 * @param c The type of the objects returned by the given parsers
+	 * @param parsers
+	 * @return A parser that returns the first result of the given parsers. Its other methods use the parser of the class info the object belongs to.
+	 */
+	private final static Parser<?> createCombinedParser(final Class<?> c, final Parser<?>[] parsers) {
+		return new Parser<Object>() {
+			@Override
+			public Object parse(final String s, final ParseContext context) {
+				for (final Parser<?> p : parsers) {
+					final Object o = p.parse(s, context);
+					if (o != null)
+						return o;
+				}
+				return null;
+			}
+			
+			@Override
+			public String toString(final Object o, final int flags) {
+				return Classes.toString(o, StringMode.MESSAGE, flags);
+			}
+			
+			@Override
+			public String toVariableNameString(final Object o) {
+				return Classes.toString(o, StringMode.VARIABLE_NAME, 0);
+			}
+			
+			/**
+			 * Matches the variable names of all class infos that {@link Classes#toString(Object)} may choose for an object of the given type
+			 */
+			@Override
+			public String getVariableNamePattern() {
+				final StringBuilder b = new StringBuilder("(?:");
+				boolean first = true;
+				for (final ClassInfo<?> ci : classInfos) {
+					if (ci.getParser() == null || !c.isAssignableFrom(ci.getC()) && !ci.getC().isAssignableFrom(c))
+						continue;
+					if (!first)
+						b.append('|');
+					b.append(ci.getParser().getVariableNamePattern());
+					first = false;
+				}
+				return b.append(')').toString();
+			}
+		};
+	}
+	
 	private final static <F, T> Parser<T> createConvertedParser(final Parser<?> parser, final Converter<F, T> converter) {
 		return new Parser<T>() {
 			@SuppressWarnings("unchecked")
@@ -670,8 +760,18 @@ public abstract class Classes {
 		return deserialize(ci, new ByteArrayInputStream(value));
 	}
 	
+	/**
+	 * Deserialises an object.
+	 * <p>
+	 * This method must only be called from Bukkits main thread unless the type's serializer does not {@link ch.njol.skript.classes.Serializer#mustSyncDeserialization() require
+	 * synchronous deserialisation}.
+	 * 
+	 * @param type
+	 * @param value
+	 * @return Deserialised value or null if the input is invalid
+	 */
 	public final static Object deserialize(final ClassInfo<?> type, InputStream value) {
-		assert Bukkit.isPrimaryThread();
+		assert Bukkit.isPrimaryThread() || type.getSerializer() != null && !type.getSerializer().mustSyncDeserialization();
 		YggdrasilInputStream in = null;
 		try {
 			value = new SequenceInputStream(new ByteArrayInputStream(getYggdrasilStart(type)), value);
@@ -23,8 +23,6 @@ package ch.njol.skript.registrations;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.classes.Comparator;
@@ -32,7 +30,6 @@ import ch.njol.skript.classes.Comparator.ComparatorInfo;
 import ch.njol.skript.classes.Comparator.Relation;
 import ch.njol.skript.classes.Converter;
 import ch.njol.skript.classes.InverseComparator;
-import ch.njol.util.Pair;
 
 /**
  * @author Peter Güttinger
@@ -79,15 +76,19 @@ public class Comparators {
 		return javaComparator;
 	}
 	
-	private final static Map<Pair<Class<?>, Class<?>>, Comparator<?, ?>> comparatorsQuickAccess = new HashMap<Pair<Class<?>, Class<?>>, Comparator<?, ?>>();
+	/**
+	 * Caches the comparators that have been looked up, including nonexistent ones
+	 */
+	private final static ClassPairCache<Comparator<?, ?>> comparatorsQuickAccess = new ClassPairCache<Comparator<?, ?>>();
 	
 	@SuppressWarnings("unchecked")
 	public final static <F, S> Comparator<? super F, ? super S> getComparator(final Class<F> f, final Class<S> s) {
-		final Pair<Class<?>, Class<?>> p = new Pair<Class<?>, Class<?>>(f, s);
-		if (comparatorsQuickAccess.containsKey(p))
-			return (Comparator<? super F, ? super S>) comparatorsQuickAccess.get(p);
+		final Object cached = comparatorsQuickAccess.get(f, s);
+		if (cached != ClassPairCache.UNKNOWN)
+			return (Comparator<? super F, ? super S>) cached;
 		final Comparator<?, ?> comp = getComparator_i(f, s);
-		comparatorsQuickAccess.put(p, comp);
+		if (!Skript.isAcceptRegistrations()) // more comparators or converters might be registered
+			comparatorsQuickAccess.put(f, s, comp);
 		return (Comparator<? super F, ? super S>) comp;
 	}
 	
@@ -25,9 +25,7 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.classes.ChainedConverter;
@@ -35,7 +33,6 @@ import ch.njol.skript.classes.Converter;
 import ch.njol.skript.classes.Converter.ConverterInfo;
 import ch.njol.skript.classes.Converter.ConverterUtils;
 import ch.njol.skript.classes.SerializableConverter;
-import ch.njol.util.Pair;
 
 /**
  * @author Peter Güttinger
@@ -89,6 +86,7 @@ public abstract class Converters {
 				}
 			}
 		}
+		convertersQuickAccess.clear();
 	}
 	
 	private final static boolean converterExistsSlow(final Class<?> from, final Class<?> to) {
@@ -200,7 +198,10 @@ public abstract class Converters {
 		return l.toArray((T[]) Array.newInstance(superType, l.size()));
 	}
 	
-	private final static Map<Pair<Class<?>, Class<?>>, SerializableConverter<?, ?>> convertersQuickAccess = new HashMap<Pair<Class<?>, Class<?>>, SerializableConverter<?, ?>>();
+	/**
+	 * Caches the converters that have been looked up, including nonexistent ones
+	 */
+	private final static ClassPairCache<SerializableConverter<?, ?>> convertersQuickAccess = new ClassPairCache<SerializableConverter<?, ?>>();
 	
 	/**
 	 * Tests whether a converter between the given classes exists.
@@ -232,13 +233,15 @@ public abstract class Converters {
 	 * @param to
 	 * @return the converter or null if none exist
 	 */
+	@SuppressWarnings("unchecked")
 	public final static <F, T> SerializableConverter<? super F, ? extends T> getConverter(final Class<F> from, final Class<T> to) {
 		assert from != null && to != null;
-		final Pair<Class<?>, Class<?>> p = new Pair<Class<?>, Class<?>>(from, to);
-		if (convertersQuickAccess.containsKey(p)) // can contain null to denote nonexistence of a converter
-			return (SerializableConverter<? super F, ? extends T>) convertersQuickAccess.get(p);
+		final Object cached = convertersQuickAccess.get(from, to);
+		if (cached != ClassPairCache.UNKNOWN)
+			return (SerializableConverter<? super F, ? extends T>) cached;
 		final SerializableConverter<? super F, ? extends T> c = getConverter_i(from, to);
-		convertersQuickAccess.put(p, c);
+		if (!Skript.isAcceptRegistrations()) // more converters might be registered
+			convertersQuickAccess.put(from, to, c);
 		return c;
 	}
 	
@@ -130,10 +130,20 @@ public class EventValues {
 		return g.get(e);
 	}
 	
+	/**
+	 * The getters returned by {@link #getEventValueGetter(Class, Class, int)} for each time state, event class and value class. Contains the
+	 * {@link EventValueInfo} that blocks the event value if the value is excluded for an event. Only filled once registrations are closed.
+	 */
+	@SuppressWarnings("unchecked")
+	private final static ClassPairCache<Object>[] resolvedGetters = new ClassPairCache[] {new ClassPairCache<Object>(), new ClassPairCache<Object>(), new ClassPairCache<Object>()};
+	
 	/**
 	 * Returns a getter to get a value from an event.
 	 * <p>
 	 * Can print an error if the event value is blocked for the given event.
+	 * <p>
+	 * The getter is only looked up once for each event class, value class and time, thus this can also be used to get event values of events whose class is
+	 * only known at runtime.
 	 * 
 	 * @param e
 	 * @param c
@@ -143,83 +153,129 @@ public class EventValues {
 	 * @see EventValueExpression#EventValueExpression(Class)
 	 */
 	public final static <T, E extends Event> SerializableGetter<? extends T, ? super E> getEventValueGetter(final Class<E> e, final Class<T> c, final int time) {
-		return EventValues.getEventValueGetter(e, c, time, true);
+		getEventValuesList(time); // checks time
+		final ClassPairCache<Object> cache = resolvedGetters[time + 1];
+		Object g = cache.get(e, c);
+		if (g == ClassPairCache.UNKNOWN) {
+			g = resolveEventValueGetter(e, c, time, true);
+			if (!Skript.isAcceptRegistrations())
+				cache.put(e, c, g);
+		}
+		return getterOrError(g);
+	}
+	
+	/**
+	 * Returns a getter that can be used for events of exactly the given class. If the given getter was returned for a superclass of the event and thus checks
+	 * the class of every event it is used for, this returns the getter without this check.
+	 * 
+	 * @param g A getter returned by {@link #getEventValueGetter(Class, Class, int)}
+	 * @param e The class of the events the returned getter will be used for
+	 * @return A getter for the given class of events, or null if the given getter always returns null for such events
+	 */
+	@SuppressWarnings("unchecked")
+	public final static <T, E extends Event> SerializableGetter<? extends T, ? super E> getExactGetter(final SerializableGetter<? extends T, ?> g, final Class<E> e) {
+		if (g instanceof CheckedGetter)
+			return ((CheckedGetter<?, ?>) g).event.isAssignableFrom(e) ? ((CheckedGetter<? extends T, ? super E>) g).getter : null;
+		return (SerializableGetter<? extends T, ? super E>) g;
 	}
 	
+	@SuppressWarnings("unchecked")
+	private final static <T, E extends Event> SerializableGetter<? extends T, ? super E> getterOrError(final Object g) {
+		if (g instanceof EventValueInfo) {
+			Skript.error(((EventValueInfo<?, ?>) g).excludeErrorMessage);
+			return null;
+		}
+		return (SerializableGetter<? extends T, ? super E>) g;
+	}
+	
+	/**
+	 * Wraps the getter of a subclass of the event an event value is requested for, and returns null for events that are not of that subclass.
+	 */
+	@SuppressWarnings("serial")
+	private final static class CheckedGetter<T, E extends Event> extends SerializableGetter<T, Event> {
+		final Class<E> event;
+		final SerializableGetter<? extends T, ? super E> getter;
+		
+		CheckedGetter(final Class<E> event, final SerializableGetter<? extends T, ? super E> getter) {
+			this.event = event;
+			this.getter = getter;
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public T get(final Event e) {
+			if (!event.isInstance(e))
+				return null;
+			return getter.get((E) e);
+		}
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private final static SerializableGetter<?, ?> checked(final EventValueInfo<?, ?> ev, final boolean check, final SerializableGetter<?, ?> getter) {
+		return check ? new CheckedGetter(ev.event, getter) : getter;
+	}
+	
+	/**
+	 * @return The getter, null if there is none, or the {@link EventValueInfo} that blocks the event value for the given event
+	 */
 	@SuppressWarnings({"unchecked", "serial"})
-	private final static <T, E extends Event> SerializableGetter<? extends T, ? super E> getEventValueGetter(final Class<E> e, final Class<T> c, final int time, final boolean allowDefault) {
+	private final static <T, E extends Event> Object resolveEventValueGetter(final Class<E> e, final Class<T> c, final int time, final boolean allowDefault) {
 		final List<EventValueInfo<?, ?>> eventValues = getEventValuesList(time);
 		boolean b;
 		for (final EventValueInfo<?, ?> ev : eventValues) {
 			if (((b = ev.event.isAssignableFrom(e)) || e.isAssignableFrom(ev.event)) && c.isAssignableFrom(ev.c)) {
-				if (!EventValues.checkExcludes(ev, e))
-					return null;
-				if (b)
-					return (SerializableGetter<? extends T, ? super E>) ev.getter;
-				return new SerializableGetter<T, E>() {
-					@Override
-					public T get(final E event) {
-						if (!ev.event.isInstance(event))
-							return null;
-						return ((SerializableGetter<? extends T, E>) ev.getter).get(event);
-					}
-				};
+				if (isExcluded(ev, e))
+					return ev;
+				return checked(ev, !b, ev.getter);
 			}
 		}
 		for (final EventValueInfo<?, ?> ev : eventValues) {
 			if (((b = ev.event.isAssignableFrom(e)) || e.isAssignableFrom(ev.event)) && ev.c.isAssignableFrom(c)) {
-				if (!EventValues.checkExcludes(ev, e))
-					return null;
-				final boolean checkInstanceOf = !b;
-				return new SerializableGetter<T, E>() {
+				if (isExcluded(ev, e))
+					return ev;
+				return checked(ev, !b, new SerializableGetter<T, E>() {
 					@Override
 					public T get(final E event) {
-						if (checkInstanceOf && !e.isInstance(event))
-							return null;
-						final Object o = ((Getter<? super T, ? super E>) ev.getter).get(event);
+						final Object o = ((Getter<?, ? super E>) ev.getter).get(event);
 						if (c.isInstance(o))
 							return (T) o;
 						return null;
 					}
-				};
+				});
 			}
 		}
 		for (final EventValueInfo<?, ?> ev : eventValues) {
 			if ((b = ev.event.isAssignableFrom(e)) || e.isAssignableFrom(ev.event)) {
-				if (!EventValues.checkExcludes(ev, e))
-					return null;
-				final SerializableGetter<? extends T, ? super E> g = (SerializableGetter<? extends T, ? super E>) getConvertedGetter(ev, c, !b);
+				if (isExcluded(ev, e))
+					return ev;
+				final SerializableGetter<? extends T, ?> g = getConvertedGetter(ev, c);
 				if (g != null)
-					return g;
+					return checked(ev, !b, g);
 			}
 		}
 		if (allowDefault && time != 0)
-			return getEventValueGetter(e, c, 0, false);
+			return resolveEventValueGetter(e, c, 0, false);
 		return null;
 	}
 	
-	private final static boolean checkExcludes(final EventValueInfo<?, ?> ev, final Class<? extends Event> e) {
+	private final static boolean isExcluded(final EventValueInfo<?, ?> ev, final Class<? extends Event> e) {
 		if (ev.exculdes == null)
-			return true;
+			return false;
 		for (final Class<? extends Event> excl : ev.exculdes) {
-			if (excl.isAssignableFrom(e)) {
-				Skript.error(ev.excludeErrorMessage);
-				return false;
-			}
+			if (excl.isAssignableFrom(e))
+				return true;
 		}
-		return true;
+		return false;
 	}
 	
 	@SuppressWarnings("serial")
-	private final static <E extends Event, F, T> SerializableGetter<? extends T, ? super E> getConvertedGetter(final EventValueInfo<E, F> i, final Class<T> to, final boolean checkInstanceOf) {
+	private final static <E extends Event, F, T> SerializableGetter<? extends T, ? super E> getConvertedGetter(final EventValueInfo<E, F> i, final Class<T> to) {
 		final Converter<? super F, ? extends T> c = Converters.getConverter(i.c, to);
 		if (c == null)
 			return null;
 		return new SerializableGetter<T, E>() {
 			@Override
 			public T get(final E e) {
-				if (checkInstanceOf && !i.event.isInstance(e))
-					return null;
 				final F f = i.getter.get(e);
 				if (f == null)
 					return null;
@@ -229,7 +285,7 @@ public class EventValues {
 	}
 	
 	public final static boolean doesEventValueHaveTimeStates(final Class<? extends Event> e, final Class<?> c) {
-		return getEventValueGetter(e, c, -1, false) != null || getEventValueGetter(e, c, 1, false) != null;
+		return getterOrError(resolveEventValueGetter(e, c, -1, false)) != null || getterOrError(resolveEventValueGetter(e, c, 1, false)) != null;
 	}
 	
 }
@@ -22,7 +22,6 @@
 package ch.njol.skript.util;
 
 import java.util.Iterator;
-import java.util.NoSuchElementException;
 
 import org.bukkit.Chunk;
 import org.bukkit.Location;
@@ -100,46 +99,25 @@ public class AABB implements Iterable<Block> {
 	}
 	
 	/**
-	 * Returns an iterator which iterates over all blocks that are
+	 * Returns an iterator which iterates over all blocks that are completely within this box, chunk by chunk (see {@link ChunkedBlockIterator}).
 	 */
 	@Override
 	public Iterator<Block> iterator() {
-		return new Iterator<Block>() {
-			private final int minX = (int) Math.ceil(lowerBound.getX() - Skript.EPSILON),
-					minY = (int) Math.ceil(lowerBound.getY() - Skript.EPSILON),
-					minZ = (int) Math.ceil(lowerBound.getZ() - Skript.EPSILON);
-			private final int maxX = (int) Math.floor(upperBound.getX() + Skript.EPSILON) - 1,
-					maxY = (int) Math.floor(upperBound.getY() + Skript.EPSILON) - 1,
-					maxZ = (int) Math.floor(upperBound.getZ() + Skript.EPSILON) - 1;
-			
-			private int x = minX - 1,// next() increases x by one immediately
-					y = minY,
-					z = minZ;
-			
-			@Override
-			public boolean hasNext() {
-				return x < maxX || y < maxY || z < maxZ;
-			}
-			
+		final int minX = (int) Math.ceil(lowerBound.getX() - Skript.EPSILON),
+				minY = (int) Math.ceil(lowerBound.getY() - Skript.EPSILON),
+				minZ = (int) Math.ceil(lowerBound.getZ() - Skript.EPSILON);
+		final int maxX = (int) Math.floor(upperBound.getX() + Skript.EPSILON) - 1,
+				maxY = (int) Math.floor(upperBound.getY() + Skript.EPSILON) - 1,
+				maxZ = (int) Math.floor(upperBound.getZ() + Skript.EPSILON) - 1;
+		return new ChunkedBlockIterator(world, minX, minY, minZ, maxX, maxY, maxZ) {
 			@Override
-			public Block next() {
-				x++;
-				if (x > maxX) {
-					x = minX;
-					z++;
-					if (z > maxZ) {
-						z = minZ;
-						y++;
-					}
-				}
-				if (y > maxY)
-					throw new NoSuchElementException();
-				return world.getBlockAt(x, y, z);
+			protected int getRowStart(final int y, final int z) {
+				return minX;
 			}
 			
 			@Override
-			public void remove() {
-				throw new UnsupportedOperationException();
+			protected int getRowEnd(final int y, final int z) {
+				return maxX;
 			}
 		};
 	}
@@ -45,11 +45,13 @@ public class BlockLineIterator extends StoppableIterator<Block> {
 		super(new BlockIterator(start.getWorld(), fitInWorld(start.getLocation().add(0.5, 0.5, 0.5), end.getLocation().subtract(start.getLocation()).toVector()),
 				end.equals(start) ? new Vector(1, 0, 0) : end.getLocation().subtract(start.getLocation()).toVector(), 0, 0), // should prevent an error if start = end
 		new Checker<Block>() {
+			private final int x = start.getX(), y = start.getY(), z = start.getZ();
 			private final double overshotSq = Math.pow(start.getLocation().distance(end.getLocation()) + 2, 2);
 			
 			@Override
 			public boolean check(final Block b) {
-				if (b.getLocation().distanceSquared(start.getLocation()) > overshotSq)
+				final int dx = b.getX() - x, dy = b.getY() - y, dz = b.getZ() - z;
+				if (dx * dx + dy * dy + dz * dz > overshotSq)
 					throw new IllegalStateException("BlockLineIterator missed the end block!");
 				return b.equals(end);
 			}
@@ -64,11 +66,13 @@ public class BlockLineIterator extends StoppableIterator<Block> {
 	 */
 	public BlockLineIterator(final Location start, final Vector dir, final double dist) throws IllegalStateException {
 		super(new BlockIterator(start.getWorld(), fitInWorld(start, dir), dir, 0, 0), new Checker<Block>() {
+			private final double x = start.getX() - 0.5, y = start.getY() - 0.5, z = start.getZ() - 0.5;
 			private final double distSq = dist * dist;
 			
 			@Override
 			public boolean check(final Block b) {
-				return b.getLocation().add(0.5, 0.5, 0.5).distanceSquared(start) >= distSq;
+				final double dx = b.getX() - x, dy = b.getY() - y, dz = b.getZ() - z;
+				return dx * dx + dy * dy + dz * dz >= distSq;
 			}
 		}, false);
 	}
@@ -22,25 +22,81 @@
 package ch.njol.skript.util;
 
 import org.bukkit.Location;
-import org.bukkit.block.Block;
 
 import ch.njol.skript.Skript;
-import ch.njol.util.Checker;
-import ch.njol.util.coll.iterator.CheckedIterator;
 
 /**
+ * Iterates over all blocks whose centre is within a given radius around a location. The range of each row of the sphere is calculated when the row is
+ * reached, thus the distance doesn't have to be checked for every block, and the memory used does not depend on the radius.
+ * 
  * @author Peter Güttinger
  */
-public class BlockSphereIterator extends CheckedIterator<Block> {
+public class BlockSphereIterator extends ChunkedBlockIterator {
+	
+	private final double cx, cy, cz, rSquared;
+	
+	/**
+	 * The row that has last been calculated and its range of x coordinates. The range of a row is always requested by {@link #getRowStart(int, int)} and
+	 * {@link #getRowEnd(int, int)} in turn, thus it's only calculated once.
+	 */
+	private int rowY = Integer.MIN_VALUE, rowZ, rowStart, rowEnd;
 	
 	public BlockSphereIterator(final Location center, final double radius) {
-		super(new AABB(center, radius + 0.5001, radius + 0.5001, radius + 0.5001).iterator(), new Checker<Block>() {
-			private final double rSquared = radius * radius * Skript.EPSILON_MULT;
-			
-			@Override
-			public boolean check(final Block b) {
-				return center.distanceSquared(b.getLocation().add(0.5, 0.5, 0.5)) < rSquared;
-			}
-		});
+		super(center.getWorld(), (int) Math.floor(center.getX() - 0.5 - radius), (int) Math.floor(center.getY() - 0.5 - radius), (int) Math.floor(center.getZ() - 0.5 - radius),
+				(int) Math.ceil(center.getX() - 0.5 + radius), (int) Math.ceil(center.getY() - 0.5 + radius), (int) Math.ceil(center.getZ() - 0.5 + radius));
+		cx = center.getX();
+		cy = center.getY();
+		cz = center.getZ();
+		rSquared = radius * radius * Skript.EPSILON_MULT;
+	}
+	
+	private final void calculateRow(final int y, final int z) {
+		if (y == rowY && z == rowZ)
+			return;
+		rowY = y;
+		rowZ = z;
+		final double dy = cy - (y + 0.5), dz = cz - (z + 0.5);
+		final double yz = dy * dy + dz * dz;
+		if (yz >= rSquared) {
+			rowStart = EMPTY_ROW;
+			rowEnd = Integer.MIN_VALUE;
+			return;
+		}
+		final double dx = Math.sqrt(rSquared - yz);
+		int start = (int) Math.ceil(cx - 0.5 - dx), end = (int) Math.floor(cx - 0.5 + dx);
+		// corrects rounding errors of the square root, so that exactly the blocks with a distance less than the radius are included
+		while (start <= end && !contains(start, cx, yz, rSquared))
+			start++;
+		while (contains(start - 1, cx, yz, rSquared))
+			start--;
+		while (end >= start && !contains(end, cx, yz, rSquared))
+			end--;
+		while (contains(end + 1, cx, yz, rSquared))
+			end++;
+		if (start > end) {
+			rowStart = EMPTY_ROW;
+			rowEnd = Integer.MIN_VALUE;
+		} else {
+			rowStart = start;
+			rowEnd = end;
+		}
+	}
+	
+	private final static boolean contains(final int x, final double cx, final double yz, final double rSquared) {
+		final double dx = cx - (x + 0.5);
+		return dx * dx + yz < rSquared;
+	}
+	
+	@Override
+	protected int getRowStart(final int y, final int z) {
+		calculateRow(y, z);
+		return rowStart;
 	}
+	
+	@Override
+	protected int getRowEnd(final int y, final int z) {
+		calculateRow(y, z);
+		return rowEnd;
+	}
+	
 }
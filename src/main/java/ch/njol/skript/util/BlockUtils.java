@@ -22,6 +22,7 @@
 package ch.njol.skript.util;
 
 import java.util.Arrays;
+import java.util.Iterator;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -30,6 +31,8 @@ import org.bukkit.block.BlockFace;
 import org.bukkit.material.Directional;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.classes.Changer.ChangeMode;
+import ch.njol.skript.classes.data.DefaultChangers;
 import ch.njol.util.coll.CollectionUtils;
 
 /**
@@ -289,6 +292,32 @@ public abstract class BlockUtils {
 		return Arrays.asList(BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST);
 	}
 	
+	private final static int CHANGE_BATCH_SIZE = 1024;
+	
+	/**
+	 * Changes all blocks of the given iterator like {@link DefaultChangers#blockChanger}, but only ever holds a small batch of the blocks at once instead of
+	 * collecting them all into an array first, which makes a difference for large regions like spheres with a big radius.
+	 * 
+	 * @param blocks The blocks to change, may be null
+	 * @param delta
+	 * @param mode
+	 */
+	public static void changeAll(final Iterator<Block> blocks, final Object[] delta, final ChangeMode mode) {
+		if (blocks == null)
+			return;
+		final Block[] batch = new Block[CHANGE_BATCH_SIZE];
+		int n = 0;
+		while (blocks.hasNext()) {
+			batch[n++] = blocks.next();
+			if (n == batch.length) {
+				DefaultChangers.blockChanger.change(batch, delta, mode);
+				n = 0;
+			}
+		}
+		if (n != 0)
+			DefaultChangers.blockChanger.change(Arrays.copyOf(batch, n), delta, mode);
+	}
+	
 	/**
 	 * @param b A block
 	 * @return Location of the block, including it's direction
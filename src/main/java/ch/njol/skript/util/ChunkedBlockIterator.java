@@ -0,0 +1,169 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Iterates over the blocks of a region chunk by chunk, so that each chunk only has to be looked up once. The region is defined by its bounding box and the
+ * range of x coordinates in each row of blocks, thus any region that is convex along the x axis can be iterated, e.g. cuboids and spheres.
+ * <p>
+ * Only integer arithmetic is used while iterating, and no objects apart from the returned blocks are created.
+ * 
+ * @author Peter Güttinger
+ */
+public abstract class ChunkedBlockIterator implements Iterator<Block> {
+	
+	/**
+	 * Value of {@link #getRowStart(int, int)} for empty rows. {@link #getRowEnd(int, int)} must return {@link Integer#MIN_VALUE} for these rows.
+	 */
+	protected final static int EMPTY_ROW = Integer.MAX_VALUE;
+	
+	protected final World world;
+	/**
+	 * The bounding box of the region (inclusive). The y coordinates are limited to the world's height.
+	 */
+	protected final int minX, minY, minZ, maxX, maxY, maxZ;
+	
+	private final int minChunkX, maxChunkX, maxChunkZ;
+	
+	private int chunkX, chunkZ;
+	private Chunk chunk = null;
+	/**
+	 * The part of the bounding box in the current chunk
+	 */
+	private int chunkMinX, chunkMaxX, chunkMinZ, chunkMaxZ;
+	
+	private int x, y, z, rowEnd;
+	
+	private boolean ready = false, ended = false;
+	
+	protected ChunkedBlockIterator(final World world, final int minX, final int minY, final int minZ, final int maxX, final int maxY, final int maxZ) {
+		this.world = world;
+		this.minX = minX;
+		this.minY = Math.max(minY, 0);
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = Math.min(maxY, world.getMaxHeight() - 1);
+		this.maxZ = maxZ;
+		minChunkX = minX >> 4;
+		maxChunkX = maxX >> 4;
+		maxChunkZ = maxZ >> 4;
+		chunkX = minChunkX;
+		chunkZ = minZ >> 4;
+		ended = minX > maxX || this.minY > this.maxY || minZ > maxZ;
+		setChunkBounds();
+		// the first call to advance() starts with the first row
+		y = this.minY;
+		z = chunkMinZ - 1;
+		x = 0;
+		rowEnd = -1;
+	}
+	
+	/**
+	 * @param y
+	 * @param z
+	 * @return The lowest x coordinate of the region in the given row, or {@link #EMPTY_ROW} if the row is empty
+	 */
+	protected abstract int getRowStart(int y, int z);
+	
+	/**
+	 * @param y
+	 * @param z
+	 * @return The highest x coordinate of the region in the given row (inclusive), or {@link Integer#MIN_VALUE} if the row is empty
+	 */
+	protected abstract int getRowEnd(int y, int z);
+	
+	private final void setChunkBounds() {
+		chunkMinX = Math.max(minX, chunkX << 4);
+		chunkMaxX = Math.min(maxX, (chunkX << 4) + 15);
+		chunkMinZ = Math.max(minZ, chunkZ << 4);
+		chunkMaxZ = Math.min(maxZ, (chunkZ << 4) + 15);
+		chunk = null;
+	}
+	
+	/**
+	 * Moves to the next block of the region.
+	 * 
+	 * @return Whether there is a next block
+	 */
+	private final boolean advance() {
+		x++;
+		while (x > rowEnd) {
+			z++;
+			if (z > chunkMaxZ) {
+				z = chunkMinZ;
+				y++;
+				if (y > maxY) {
+					chunkX++;
+					if (chunkX > maxChunkX) {
+						chunkX = minChunkX;
+						chunkZ++;
+						if (chunkZ > maxChunkZ)
+							return false;
+					}
+					setChunkBounds();
+					y = minY;
+					z = chunkMinZ;
+				}
+			}
+			x = Math.max(getRowStart(y, z), chunkMinX);
+			rowEnd = Math.min(getRowEnd(y, z), chunkMaxX);
+		}
+		return true;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		if (ended)
+			return false;
+		if (!ready) {
+			if (!advance()) {
+				ended = true;
+				return false;
+			}
+			ready = true;
+		}
+		return true;
+	}
+	
+	@Override
+	public Block next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		ready = false;
+		if (chunk == null)
+			chunk = world.getChunkAt(chunkX, chunkZ);
+		return chunk.getBlock(x & 15, y, z & 15);
+	}
+	
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+	
+}
@@ -0,0 +1,129 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.entity.EntityData;
+
+/**
+ * Finds the entities within a radius or box by only looking at the entities of the loaded chunks overlapping the region. Unlike
+ * {@link Entity#getNearbyEntities(double, double, double)} this doesn't need an entity at the center, thus no entity has to be spawned to search around a
+ * location.
+ * <p>
+ * Entities are checked against the types' classes first, as this is cheaper than getting their locations.
+ * 
+ * @author Peter Güttinger
+ */
+public abstract class EntityLookup {
+	private EntityLookup() {}
+	
+	/**
+	 * If a region overlaps more chunks than this, all loaded chunks of the world are checked for whether they overlap the region instead of checking whether
+	 * each chunk of the region is loaded.
+	 */
+	private final static int MAX_CHUNKS = 1024;
+	
+	/**
+	 * Entities are only moved to another chunk when they are updated, thus they can be slightly outside of their chunk.
+	 */
+	private final static double CHUNK_MARGIN = 2;
+	
+	/**
+	 * @param center
+	 * @param radius
+	 * @param types
+	 * @return All entities of the given types whose location is within the given radius around the center
+	 */
+	public static List<Entity> getEntities(final Location center, final double radius, final EntityData<?>[] types) {
+		final double x = center.getX(), z = center.getZ();
+		return getEntities(center.getWorld(), x - radius, z - radius, x + radius, z + radius, center, radius * radius * Skript.EPSILON_MULT, null, types);
+	}
+	
+	/**
+	 * @param box
+	 * @param types
+	 * @return All entities of the given types whose location is within the given box
+	 */
+	public static List<Entity> getEntities(final AABB box, final EntityData<?>[] types) {
+		return getEntities(box.world, box.lowerBound.getX(), box.lowerBound.getZ(), box.upperBound.getX(), box.upperBound.getZ(), null, 0, box, types);
+	}
+	
+	private static List<Entity> getEntities(final World world, final double minX, final double minZ, final double maxX, final double maxZ,
+			final Location center, final double radiusSquared, final AABB box, final EntityData<?>[] types) {
+		final List<Entity> r = new ArrayList<Entity>();
+		if (types.length == 0)
+			return r;
+		final Class<?>[] classes = new Class<?>[types.length];
+		for (int i = 0; i < types.length; i++)
+			classes[i] = types[i].getType();
+		final Location l = new Location(world, 0, 0, 0);
+		
+		final int minCX = (int) Math.floor(minX - CHUNK_MARGIN) >> 4, minCZ = (int) Math.floor(minZ - CHUNK_MARGIN) >> 4;
+		final int maxCX = (int) Math.floor(maxX + CHUNK_MARGIN) >> 4, maxCZ = (int) Math.floor(maxZ + CHUNK_MARGIN) >> 4;
+		if ((long) (maxCX - minCX + 1) * (maxCZ - minCZ + 1) > MAX_CHUNKS) {
+			for (final Chunk c : world.getLoadedChunks()) {
+				if (minCX <= c.getX() && c.getX() <= maxCX && minCZ <= c.getZ() && c.getZ() <= maxCZ)
+					addEntities(c, classes, types, l, center, radiusSquared, box, r);
+			}
+		} else {
+			for (int cx = minCX; cx <= maxCX; cx++) {
+				for (int cz = minCZ; cz <= maxCZ; cz++) {
+					if (world.isChunkLoaded(cx, cz))
+						addEntities(world.getChunkAt(cx, cz), classes, types, l, center, radiusSquared, box, r);
+				}
+			}
+		}
+		return r;
+	}
+	
+	/**
+	 * @param l A location that is reused for the entities' locations
+	 */
+	private static void addEntities(final Chunk c, final Class<?>[] classes, final EntityData<?>[] types, final Location l,
+			final Location center, final double radiusSquared, final AABB box, final List<Entity> r) {
+		entities: for (final Entity e : c.getEntities()) {
+			int i = 0;
+			while (!classes[i].isInstance(e)) {
+				if (++i == classes.length)
+					continue entities;
+			}
+			e.getLocation(l);
+			if (box == null ? l.distanceSquared(center) > radiusSquared : !box.contains(l))
+				continue;
+			for (; i < types.length; i++) {
+				if (types[i].isInstance(e)) {
+					r.add(e);
+					break;
+				}
+			}
+		}
+	}
+	
+}
@@ -1,9 +1,13 @@
 package ch.njol.skript.util;
 
+import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
@@ -134,4 +138,60 @@ public abstract class Task implements Runnable {
 		return null;
 	}
 	
+	private final static Queue<FutureTask<?>> syncQueue = new ConcurrentLinkedQueue<FutureTask<?>>();
+	private final static AtomicBoolean syncQueueScheduled = new AtomicBoolean(false);
+	private final static Runnable syncQueueRunner = new Runnable() {
+		@Override
+		public void run() {
+			syncQueueScheduled.set(false); // calls queued from now on will schedule a new run, even if they are also run by this one
+			FutureTask<?> f;
+			while ((f = syncQueue.poll()) != null)
+				f.run();
+		}
+	};
+	
+	/**
+	 * Like {@link #callSync(Callable)}, but all calls made from other threads until the next tick are run by a single task instead of scheduling a task for
+	 * every call. Should be used for calls that are made frequently from asynchronous threads, e.g. for every chat message.
+	 * 
+	 * @param c The method
+	 * @return What the method returned or null if it threw an error or was stopped (usually due to the server shutting down)
+	 */
+	public final static <T> T callSyncBatched(final Callable<T> c) {
+		if (Bukkit.isPrimaryThread()) {
+			try {
+				return c.call();
+			} catch (final Exception e) {
+				Skript.exception(e);
+				return null;
+			}
+		}
+		final FutureTask<T> f = new FutureTask<T>(c);
+		syncQueue.add(f);
+		if (syncQueueScheduled.compareAndSet(false, true) && Bukkit.getScheduler().scheduleSyncDelayedTask(Skript.getInstance(), syncQueueRunner) == -1) {
+			syncQueueScheduled.set(false);
+			cancelSyncQueue();
+		}
+		try {
+			while (true) {
+				try {
+					return f.get();
+				} catch (final InterruptedException e) {}
+			}
+		} catch (final ExecutionException e) {
+			Skript.exception(e);
+		} catch (final CancellationException e) {} catch (final ThreadDeath e) {}// server shutting down
+		return null;
+	}
+	
+	/**
+	 * Cancels all calls queued by {@link #callSyncBatched(Callable)} that have not been run yet. Must be called when Skript is disabled, as the threads waiting
+	 * for the calls would otherwise wait forever.
+	 */
+	public final static void cancelSyncQueue() {
+		FutureTask<?> f;
+		while ((f = syncQueue.poll()) != null)
+			f.cancel(false);
+	}
+	
 }
@@ -0,0 +1,600 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.variables;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import org.bukkit.Bukkit;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.ExceptionUtils;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.Task;
+import ch.njol.util.Pair;
+
+/**
+ * Stores variables in a binary log file: every change is appended to the file as a record of the form
+ * <tt>[payload length: int][CRC32 of the payload: int][payload]</tt>, where the payload consists of the variable's name, whether it was deleted, and its type
+ * and serialised value if it wasn't. When loading, the records are replayed in order.
+ * <p>
+ * Records with an invalid length or checksum (e.g. a record that was only partially written when the server crashed) end the log, and are removed from the
+ * file by rewriting it after a backup has been made.
+ * <p>
+ * The file is compacted once it has grown to {@link #COMPACTION_FACTOR} times its size after the last compaction. The variables are serialised on the main
+ * thread, as their values may be changed by scripts at any time, but the new file is written by another thread. Changes are appended to the old file in the
+ * meantime and are copied to the new file at the end, which is the only part of a compaction that blocks saving.
+ * <p>
+ * If the file is a CSV file of a {@link FlatFileStorage} it will be converted to this format when loaded.
+ * 
+ * @author Peter Güttinger
+ */
+public class BinaryLogStorage extends VariablesStorage {
+	
+	private final static byte[] MAGIC = {'S', 'K', 'V', 'L'};
+	private final static int VERSION = 1;
+	private final static int HEADER_SIZE = MAGIC.length + 4;
+	
+	/**
+	 * Length and checksum of a record
+	 */
+	private final static int RECORD_HEADER_SIZE = 8;
+	
+	/**
+	 * The size of the parts of the file that are mapped into memory at once when loading.
+	 */
+	private final static int MAP_WINDOW = 64 * 1024 * 1024;
+	
+	private final static int COMPACTION_FACTOR = 2;
+	private final static long MIN_COMPACTION_SIZE = 1024 * 1024;
+	
+	private volatile DataOutputStream out;
+	
+	/**
+	 * The writer of {@link #out}. Only used while holding the {@link #connectionLock}.
+	 */
+	private RecordWriter writer;
+	
+	/**
+	 * The size of the file after it has last been compacted.
+	 */
+	private volatile long compactedSize;
+	
+	/**
+	 * The size of the file, which is always the end of a record. Only changed while holding the {@link #connectionLock}.
+	 */
+	private volatile long fileSize;
+	
+	private Task compactionTask;
+	
+	/**
+	 * Whether a compaction is in progress. Set on the main thread and reset by the thread that writes the new file.
+	 */
+	private volatile boolean compacting = false;
+	
+	/**
+	 * Writes records to a stream. Each writer has its own buffers, thus a compaction can write the new file while changes are still saved to the old one.
+	 */
+	private final static class RecordWriter {
+		
+		private final DataOutputStream out;
+		
+		private final ByteArrayOutputStream payloadBuffer = new ByteArrayOutputStream();
+		private final DataOutputStream payload = new DataOutputStream(payloadBuffer);
+		private final CRC32 crc = new CRC32();
+		
+		RecordWriter(final DataOutputStream out) {
+			this.out = out;
+		}
+		
+		/**
+		 * @return The size of the written record
+		 */
+		int write(final String name, final String type, final byte[] value) throws IOException {
+			payloadBuffer.reset();
+			payload.writeUTF(name);
+			payload.writeBoolean(type != null);
+			if (type != null) {
+				payload.writeUTF(type);
+				payload.writeInt(value.length);
+				payload.write(value);
+			}
+			payload.flush();
+			crc.reset();
+			crc.update(payloadBuffer.toByteArray());
+			out.writeInt(payloadBuffer.size());
+			out.writeInt((int) crc.getValue());
+			payloadBuffer.writeTo(out);
+			return RECORD_HEADER_SIZE + payloadBuffer.size();
+		}
+		
+	}
+	
+	protected BinaryLogStorage(final SectionNode n) {
+		super(n);
+		// changes are written as soon as there are no more changes in the queue, and the file is only flushed once per batch
+		batchSize = 1000;
+		batchDelay = 0;
+	}
+	
+	@Override
+	protected boolean requiresFile() {
+		return true;
+	}
+	
+	@Override
+	protected File getFile(final String file) {
+		return new File(file);
+	}
+	
+	@Override
+	protected boolean load_i(final SectionNode n) {
+		final boolean r;
+		if (file.length() > 0 && !hasHeader()) {
+			r = convertCSV(n);
+		} else {
+			final long start = System.currentTimeMillis();
+			r = loadLog();
+			if (r)
+				Skript.info("Loaded the variables of the database '" + name + "' in " + (System.currentTimeMillis() - start) + " ms");
+		}
+		synchronized (connectionLock) {
+			connect();
+			compactedSize = fileSize;
+		}
+		// runs on the main thread, as the variables are serialised when the compaction starts
+		compactionTask = new Task(Skript.getInstance(), 5 * 60 * 20, 5 * 60 * 20, false) {
+			@Override
+			public void run() {
+				if (fileSize > MIN_COMPACTION_SIZE && fileSize > COMPACTION_FACTOR * compactedSize)
+					compact();
+			}
+		};
+		return r;
+	}
+	
+	private boolean hasHeader() {
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			final byte[] b = new byte[MAGIC.length];
+			return in.read(b) == b.length && Arrays.equals(b, MAGIC);
+		} catch (final IOException e) {
+			return false;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (final IOException e) {}
+			}
+		}
+	}
+	
+	/**
+	 * Loads the variables from the file, which is mapped into memory in parts of {@link #MAP_WINDOW} bytes.
+	 * 
+	 * @return Whether the file could be read
+	 */
+	private boolean loadLog() {
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			final FileChannel channel = raf.getChannel();
+			final long size = channel.size();
+			if (size == 0) {
+				fileSize = 0;
+				return true;
+			}
+			if (size < HEADER_SIZE) {
+				Skript.error("The variables file '" + file.getName() + "' of the database '" + name + "' is corrupt and cannot be loaded");
+				return false;
+			}
+			MappedByteBuffer buf = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+			buf.position(MAGIC.length);
+			final int version = buf.getInt();
+			if (version > VERSION) {
+				Skript.error("The variables file '" + file.getName() + "' of the database '" + name + "' has been saved by a newer version of Skript and cannot be loaded");
+				return false;
+			}
+			
+			final CRC32 crc = new CRC32();
+			int unsuccessful = 0;
+			final StringBuilder invalid = new StringBuilder();
+			long bufStart = 0;
+			buf = null;
+			long pos = HEADER_SIZE;
+			while (pos < size) {
+				if (pos + RECORD_HEADER_SIZE > size)
+					break;
+				if (buf == null || pos + RECORD_HEADER_SIZE > bufStart + buf.capacity()) {
+					bufStart = pos;
+					buf = channel.map(MapMode.READ_ONLY, bufStart, Math.min(size - bufStart, MAP_WINDOW));
+				}
+				final int length = buf.getInt((int) (pos - bufStart));
+				final int checksum = buf.getInt((int) (pos - bufStart) + 4);
+				if (length < 0 || pos + RECORD_HEADER_SIZE + length > size)
+					break;
+				if (pos + RECORD_HEADER_SIZE + length > bufStart + buf.capacity()) {
+					bufStart = pos;
+					buf = channel.map(MapMode.READ_ONLY, bufStart, Math.min(size - bufStart, Math.max(MAP_WINDOW, RECORD_HEADER_SIZE + length)));
+				}
+				final byte[] data = new byte[length];
+				buf.position((int) (pos - bufStart) + RECORD_HEADER_SIZE);
+				buf.get(data);
+				crc.reset();
+				crc.update(data);
+				if ((int) crc.getValue() != checksum)
+					break;
+				pos += RECORD_HEADER_SIZE + length;
+				
+				final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+				final String name = in.readUTF();
+				if (!in.readBoolean()) {
+					Variables.variableLoaded(name, null, this);
+					continue;
+				}
+				final String type = in.readUTF();
+				final byte[] value = new byte[in.readInt()];
+				in.readFully(value);
+				final Object o = Classes.deserialize(type, value);
+				if (o == null) {
+					if (invalid.length() != 0)
+						invalid.append(", ");
+					invalid.append(name);
+					unsuccessful++;
+					continue;
+				}
+				Variables.variableLoaded(name, o, this);
+			}
+			buf = null;
+			raf.close();
+			raf = null;
+			
+			if (unsuccessful > 0) {
+				Skript.error(unsuccessful + " variable" + (unsuccessful == 1 ? "" : "s") + " could not be loaded!");
+				Skript.error("Affected variables: " + invalid.toString());
+			}
+			if (pos < size) {
+				Skript.error("The last " + (size - pos) + " bytes of the variables file '" + file.getName() + "' of the database '" + name + "' are corrupt, probably because the server crashed while they were written. "
+						+ "Some of the last changes to variables might be lost.");
+				final File backup = FileUtils.backup(file);
+				Skript.info("Created a backup of " + file.getName() + " as " + backup.getName());
+				// the file is rewritten instead of truncated, as it might still be mapped into memory
+				return rewrite();
+			}
+			return true;
+		} catch (final IOException e) {
+			Skript.error("An I/O error occurred while loading the variables of the database '" + name + "': " + ExceptionUtils.toString(e));
+			Skript.error("This means that some to all variables could not be loaded!");
+			return false;
+		} finally {
+			if (raf != null) {
+				try {
+					raf.close();
+				} catch (final IOException e) {}
+			}
+		}
+	}
+	
+	/**
+	 * Loads the file as a CSV file and rewrites it in the binary format.
+	 */
+	private boolean convertCSV(final SectionNode n) {
+		Skript.info("Converting the CSV file '" + file.getName() + "' of the database '" + name + "' to a binary log...");
+		final FlatFileStorage csv = new FlatFileStorage(n);
+		csv.file = file;
+		// the loaded variables are saved by the compaction below as this storage is not yet registered
+		if (!csv.loadFile())
+			return false;
+		try {
+			final File backup = FileUtils.backup(file);
+			Skript.info("Created a backup of the CSV file as " + backup.getName());
+		} catch (final IOException e) {
+			Skript.error("Could not backup the CSV file " + file.getName() + ": " + e.getLocalizedMessage());
+			Skript.error("The file will not be converted to make sure that no variables are lost.");
+			return false;
+		}
+		if (!rewrite())
+			return false;
+		Skript.info(file.getName() + " successfully converted.");
+		return true;
+	}
+	
+	@Override
+	protected boolean save(final String name, final String type, final byte[] value) {
+		synchronized (connectionLock) {
+			waitForConnection();
+			try {
+				fileSize += writer.write(name, type, value);
+				out.flush();
+				return true;
+			} catch (final IOException e) {
+				Skript.error("Unable to save the variable {" + name + "} to the database '" + this.name + "': " + e.getLocalizedMessage());
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * Writes all records and flushes the file only once.
+	 */
+	@Override
+	protected void saveBatch(final Map<String, Pair<String, byte[]>> batch) {
+		synchronized (connectionLock) {
+			waitForConnection();
+			try {
+				for (final Entry<String, Pair<String, byte[]>> v : batch.entrySet()) {
+					if (v.getValue() != null)
+						fileSize += writer.write(v.getKey(), v.getValue().first, v.getValue().second);
+					else
+						fileSize += writer.write(v.getKey(), null, null);
+				}
+				out.flush();
+			} catch (final IOException e) {
+				Skript.error("Unable to save variables to the database '" + name + "': " + e.getLocalizedMessage());
+				batch.clear(); // it's unknown which records made it into the file
+			}
+		}
+	}
+	
+	private void waitForConnection() {
+		assert Thread.holdsLock(connectionLock);
+		while (out == null) {
+			try {
+				connectionLock.wait();
+			} catch (final InterruptedException e) {}
+		}
+	}
+	
+	@Override
+	protected void connect() {
+		assert Thread.holdsLock(connectionLock);
+		if (out != null)
+			return;
+		try {
+			final long length = file.length();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+			writer = new RecordWriter(out);
+			if (length == 0) {
+				out.write(MAGIC);
+				out.writeInt(VERSION);
+				out.flush();
+				fileSize = HEADER_SIZE;
+			} else {
+				fileSize = length;
+			}
+		} catch (final IOException e) {
+			Skript.exception(e);
+		}
+	}
+	
+	@Override
+	protected void disconnect() {
+		assert Thread.holdsLock(connectionLock);
+		clearChangesQueue();
+		closeOutput();
+	}
+	
+	private void closeOutput() {
+		assert Thread.holdsLock(connectionLock);
+		if (out != null) {
+			try {
+				out.close();
+			} catch (final IOException e) {}
+			out = null;
+			writer = null;
+		}
+	}
+	
+	/**
+	 * Rewrites the file so that it only contains the current value of each variable. Must be called on the main thread, where the variables are serialised, while
+	 * the new file is written by another thread. Does nothing if a compaction is already in progress.
+	 */
+	public void compact() {
+		assert Bukkit.isPrimaryThread();
+		if (compacting)
+			return;
+		compacting = true;
+		// the changes of all records before this position happened before the snapshot is made, thus only the records after it have to be kept
+		final long start = fileSize;
+		final List<Pair<String, Pair<String, byte[]>>> records = serializeVariables();
+		Skript.newThread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					finishCompaction(records, start);
+				} finally {
+					compacting = false;
+				}
+			}
+		}, "Skript variables compaction thread").start();
+	}
+	
+	/**
+	 * Writes the new file, then copies the records that have been saved since the compaction started to it and replaces the old file with it. Only the last step
+	 * is done while holding the {@link #connectionLock}.
+	 * 
+	 * @param start The position in the old file from which on records have to be copied
+	 */
+	private void finishCompaction(final List<Pair<String, Pair<String, byte[]>>> records, final long start) {
+		final File tempFile = getTempFile();
+		try {
+			final long size = writeTempFile(records);
+			synchronized (connectionLock) {
+				if (closed || out == null) {
+					tempFile.delete();
+					return;
+				}
+				try {
+					out.flush();
+					copyRecords(start, fileSize, tempFile);
+					closeOutput();
+					FileUtils.move(tempFile, file, true);
+					compactedSize = size;
+				} finally {
+					connect();
+					connectionLock.notifyAll();
+				}
+			}
+		} catch (final IOException e) {
+			Skript.error("Unable to compact the variables file of the database '" + name + "': " + e.getLocalizedMessage());
+			tempFile.delete();
+		}
+	}
+	
+	/**
+	 * Replaces the file with one that only contains the current value of each variable. Only used while loading, i.e. while this storage is not connected.
+	 * 
+	 * @return Whether the file could be written
+	 */
+	private boolean rewrite() {
+		try {
+			compactedSize = writeTempFile(serializeVariables());
+			FileUtils.move(getTempFile(), file, true);
+			return true;
+		} catch (final IOException e) {
+			Skript.error("Unable to save the variables of the database '" + name + "': " + e.getLocalizedMessage());
+			return false;
+		}
+	}
+	
+	/**
+	 * Serialises the current values of all variables of this storage. Must be called on the main thread, as the values might otherwise be modified while they
+	 * are serialised.
+	 */
+	private List<Pair<String, Pair<String, byte[]>>> serializeVariables() {
+		final Map<String, Object> flat = new LinkedHashMap<String, Object>();
+		VariablesMap.flattenInto(null, Variables.getVariablesSnapshot(), flat);
+		final List<Pair<String, Pair<String, byte[]>>> r = new ArrayList<Pair<String, Pair<String, byte[]>>>(flat.size());
+		for (final Entry<String, Object> v : flat.entrySet()) {
+			if (!isStorageOf(v.getKey()))
+				continue;
+			final Pair<String, byte[]> value = Classes.serialize(v.getValue());
+			if (value != null)
+				r.add(new Pair<String, Pair<String, byte[]>>(v.getKey(), value));
+		}
+		return r;
+	}
+	
+	private File getTempFile() {
+		return new File(file.getPath() + ".temp");
+	}
+	
+	/**
+	 * Writes a new file containing the given records to {@link #getTempFile()}.
+	 * 
+	 * @return The size of the written file
+	 */
+	private long writeTempFile(final List<Pair<String, Pair<String, byte[]>>> records) throws IOException {
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getTempFile())));
+			final RecordWriter writer = new RecordWriter(out);
+			out.write(MAGIC);
+			out.writeInt(VERSION);
+			long size = HEADER_SIZE;
+			for (final Pair<String, Pair<String, byte[]>> r : records)
+				size += writer.write(r.first, r.second.first, r.second.second);
+			out.close();
+			out = null;
+			return size;
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (final IOException e) {}
+			}
+		}
+	}
+	
+	/**
+	 * Appends the records between the given positions of the file to the given file.
+	 */
+	private void copyRecords(final long start, final long end, final File to) throws IOException {
+		FileInputStream in = null;
+		FileOutputStream o = null;
+		try {
+			in = new FileInputStream(file);
+			o = new FileOutputStream(to, true);
+			final FileChannel channel = in.getChannel();
+			long pos = start;
+			while (pos < end)
+				pos += channel.transferTo(pos, end - pos, o.getChannel());
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (final IOException e) {}
+			}
+			if (o != null) {
+				try {
+					o.close();
+				} catch (final IOException e) {}
+			}
+		}
+	}
+	
+	/**
+	 * @return Whether the given variable is saved in this storage, i.e. this is the first storage to accept it. Also true if this storage is not yet loaded.
+	 */
+	private boolean isStorageOf(final String variable) {
+		for (final VariablesStorage s : Variables.storages) {
+			if (s == this)
+				return true;
+			if (s.accept(variable))
+				return false;
+		}
+		return accept(variable);
+	}
+	
+	@Override
+	public void close() {
+		if (compactionTask != null)
+			compactionTask.cancel();
+		super.close();
+		synchronized (connectionLock) {
+			disconnect();
+		}
+	}
+	
+}
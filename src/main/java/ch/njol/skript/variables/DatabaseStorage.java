@@ -22,11 +22,14 @@
 package ch.njol.skript.variables;
 
 import java.io.File;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
 import java.util.concurrent.Callable;
@@ -43,6 +46,7 @@ import org.bukkit.plugin.Plugin;
 import ch.njol.skript.Skript;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.Variable;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.util.Task;
@@ -66,7 +70,7 @@ public class DatabaseStorage extends VariablesStorage {
 	public static enum Type {
 		MYSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" +
 				"rowid        BIGINT  NOT NULL  AUTO_INCREMENT  PRIMARY KEY," +
-				"name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL  UNIQUE," +
+				"name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  BINARY  NOT NULL  UNIQUE," + // lists are loaded and deleted by ranges of names, which requires a binary collation
 				"type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," +
 				"value        BLOB(" + MAX_VALUE_SIZE + ")," +
 				"update_guid  CHAR(36)  NOT NULL" +
@@ -111,11 +115,31 @@ public class DatabaseStorage extends VariablesStorage {
 	// can't be a Database as otherwise loading this class will result in a NoClassDefFoundError if SQLibrary is not present
 	private Object db;
 	
+	/**
+	 * A second connection used to load variables if lazy loading is enabled, so that loading a variable doesn't have to wait until the writer thread has
+	 * committed its current batch. Must only be used while holding {@link #readLock}.
+	 */
+	private Object readDb;
+	
+	private final Object readLock = new Object();
+	
 	private boolean monitor = false;
 	long monitor_interval;
 	
 	private final static String guid = UUID.randomUUID().toString();
 	
+	private final static Integer DEFAULT_BATCH_SIZE = 500;
+	private final static Timespan DEFAULT_BATCH_DELAY = new Timespan(250);
+	
+	private final static Integer DEFAULT_CACHE_SIZE = 100000;
+	
+	/**
+	 * How long a lazy read may wait for a commit of the writer thread in SQLite databases, in milliseconds
+	 */
+	private final static int SQLITE_READ_TIMEOUT = 5000;
+	
+	private final static String LIST_SUFFIX = Variable.SEPARATOR + "*";
+	
 	DatabaseStorage(final SectionNode n, final Type type) {
 		super(n);
 		this.type = type;
@@ -136,6 +160,22 @@ public class DatabaseStorage extends VariablesStorage {
 		monitor = monitor_changes;
 		this.monitor_interval = monitor_interval.getMilliSeconds();
 		
+		final Integer batch_size = getValue(n, "batch size", Integer.class, DEFAULT_BATCH_SIZE);
+		final Timespan batch_delay = getValue(n, "batch delay", Timespan.class, DEFAULT_BATCH_DELAY);
+		if (batch_size == null || batch_delay == null)
+			return false;
+		batchSize = Math.max(1, batch_size);
+		batchDelay = batch_delay.getMilliSeconds();
+		
+		final Boolean lazy_loading = getValue(n, "lazy loading", Boolean.class, Boolean.FALSE);
+		final Integer cache_size = getValue(n, "cache size", Integer.class, DEFAULT_CACHE_SIZE);
+		if (lazy_loading == null || cache_size == null)
+			return false;
+		if (lazy_loading && monitor) {
+			Skript.error("'lazy loading' cannot be used together with 'monitor changes' in the database '" + name + "'");
+			return false;
+		}
+		
 		try {
 			db = type.initialise(this, n);
 			if (db == null)
@@ -160,10 +200,13 @@ public class DatabaseStorage extends VariablesStorage {
 				Skript.error("Could not create the variables table: " + e.getLocalizedMessage() + ". Please create the table yourself using the following query: " + type.createQuery);
 				return false;
 			}
+			if (type == Type.MYSQL && !checkNameCollation())
+				return false;
 			
 			writeQuery = ((Database) db).prepare("REPLACE INTO " + TABLE_NAME + " (name, type, value, update_guid) VALUES (?, ?, ?, ?)");
 			
 			deleteQuery = ((Database) db).prepare("DELETE FROM " + TABLE_NAME + " WHERE name = ?");
+			deleteListQuery = ((Database) db).prepare("DELETE FROM " + TABLE_NAME + " WHERE name >= ? AND name < ?");
 			
 			monitorQuery = ((Database) db).prepare("SELECT " + SELECT_ORDER + " FROM " + TABLE_NAME + " WHERE rowid > ? AND update_guid != ?");
 			monitorCleanUpQuery = ((Database) db).prepare("DELETE FROM " + TABLE_NAME + " WHERE value IS NULL AND rowid < ?");
@@ -194,24 +237,66 @@ public class DatabaseStorage extends VariablesStorage {
 				}
 			}
 			
-			// new
-			Statement s = null;
-			try {
-				s = ((Database) db).getConnection().createStatement();
-				s.execute("SELECT " + SELECT_ORDER + " FROM " + TABLE_NAME);
-				ResultSet r = null;
+			if (lazy_loading) {
 				try {
-					r = s.getResultSet();
-					loadVariables(r);
-				} finally {
-					if (r != null)
-						r.close();
+					readDb = type.initialise(this, n);
+					if (readDb == null)
+						return false;
+				} catch (final RuntimeException e) {
+					if (e instanceof DatabaseException) {
+						Skript.error(e.getMessage());
+						return false;
+					}
+					throw e;
 				}
-			} finally {
-				if (s != null) {
+				if (!((Database) readDb).open()) {
+					Skript.error("Cannot connect to the database!");
+					return false;
+				}
+				if (type == Type.SQLITE) {
+					// SQLite locks the whole file while the writer commits
+					final Statement s = ((Database) readDb).getConnection().createStatement();
 					try {
+						s.execute("PRAGMA busy_timeout = " + SQLITE_READ_TIMEOUT);
+					} finally {
 						s.close();
-					} catch (final SQLException e) {}
+					}
+				}
+				readQuery = ((Database) readDb).prepare("SELECT type, value FROM " + TABLE_NAME + " WHERE name = ?");
+				readListQuery = ((Database) readDb).prepare("SELECT name, type, value FROM " + TABLE_NAME + " WHERE name >= ? AND name < ?");
+				cache = new VariablesCache(new VariablesCache.Loader() {
+					@Override
+					public Object load(final String name) throws SQLException {
+						return DatabaseStorage.this.load(name);
+					}
+					
+					@Override
+					public void loadList(final String prefix, final Map<String, Object> target) throws SQLException {
+						DatabaseStorage.this.loadList(prefix, target);
+					}
+				}, Math.max(1, cache_size));
+			}
+			
+			// new (variables are loaded when they are used if lazy loading is enabled)
+			if (!lazy_loading) {
+				Statement s = null;
+				try {
+					s = ((Database) db).getConnection().createStatement();
+					s.execute("SELECT " + SELECT_ORDER + " FROM " + TABLE_NAME);
+					ResultSet r = null;
+					try {
+						r = s.getResultSet();
+						loadVariables(r);
+					} finally {
+						if (r != null)
+							r.close();
+					}
+				} finally {
+					if (s != null) {
+						try {
+							s.close();
+						} catch (final SQLException e) {}
+					}
 				}
 			}
 			
@@ -219,18 +304,14 @@ public class DatabaseStorage extends VariablesStorage {
 			if (hasOldTable) {
 				if (!hadNewTable) {
 					Skript.info("[2.1] Updating the database '" + name + "' to the new format...");
-					try {
-						Variables.getReadLock().lock();
-						for (final Entry<String, Object> v : Variables.getVariablesHashMap().entrySet()) {
-							if (accept(v.getKey())) {// only one database was possible, so only checking this database is correct
-								final Pair<String, Pair<String, byte[]>> var = Variables.serialize(v.getKey(), v.getValue());
-								save(var.first, var.second.first, var.second.second);
-							}
+					final Map<String, Object> variables = Variables.getVariablesHashMapSnapshot();
+					for (final Entry<String, Object> v : variables.entrySet()) {
+						if (accept(v.getKey())) {// only one database was possible, so only checking this database is correct
+							final Pair<String, Pair<String, byte[]>> var = Variables.serialize(v.getKey(), v.getValue());
+							save(var.first, var.second.first, var.second.second);
 						}
-						Skript.info("Updated " + Variables.getVariablesHashMap().size() + " variables");
-					} finally {
-						Variables.getReadLock().unlock();
 					}
+					Skript.info("Updated " + variables.size() + " variables");
 				}
 				Statement drop = null;
 				try {
@@ -291,6 +372,46 @@ public class DatabaseStorage extends VariablesStorage {
 		return true;
 	}
 	
+	/**
+	 * Lists are loaded and deleted by ranges of names, which only works if names are compared by their bytes. Tables created before were created with the
+	 * default collation, which is usually case insensitive, thus their name column is changed to the binary collation of its character set.
+	 * 
+	 * @return Whether the collation is binary
+	 */
+	private boolean checkNameCollation() throws SQLException {
+		Statement s = null;
+		try {
+			s = ((Database) db).getConnection().createStatement();
+			ResultSet r = null;
+			try {
+				r = s.executeQuery("SHOW FULL COLUMNS FROM " + TABLE_NAME + " LIKE 'name'");
+				if (!r.next())
+					return true;
+				final String collation = r.getString("Collation");
+				if (collation == null || collation.endsWith("_bin"))
+					return true;
+			} finally {
+				if (r != null)
+					r.close();
+			}
+			final String alter = "ALTER TABLE " + TABLE_NAME + " MODIFY name VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ") BINARY NOT NULL";
+			try {
+				Skript.info("Changing the collation of the variable names in the database '" + name + "' to be binary...");
+				s.execute(alter);
+			} catch (final SQLException e) {
+				Skript.error("Could not change the collation of the variable names: " + e.getLocalizedMessage() + ". Please change it yourself using the following query: " + alter);
+				return false;
+			}
+			return true;
+		} finally {
+			if (s != null) {
+				try {
+					s.close();
+				} catch (final SQLException e) {}
+			}
+		}
+	}
+	
 	@Override
 	protected boolean requiresFile() {
 		return type == Type.SQLITE;
@@ -319,41 +440,222 @@ public class DatabaseStorage extends VariablesStorage {
 		((Database) db).close();
 	}
 	
-	private PreparedStatement writeQuery, deleteQuery, monitorQuery;
+	private PreparedStatement writeQuery, deleteQuery, deleteListQuery, monitorQuery;
+	
+	/**
+	 * Prepared on {@link #readDb}. Only used if lazy loading is enabled, and only while holding the {@link #readLock}.
+	 */
+	private PreparedStatement readQuery, readListQuery;
 	
 	PreparedStatement monitorCleanUpQuery;
 	
-	@Override
-	protected void save(final String name, final String type, final byte[] value) {
+	private void checkSize(final String name, final byte[] value) {
 		// REMIND get the actual maximum size from the database
 		if (name.length() > MAX_VARIABLE_NAME_LENGTH)
 			Skript.error("The name of the variable '" + name + "' is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
 		if (value != null && value.length > MAX_VALUE_SIZE)
 			Skript.error("The variable '" + name + "' cannot be saved in the database as its value size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
+	}
+	
+	@Override
+	protected boolean save(final String name, final String type, final byte[] value) {
+		checkSize(name, value);
+		synchronized (connectionLock) {
+			try {
+				if (!monitor && type == null && name.endsWith(LIST_SUFFIX)) {
+					deleteList(name);
+				} else if (!monitor && type == null) {
+					assert value == null;
+					deleteQuery.setString(1, name);
+					deleteQuery.executeUpdate();
+				} else {
+					int i = 1;
+					writeQuery.setString(i++, name);
+					writeQuery.setString(i++, type);
+					writeQuery.setBytes(i++, value); // SQLite desn't support setBlob
+					writeQuery.setString(i++, guid);
+					writeQuery.executeUpdate();
+				}
+				return true;
+			} catch (final SQLException e) {
+				sqlException(e);
+				return false;
+			}
+		}
+	};
+	
+	/**
+	 * Saves all variables in one transaction using JDBC batches. If the transaction fails the variables are saved one by one, so that only the variables that
+	 * actually cause an error are lost.
+	 */
+	@Override
+	protected void saveBatch(final Map<String, Pair<String, byte[]>> batch) {
+		synchronized (connectionLock) {
+			if (saveBatch_i(batch))
+				return;
+			final Iterator<Entry<String, Pair<String, byte[]>>> iter = batch.entrySet().iterator();
+			while (iter.hasNext()) {
+				final Entry<String, Pair<String, byte[]>> v = iter.next();
+				if (!save(v.getKey(), v.getValue() == null ? null : v.getValue().first, v.getValue() == null ? null : v.getValue().second))
+					iter.remove();
+			}
+		}
+	}
+	
+	/**
+	 * @return Whether the transaction was committed. It has been rolled back otherwise.
+	 */
+	private boolean saveBatch_i(final Map<String, Pair<String, byte[]>> batch) {
+		Connection c = null;
 		try {
-			if (!monitor && type == null) {
-				assert value == null;
-				deleteQuery.setString(1, name);
-				deleteQuery.executeUpdate();
-			} else {
-				int i = 1;
-				writeQuery.setString(i++, name);
-				writeQuery.setString(i++, type);
-				writeQuery.setBytes(i++, value); // SQLite desn't support setBlob
-				writeQuery.setString(i++, guid);
-				writeQuery.executeUpdate();
+			c = ((Database) db).getConnection();
+			c.setAutoCommit(false);
+			boolean writes = false, deletes = false;
+			for (final Entry<String, Pair<String, byte[]>> v : batch.entrySet()) {
+				final String name = v.getKey();
+				final String type = v.getValue() == null ? null : v.getValue().first;
+				final byte[] value = v.getValue() == null ? null : v.getValue().second;
+				checkSize(name, value);
+				if (!monitor && type == null && name.endsWith(LIST_SUFFIX)) {
+					// the list's elements may have been changed earlier in this batch
+					if (writes)
+						writeQuery.executeBatch();
+					if (deletes)
+						deleteQuery.executeBatch();
+					writes = deletes = false;
+					deleteList(name);
+				} else if (!monitor && type == null) {
+					assert value == null;
+					deleteQuery.setString(1, name);
+					deleteQuery.addBatch();
+					deletes = true;
+				} else {
+					int i = 1;
+					writeQuery.setString(i++, name);
+					writeQuery.setString(i++, type);
+					writeQuery.setBytes(i++, value); // SQLite desn't support setBlob
+					writeQuery.setString(i++, guid);
+					writeQuery.addBatch();
+					writes = true;
+				}
 			}
+			if (writes)
+				writeQuery.executeBatch();
+			if (deletes)
+				deleteQuery.executeBatch();
+			c.commit();
+			return true;
 		} catch (final SQLException e) {
 			sqlException(e);
+			try {
+				writeQuery.clearBatch();
+				deleteQuery.clearBatch();
+				if (c != null)
+					c.rollback();
+			} catch (final SQLException ex) {}
+			return false;
+		} finally {
+			if (c != null) {
+				try {
+					c.setAutoCommit(true);
+				} catch (final SQLException e) {}
+			}
 		}
-	};
+	}
+	
+	/**
+	 * Deletes all elements of a list, i.e. all variables whose names start with the list's name without the trailing <tt>*</tt>.
+	 */
+	private void deleteList(final String name) throws SQLException {
+		final String prefix = name.substring(0, name.length() - 1);
+		deleteListQuery.setString(1, prefix);
+		deleteListQuery.setString(2, prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1));
+		deleteListQuery.executeUpdate();
+	}
+	
+	/**
+	 * Loads a single variable if lazy loading is enabled.
+	 * 
+	 * @throws SQLException If the variable could not be read (the error has already been reported)
+	 */
+	Object load(final String name) throws SQLException {
+		synchronized (readLock) {
+			try {
+				readQuery.setString(1, name);
+				ResultSet r = null;
+				try {
+					r = readQuery.executeQuery();
+					if (!r.next())
+						return null;
+					return deserialize(name, r.getString(1), r.getBytes(2));
+				} finally {
+					if (r != null)
+						r.close();
+				}
+			} catch (final SQLException e) {
+				sqlException(e);
+				throw e;
+			}
+		}
+	}
+	
+	/**
+	 * Loads all variables starting with the given prefix if lazy loading is enabled. Uses the index on the variables' names.
+	 * 
+	 * @throws SQLException If the list could not be read (the error has already been reported)
+	 */
+	void loadList(final String prefix, final Map<String, Object> target) throws SQLException {
+		synchronized (readLock) {
+			try {
+				readListQuery.setString(1, prefix);
+				readListQuery.setString(2, prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1));
+				ResultSet r = null;
+				try {
+					r = readListQuery.executeQuery();
+					while (r.next()) {
+						final String name = r.getString(1);
+						final Object d = deserialize(name, r.getString(2), r.getBytes(3));
+						if (d != null)
+							target.put(name, d);
+					}
+				} finally {
+					if (r != null)
+						r.close();
+				}
+			} catch (final SQLException e) {
+				sqlException(e);
+				throw e;
+			}
+		}
+	}
+	
+	private Object deserialize(final String name, final String type, final byte[] value) {
+		if (value == null)
+			return null;
+		final ClassInfo<?> c = Classes.getClassInfoNoError(type);
+		if (c == null || c.getSerializer() == null) {
+			Skript.error("Cannot load the variable {" + name + "} from the database " + this.name + ", because the type '" + type + "' cannot be recognised or cannot be stored in variables");
+			return null;
+		}
+		final Object d = Classes.deserialize(c, value);
+		if (d == null)
+			Skript.error("Cannot load the variable {" + name + "} from the database " + this.name + ", because it cannot be loaded as a " + type);
+		return d;
+	}
 	
 	@Override
 	public void close() {
 		super.close();
+		if (cache != null && Skript.debug())
+			Skript.debug("Database '" + name + "': " + cache.getHits() + " cache hits, " + cache.getMisses() + " cache misses");
 		if (db != null)
 			((Database) db).close();
 		db = null;
+		synchronized (readLock) {
+			if (readDb != null)
+				((Database) readDb).close();
+			readDb = null;
+		}
 	}
 	
 	private long lastRowID = -1;
@@ -33,9 +33,18 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedList;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -75,28 +84,82 @@ public class FlatFileStorage extends VariablesStorage {
 		super(n);
 	}
 	
-	@SuppressWarnings("deprecation")
 	@Override
 	protected boolean load_i(final SectionNode n) {
+		final boolean r = loadFile();
+		
+		if (update2_1) {
+			saveVariables(false);
+			Skript.info(file.getName() + " successfully updated.");
+		}
+		
+		synchronized (connectionLock) { // only synchronised because of the assertion in connect()
+			connect();
+		}
+		
+		saveTask = new Task(Skript.getInstance(), 5 * 60 * 20, 5 * 60 * 20, true) {
+			@Override
+			public void run() {
+				if (changes.get() >= REQUIRED_CHANGES_FOR_RESAVE) {
+					saveVariables(false);
+					changes.set(0);
+				}
+			}
+		};
+		
+		return r;
+	}
+	
+	/**
+	 * Whether the file was saved by a version of Skript older than 2.1 and has to be rewritten in the new format. Set by {@link #loadFile()}.
+	 */
+	private boolean update2_1 = false;
+	
+	/**
+	 * Reads all variables from the file and passes them to {@link Variables#variableLoaded(String, Object, VariablesStorage)}. Prints errors for all variables
+	 * that could not be loaded and makes a backup of the file if any errors occurred.
+	 * <p>
+	 * Also used by {@link BinaryLogStorage} to convert CSV files.
+	 * 
+	 * @return Whether the file could be read without I/O errors
+	 */
+	final boolean loadFile() {
 		IOException ioEx = null;
 		int unsuccessful = 0;
 		final StringBuilder invalid = new StringBuilder();
 		
+		final long start = System.currentTimeMillis();
+		readTime = 0;
+		parseTime.set(0);
+		mergeTime = 0;
+		
 		Version varVersion = Skript.getVersion(); // will be set later
 		
 		final Version v2_0_beta3 = new Version(2, 0, "beta 3");
 		boolean update2_0_beta3 = false;
 		final Version v2_1 = new Version(2, 1);
-		boolean update2_1 = false;
+		update2_1 = false;
 		
 		final RetainingLogHandler log = SkriptLogger.startRetainingLog();
 		Collection<LogEntry> errors = null;
 		try {
 			BufferedReader r = null;
+			final int threads = Runtime.getRuntime().availableProcessors();
+			final ExecutorService pool = threads <= 1 ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread t = Skript.newThread(r, "Skript variable loader for database '" + name + "'");
+					t.setDaemon(true);
+					return t;
+				}
+			});
 			try {
 				r = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+				final LinkedList<Future<Chunk>> pending = new LinkedList<Future<Chunk>>();
+				Chunk chunk = new Chunk(update2_0_beta3, update2_1);
 				String line = null;
 				int lineNum = 0;
+				long readStart = System.nanoTime();
 				while ((line = r.readLine()) != null) {
 					lineNum++;
 					line = line.trim();
@@ -107,43 +170,35 @@ public class FlatFileStorage extends VariablesStorage {
 								update2_0_beta3 = varVersion.isSmallerThan(v2_0_beta3);
 								update2_1 = varVersion.isSmallerThan(v2_1);
 							} catch (final IllegalArgumentException e) {}
+							// lines after this line must be loaded with the new flags
+							if (!chunk.lines.isEmpty())
+								pending.add(submit(pool, chunk));
+							chunk = new Chunk(update2_0_beta3, update2_1);
 						}
 						continue;
 					}
-					final String[] split = splitCSV(line);
-					if (split == null || split.length != 3) {
-						Skript.error("invalid amount of commas in line " + lineNum + " ('" + line + "')");
-						if (invalid.length() != 0)
-							invalid.append(", ");
-						invalid.append(split == null ? "<unknown>" : split[0]);
-						unsuccessful++;
-						continue;
-					}
-					if (split[1].equals("null")) {
-						Variables.variableLoaded(split[0], null, this);
-					} else {
-						Object d;
-						if (update2_1)
-							d = Classes.deserialize(split[1], split[2]);
-						else
-							d = Classes.deserialize(split[1], decode(split[2]));
-						if (d == null) {
-							if (invalid.length() != 0)
-								invalid.append(", ");
-							invalid.append(split[0]);
-							unsuccessful++;
-							continue;
+					chunk.lines.add(new Line(lineNum, line));
+					if (chunk.lines.size() == CHUNK_SIZE) {
+						pending.add(submit(pool, chunk));
+						chunk = new Chunk(update2_0_beta3, update2_1);
+						if (pending.size() > 2 * threads) {
+							readTime += System.nanoTime() - readStart;
+							unsuccessful += loadChunk(getChunk(pending.removeFirst()), invalid);
+							readStart = System.nanoTime();
 						}
-						if (d instanceof String && update2_0_beta3) {
-							d = Utils.replaceChatStyles((String) d);
-						}
-						Variables.variableLoaded(split[0], d, this);
 					}
 				}
+				if (!chunk.lines.isEmpty())
+					pending.add(submit(pool, chunk));
+				readTime += System.nanoTime() - readStart;
+				while (!pending.isEmpty())
+					unsuccessful += loadChunk(getChunk(pending.removeFirst()), invalid);
 			} catch (final IOException e) {
 				loadError = true;
 				ioEx = e;
 			} finally {
+				if (pool != null)
+					pool.shutdownNow();
 				if (r != null) {
 					try {
 						r.close();
@@ -182,31 +237,143 @@ public class FlatFileStorage extends VariablesStorage {
 			}
 		}
 		
-		if (update2_1) {
-			saveVariables(false);
-			Skript.info(file.getName() + " successfully updated.");
+		if (Skript.logNormal()) {
+			Skript.info("Loaded the variables of the database '" + name + "' in " + (System.currentTimeMillis() - start) + " ms "
+					+ "(reading: " + (readTime / 1000000) + " ms, parsing: " + (parseTime.get() / 1000000) + " ms total in all threads, deserialising and adding: " + (mergeTime / 1000000) + " ms)");
 		}
 		
-		synchronized (connectionLock) { // only synchronised because of the assertion in connect()
-			connect();
+		return ioEx == null;
+	}
+	
+	/**
+	 * Amount of lines that are parsed together by a single thread while loading
+	 */
+	private final static int CHUNK_SIZE = 5000;
+	
+	/**
+	 * Load timings in nanoseconds. Only used while loading.
+	 */
+	private long readTime, mergeTime;
+	private final AtomicLong parseTime = new AtomicLong();
+	
+	private final static class Line {
+		final int lineNum;
+		final String line;
+		String[] split;
+		/**
+		 * The decoded value, or null if the value has to be deserialised from its string form (i.e. if it has been saved by Skript 2.0) or the line is invalid
+		 */
+		byte[] data;
+		
+		Line(final int lineNum, final String line) {
+			this.lineNum = lineNum;
+			this.line = line;
 		}
+	}
+	
+	private final static class Chunk {
+		final ArrayList<Line> lines = new ArrayList<Line>(CHUNK_SIZE);
+		final boolean update2_0_beta3, update2_1;
 		
-		saveTask = new Task(Skript.getInstance(), 5 * 60 * 20, 5 * 60 * 20, true) {
+		Chunk(final boolean update2_0_beta3, final boolean update2_1) {
+			this.update2_0_beta3 = update2_0_beta3;
+			this.update2_1 = update2_1;
+		}
+	}
+	
+	/**
+	 * Splits all lines of the chunk and decodes their values. May be called from any thread, as it neither uses any shared state nor logs anything - the values
+	 * are only deserialised by {@link #loadChunk(Chunk, StringBuilder)}, as deserialisers use the shared {@link Variables#yggdrasil} and log their errors to the
+	 * log handlers of the loading thread.
+	 */
+	private final static Chunk process(final Chunk chunk) {
+		for (final Line l : chunk.lines) {
+			l.split = splitCSV(l.line);
+			if (chunk.update2_1 || l.split == null || l.split.length != 3 || l.split[1].equals("null"))
+				continue;
+			l.data = decode(l.split[2]);
+		}
+		return chunk;
+	}
+	
+	/**
+	 * Processes the chunk in the pool, or immediately if there's no pool (i.e. only a single processor is available).
+	 */
+	private final Future<Chunk> submit(final ExecutorService pool, final Chunk chunk) {
+		final Callable<Chunk> c = new Callable<Chunk>() {
 			@Override
-			public void run() {
-				if (changes.get() >= REQUIRED_CHANGES_FOR_RESAVE) {
-					try {
-						Variables.getReadLock().lock();
-						saveVariables(false);
-						changes.set(0);
-					} finally {
-						Variables.getReadLock().unlock();
-					}
-				}
+			public Chunk call() throws Exception {
+				final long start = System.nanoTime();
+				process(chunk);
+				parseTime.addAndGet(System.nanoTime() - start);
+				return chunk;
 			}
 		};
-		
-		return ioEx == null;
+		if (pool != null)
+			return pool.submit(c);
+		final FutureTask<Chunk> f = new FutureTask<Chunk>(c);
+		f.run();
+		return f;
+	}
+	
+	private final static Chunk getChunk(final Future<Chunk> f) throws IOException {
+		while (true) {
+			try {
+				return f.get();
+			} catch (final InterruptedException e) {} catch (final ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				if (e.getCause() instanceof Error)
+					throw (Error) e.getCause();
+				throw new IOException(e.getCause());
+			}
+		}
+	}
+	
+	/**
+	 * Deserialises the values of a processed chunk and passes them to {@link Variables#variableLoaded(String, Object, VariablesStorage)}. Must be called from the
+	 * loading thread, in the order of the chunks in the file.
+	 * 
+	 * @param invalid Names of variables that could not be loaded are appended to this
+	 * @return The number of variables that could not be loaded
+	 */
+	@SuppressWarnings("deprecation")
+	private final int loadChunk(final Chunk chunk, final StringBuilder invalid) {
+		final long start = System.nanoTime();
+		int unsuccessful = 0;
+		for (final Line l : chunk.lines) {
+			final String[] split = l.split;
+			if (split == null || split.length != 3) {
+				Skript.error("invalid amount of commas in line " + l.lineNum + " ('" + l.line + "')");
+				if (invalid.length() != 0)
+					invalid.append(", ");
+				invalid.append(split == null ? "<unknown>" : split[0]);
+				unsuccessful++;
+				continue;
+			}
+			if (split[1].equals("null")) {
+				Variables.variableLoaded(split[0], null, this);
+			} else {
+				Object d;
+				if (chunk.update2_1)
+					d = Classes.deserialize(split[1], split[2]);
+				else
+					d = Classes.deserialize(split[1], l.data);
+				if (d == null) {
+					if (invalid.length() != 0)
+						invalid.append(", ");
+					invalid.append(split[0]);
+					unsuccessful++;
+					continue;
+				}
+				if (d instanceof String && chunk.update2_0_beta3) {
+					d = Utils.replaceChatStyles((String) d);
+				}
+				Variables.variableLoaded(split[0], d, this);
+			}
+		}
+		mergeTime += System.nanoTime() - start;
+		return unsuccessful;
 	}
 	
 	@Override
@@ -257,7 +424,7 @@ public class FlatFileStorage extends VariablesStorage {
 	}
 	
 	@Override
-	protected void save(final String name, final String type, final byte[] value) {
+	protected boolean save(final String name, final String type, final byte[] value) {
 		synchronized (connectionLock) {
 			while (changesWriter == null) {
 				try {
@@ -268,6 +435,7 @@ public class FlatFileStorage extends VariablesStorage {
 			changesWriter.flush();
 			changes.incrementAndGet();
 		}
+		return true;
 	}
 	
 	private final static void writeCSV(final PrintWriter pw, final String... values) {
@@ -316,6 +484,8 @@ public class FlatFileStorage extends VariablesStorage {
 	
 	/**
 	 * Completely rewrites the while file
+	 * <p>
+	 * The variables are only locked while a snapshot of them is made, the file itself is written without holding any locks on the variables.
 	 * 
 	 * @param finalSave whether this is the last save in this session or not.
 	 */
@@ -327,8 +497,15 @@ public class FlatFileStorage extends VariablesStorage {
 		}
 		synchronized (connectionLock) {
 			try {
-				Variables.getReadLock().lock();
-				disconnect();
+				final TreeMap<String, Object> variables;
+				try {
+					// the snapshot must include all changes that are cleared from the queue when disconnecting
+					Variables.lockAllForRead();
+					disconnect();
+					variables = Variables.getVariablesSnapshot();
+				} finally {
+					Variables.unlockAllForRead();
+				}
 				if (loadError) {
 					try {
 						final File backup = FileUtils.backup(file);
@@ -349,7 +526,7 @@ public class FlatFileStorage extends VariablesStorage {
 					pw.println("#");
 					pw.println("# version: " + Skript.getInstance().getDescription().getVersion());
 					pw.println();
-					save(pw, "", Variables.getVariables());
+					save(pw, "", variables);
 					pw.println();
 					pw.flush();
 					pw.close();
@@ -361,7 +538,6 @@ public class FlatFileStorage extends VariablesStorage {
 						pw.close();
 				}
 			} finally {
-				Variables.getReadLock().unlock();
 				if (!finalSave) {
 					connect();
 					connectionLock.notifyAll();
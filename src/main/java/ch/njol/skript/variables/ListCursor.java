@@ -0,0 +1,155 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.variables;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+
+import ch.njol.util.Pair;
+
+/**
+ * Iterates over the elements of a list variable without copying the list. The list is only locked while moving to the next element, thus it can be changed
+ * while it is iterated, in which case changes after the current position are visible to the cursor.
+ * <p>
+ * Only elements up to the last element at the time the cursor was created are returned, so that adding elements while looping a list cannot result in an
+ * infinite loop.
+ * 
+ * @author Peter Güttinger
+ */
+final class ListCursor implements Iterator<Pair<String, Object>> {
+	
+	/**
+	 * The map containing the list, or null if the list is a snapshot that can't change
+	 */
+	private final VariablesMap variables;
+	/**
+	 * The lock guarding {@link #variables}, or null if the map is only used by a single thread
+	 */
+	private final Lock lock;
+	private final String name;
+	
+	/**
+	 * The list's elements, null if the iteration has ended
+	 */
+	private TreeMap<String, Object> list;
+	private int listDeletions;
+	private final String last;
+	
+	private String key = null;
+	private Pair<String, Object> next = null;
+	
+	/**
+	 * @param variables
+	 * @param lock
+	 * @param name The list's name, ending in <tt>::*</tt>
+	 */
+	ListCursor(final VariablesMap variables, final Lock lock, final String name) {
+		this.variables = variables;
+		this.lock = lock;
+		this.name = name;
+		if (lock != null)
+			lock.lock();
+		try {
+			listDeletions = variables.listDeletions;
+			list = getList(variables.getVariable(name));
+			last = list == null ? null : list.lastKey();
+		} finally {
+			if (lock != null)
+				lock.unlock();
+		}
+	}
+	
+	/**
+	 * @param list A list that won't change during the iteration
+	 */
+	ListCursor(final TreeMap<String, Object> list) {
+		variables = null;
+		lock = null;
+		name = null;
+		this.list = getList(list);
+		last = this.list == null ? null : this.list.lastKey();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private final static TreeMap<String, Object> getList(final Object o) {
+		if (!(o instanceof TreeMap) || ((TreeMap<String, Object>) o).isEmpty())
+			return null;
+		final TreeMap<String, Object> l = (TreeMap<String, Object>) o;
+		return l.lastKey() == null ? null : l; // only the list variable's own value
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean hasNext() {
+		if (next != null)
+			return true;
+		if (list == null)
+			return false;
+		if (lock != null)
+			lock.lock();
+		try {
+			if (variables != null && variables.listDeletions != listDeletions) {
+				// the list may have been deleted and thus replaced by a new map
+				listDeletions = variables.listDeletions;
+				final Object l = variables.getVariable(name);
+				if (!(l instanceof TreeMap)) {
+					list = null;
+					return false;
+				}
+				list = (TreeMap<String, Object>) l;
+			}
+			Entry<String, Object> e = list.higherEntry(key);
+			while (e != null && VariablesMap.variableNameComparator.compare(e.getKey(), last) <= 0) {
+				key = e.getKey();
+				final Object value = e.getValue() instanceof TreeMap ? ((TreeMap<String, Object>) e.getValue()).get(null) : e.getValue();
+				if (value != null) {
+					next = new Pair<String, Object>(key, value);
+					return true;
+				}
+				e = list.higherEntry(key);
+			}
+			list = null;
+			return false;
+		} finally {
+			if (lock != null)
+				lock.unlock();
+		}
+	}
+	
+	@Override
+	public Pair<String, Object> next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		final Pair<String, Object> n = next;
+		next = null;
+		return n;
+	}
+	
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+	
+}
@@ -0,0 +1,154 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.variables;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import ch.njol.util.Pair;
+
+/**
+ * Orders the elements of a list variable by their values to be able to get the elements with the highest or lowest values or the elements within a range of
+ * values without iterating the whole list. Only numerical values are indexed, elements with other values are ignored.
+ * <p>
+ * An index is not synchronised, but is always guarded by the lock of the {@link VariablesMap} it belongs to.
+ * 
+ * @author Peter Güttinger
+ */
+final class ListIndex {
+	
+	private final static class Element {
+		final String key;
+		final Object value;
+		final double number;
+		/**
+		 * -1 or 1 for elements that only serve as the lower or upper bound of a range, i.e. which are before or after all elements with the same value.
+		 */
+		final int bound;
+		
+		Element(final String key, final Number value) {
+			this.key = key;
+			this.value = value;
+			number = value.doubleValue();
+			bound = 0;
+		}
+		
+		Element(final double number, final int bound) {
+			key = null;
+			value = null;
+			this.number = number;
+			this.bound = bound;
+		}
+	}
+	
+	/**
+	 * Orders elements by their values, and elements with equal values by their indices in the order of the list.
+	 */
+	private final static Comparator<Element> comparator = new Comparator<Element>() {
+		@Override
+		public int compare(final Element e1, final Element e2) {
+			final int c = Double.compare(e1.number, e2.number);
+			if (c != 0)
+				return c;
+			if (e1.bound != 0 || e2.bound != 0)
+				return e1.bound - e2.bound;
+			return VariablesMap.variableNameComparator.compare(e1.key, e2.key);
+		}
+	};
+	
+	private final TreeSet<Element> elements = new TreeSet<Element>(comparator);
+	private final HashMap<String, Element> byKey = new HashMap<String, Element>();
+	
+	/**
+	 * Creates an index of all current elements of the given list.
+	 * 
+	 * @param list The map of a list as stored in a {@link VariablesMap}
+	 */
+	@SuppressWarnings("unchecked")
+	ListIndex(final TreeMap<String, Object> list) {
+		for (final Entry<String, Object> e : list.entrySet()) {
+			if (e.getKey() == null)
+				continue;
+			set(e.getKey(), e.getValue() instanceof TreeMap ? ((TreeMap<String, Object>) e.getValue()).get(null) : e.getValue());
+		}
+	}
+	
+	/**
+	 * Must be called whenever the value of an element of the list changes.
+	 * 
+	 * @param key The element's index
+	 * @param value The element's new value, or null if it has been deleted
+	 */
+	final void set(final String key, final Object value) {
+		final Element old;
+		if (value instanceof Number) {
+			final Element e = new Element(key, (Number) value);
+			old = byKey.put(key, e);
+			if (old != null)
+				elements.remove(old);
+			elements.add(e);
+		} else {
+			old = byKey.remove(key);
+			if (old != null)
+				elements.remove(old);
+		}
+	}
+	
+	/**
+	 * @return The amount of indexed elements
+	 */
+	final int size() {
+		return byKey.size();
+	}
+	
+	/**
+	 * Returns the elements whose values lie in the given range, ordered by their values.
+	 * 
+	 * @param min The lowest value (inclusive)
+	 * @param max The highest value (inclusive)
+	 * @param amount The maximum amount of elements to return, or -1 to return all matching elements
+	 * @param descending Whether to start with the highest value, i.e. whether to return the last elements of the range if there are more than <tt>amount</tt>
+	 * @return The elements as pairs of their indices and values
+	 */
+	final List<Pair<String, Object>> get(final double min, final double max, final int amount, final boolean descending) {
+		if (amount == 0 || min > max)
+			return new ArrayList<Pair<String, Object>>(0);
+		NavigableSet<Element> range = elements.subSet(new Element(min, -1), true, new Element(max, 1), true);
+		if (descending)
+			range = range.descendingSet();
+		final List<Pair<String, Object>> r = new ArrayList<Pair<String, Object>>(amount == -1 ? 10 : Math.min(amount, byKey.size()));
+		final Iterator<Element> iter = range.iterator();
+		while (iter.hasNext() && r.size() != amount) {
+			final Element e = iter.next();
+			r.add(new Pair<String, Object>(e.key, e.value));
+		}
+		return r;
+	}
+	
+}
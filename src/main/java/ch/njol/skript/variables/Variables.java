@@ -23,14 +23,18 @@ package ch.njol.skript.variables;
 
 import java.io.Closeable;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.WeakHashMap;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
@@ -46,17 +50,29 @@ import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.classes.ConfigurationSerializer;
 import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.Variable;
 import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.Direction;
+import ch.njol.skript.util.Experience;
+import ch.njol.skript.util.Time;
+import ch.njol.skript.util.Timeperiod;
+import ch.njol.skript.util.Timespan;
 import ch.njol.skript.variables.DatabaseStorage.Type;
 import ch.njol.util.Kleenean;
 import ch.njol.util.Pair;
+import ch.njol.util.coll.iterator.EmptyIterator;
 import ch.njol.yggdrasil.Yggdrasil;
 
 /**
+ * Changes to global variables are saved by a separate thread. Values that cannot change anymore after they have been stored, i.e. strings, numbers,
+ * booleans, enums, timespans, times, time periods, experience and directions, are passed to that thread as they are and serialised there. All other
+ * values, e.g. items, locations, dates and Bukkit objects, may still be modified by scripts or Bukkit after the variable has been set, thus they are
+ * serialised on the thread that changed the variable, which is usually the main thread.
+ * 
  * @author Peter Güttinger
  */
-public abstract class Variables implements Closeable {
+public abstract class Variables {
 	private Variables() {}
 	
 	public final static Yggdrasil yggdrasil = new Yggdrasil();
@@ -89,12 +105,24 @@ public abstract class Variables implements Closeable {
 	
 	static List<VariablesStorage> storages = new ArrayList<VariablesStorage>();
 	
+	/**
+	 * Whether any storage only loads its variables when they are used, i.e. whether {@link #getCache(String)} has to be checked.
+	 */
+	private static boolean lazyStorages = false;
+	
 	@SuppressWarnings("resource")
 	public static boolean load() {
+		// registered before the storages so that all changes are passed to the storages before they are closed
+		Skript.closeOnDisable(new Closeable() {
+			@Override
+			public void close() {
+				stopSaveThread();
+			}
+		});
 		try {
-			variablesLock.writeLock().lock();
-			assert variables.treeMap.isEmpty();
-			assert variables.hashMap.isEmpty();
+			lockAll(true);
+			for (final VariablesMap map : variables)
+				assert map.treeMap.isEmpty() && map.size() == 0;
 			
 			final Node databases = SkriptConfig.getConfig().getMainNode().get("databases");
 			if (databases == null || !(databases instanceof SectionNode)) {
@@ -113,6 +141,8 @@ public abstract class Variables implements Closeable {
 					final VariablesStorage s;
 					if (type.equalsIgnoreCase("csv") || type.equalsIgnoreCase("file") || type.equalsIgnoreCase("flatfile")) {
 						s = new FlatFileStorage(n);
+					} else if (type.equalsIgnoreCase("binlog") || type.equalsIgnoreCase("binary")) {
+						s = new BinaryLogStorage(n);
 					} else if (type.equalsIgnoreCase("mysql")) {
 						s = new DatabaseStorage(n, Type.MYSQL);
 					} else if (type.equalsIgnoreCase("sqlite")) {
@@ -127,6 +157,8 @@ public abstract class Variables implements Closeable {
 					if (!s.load(n))
 						return false;
 					storages.add(s);
+					if (s.cache != null)
+						lazyStorages = true;
 				} else {
 					Skript.error("Invalid line in databases: databases must be defined as sections");
 					return false;
@@ -136,9 +168,10 @@ public abstract class Variables implements Closeable {
 				Skript.error("No databases to store variables are defined. Please enable at least the default database, even if you don't use variables at all.");
 				return false;
 			}
+			saveThread.start();
 			return true;
 		} finally {
-			variablesLock.writeLock().unlock();
+			unlockAll(true);
 		}
 	}
 	
@@ -148,32 +181,185 @@ public abstract class Variables implements Closeable {
 		return variableNameSplitPattern.split(name);
 	}
 	
-	private final static ReadWriteLock variablesLock = new ReentrantReadWriteLock(true);
 	/**
-	 * must be locked with {@link #variablesLock}.
+	 * Number of independently locked parts of the global variables map. Must be a power of two.
+	 */
+	private final static int STRIPES = 16;
+	
+	/**
+	 * Global variables are distributed over several maps by the first part of their name (i.e. the part before the first {@link Variable#SEPARATOR}), so that all
+	 * variables of a list always end up in the same map. Each map is guarded by its own lock in {@link #variablesLocks}.
+	 * <p>
+	 * Reads are not lock-free: they take the read lock of their stripe, as {@link VariablesMap} is not thread-safe and a copy-on-write map would have to copy
+	 * a whole list whenever one of its elements changes. Reads never block each other though, and a write only blocks variables in the same stripe instead of
+	 * all variables. Snapshots for saving lock one stripe at a time while copying it, and never while a file is written. The only exception is the CSV
+	 * storage, which locks all stripes for reading while it copies the variables, so that the copy matches the changes it discards.
+	 * <p>
+	 * This has not been measured against the previous single lock, nor against a lock-free design, as no benchmark could be built or run when it was written.
+	 */
+	private final static VariablesMap[] variables = new VariablesMap[STRIPES];
+	private final static ReadWriteLock[] variablesLocks = new ReadWriteLock[STRIPES];
+	static {
+		for (int i = 0; i < STRIPES; i++) {
+			variables[i] = new VariablesMap();
+			variablesLocks[i] = new ReentrantReadWriteLock();
+		}
+	}
+	
+	/**
+	 * Calculates the stripe of a variable from the hash of the first part of its name without creating a substring.
+	 */
+	private final static int stripe(final String name) {
+		int end = name.indexOf(Variable.SEPARATOR);
+		if (end == -1)
+			end = name.length();
+		int h = 0;
+		for (int i = 0; i < end; i++)
+			h = 31 * h + name.charAt(i);
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return h & (STRIPES - 1);
+	}
+	
+	/**
+	 * Locks all stripes in a fixed order to prevent deadlocks.
+	 */
+	private final static void lockAll(final boolean write) {
+		for (final ReadWriteLock l : variablesLocks)
+			(write ? l.writeLock() : l.readLock()).lock();
+	}
+	
+	private final static void unlockAll(final boolean write) {
+		for (int i = STRIPES - 1; i >= 0; i--)
+			(write ? variablesLocks[i].writeLock() : variablesLocks[i].readLock()).unlock();
+	}
+	
+	/**
+	 * Returns a copy of all global variables in the same format as {@link VariablesMap#treeMap}. Only the copying itself is done while holding the locks, thus the
+	 * returned map can be used for slow operations like saving without blocking any threads that change variables.
+	 * <p>
+	 * Must be called between {@link #lockAllForRead()} and {@link #unlockAllForRead()} if the copy has to be consistent with other operations, otherwise each stripe is locked separately.
+	 */
+	static TreeMap<String, Object> getVariablesSnapshot() {
+		final TreeMap<String, Object> r = new TreeMap<String, Object>();
+		for (int i = 0; i < STRIPES; i++) {
+			try {
+				variablesLocks[i].readLock().lock();
+				VariablesMap.copyTreeInto(variables[i].treeMap, r);
+			} finally {
+				variablesLocks[i].readLock().unlock();
+			}
+		}
+		return r;
+	}
+	
+	/**
+	 * Returns a copy of all global variables by their full names.
+	 * 
+	 * @see #getVariablesSnapshot()
+	 */
+	static Map<String, Object> getVariablesHashMapSnapshot() {
+		final HashMap<String, Object> r = new HashMap<String, Object>();
+		for (int i = 0; i < STRIPES; i++) {
+			try {
+				variablesLocks[i].readLock().lock();
+				VariablesMap.flattenInto(null, variables[i].treeMap, r);
+			} finally {
+				variablesLocks[i].readLock().unlock();
+			}
+		}
+		return r;
+	}
+	
+	/**
+	 * Locks all stripes of the global variables for reading, i.e. no variables can be changed until {@link #unlockAllForRead()} is called. This should only be
+	 * done for short operations - use {@link #getVariablesSnapshot()} to work with the variables for a longer time.
 	 */
-	private final static VariablesMap variables = new VariablesMap();
+	static void lockAllForRead() {
+		lockAll(false);
+	}
+	
+	static void unlockAllForRead() {
+		unlockAll(false);
+	}
+	
 	/**
-	 * Not accessed concurrently
+	 * Global variables of storages that only load variables when they are used are not stored in {@link #variables}, but only in the storage's cache.
+	 * 
+	 * @param name
+	 * @return The cache of the storage of the given variable, or null if the variable is stored in {@link #variables}
 	 */
-	private final static WeakHashMap<Event, VariablesMap> localVariables = new WeakHashMap<Event, VariablesMap>();
+	private final static VariablesCache getCache(final String name) {
+		if (!lazyStorages)
+			return null;
+		for (final VariablesStorage s : storages) {
+			if (s.accept(name))
+				return s.cache;
+		}
+		return null;
+	}
 	
 	/**
-	 * Remember to lock with {@link #getReadLock()} and to not make any changes!
+	 * The name of a global variable with everything needed to access it precomputed. Used for variables whose name is constant, see {@link #getHandle(String)}.
 	 */
-	static TreeMap<String, Object> getVariables() {
-		return variables.treeMap;
+	public final static class Handle {
+		final String name;
+		final int stripe;
+		final VariablesCache cache;
+		
+		Handle(final String name) {
+			this.name = name;
+			stripe = stripe(name);
+			cache = getCache(name);
+		}
+		
+		public String getName() {
+			return name;
+		}
 	}
 	
 	/**
-	 * Remember to lock with {@link #getReadLock()}!
+	 * Must not be called before the variables have been loaded, as the storage the variable belongs to is determined here.
+	 * 
+	 * @param name The name of a global variable or list, already in lower case
+	 * @return A handle that can be used to get and set the variable without processing its name on every access
 	 */
-	static Map<String, Object> getVariablesHashMap() {
-		return Collections.unmodifiableMap(variables.hashMap);
+	public final static Handle getHandle(final String name) {
+		assert name.equals(name.toLowerCase(Locale.ENGLISH));
+		return new Handle(name);
 	}
 	
-	static Lock getReadLock() {
-		return variablesLock.readLock();
+	/**
+	 * Like {@link #getVariable(String, Event, boolean)} for global variables.
+	 * <p>
+	 * <b>Do not modify the returned value!</b>
+	 */
+	public final static Object getVariable(final Handle h) {
+		if (h.cache != null)
+			return h.cache.get(h.name);
+		try {
+			variablesLocks[h.stripe].readLock().lock();
+			return variables[h.stripe].getVariable(h.name);
+		} finally {
+			variablesLocks[h.stripe].readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Like {@link #setVariable(String, Object, Event, boolean)} for global variables.
+	 */
+	public final static void setVariable(final Handle h, final Object value) {
+		if (h.cache != null) {
+			saveVariableChange(h.name, value, h.cache);
+			return;
+		}
+		try {
+			variablesLocks[h.stripe].writeLock().lock();
+			variables[h.stripe].setVariable(h.name, value);
+			saveVariableChange(h.name, value, null);
+		} finally {
+			variablesLocks[h.stripe].writeLock().unlock();
+		}
 	}
 	
 	/**
@@ -186,56 +372,152 @@ public abstract class Variables implements Closeable {
 	 */
 	public final static Object getVariable(final String name, final Event e, final boolean local) {
 		if (local) {
-			final VariablesMap map = localVariables.get(e);
+			final ExecutionFrame f = ExecutionFrame.get(e);
+			final VariablesMap map = f == null ? null : f.getLocalVariables();
 			if (map == null)
 				return null;
 			return map.getVariable(name);
 		} else {
+			final VariablesCache cache = getCache(name);
+			if (cache != null)
+				return cache.get(name);
+			final int i = stripe(name);
 			try {
-				variablesLock.readLock().lock();
-				return variables.getVariable(name);
+				variablesLocks[i].readLock().lock();
+				return variables[i].getVariable(name);
 			} finally {
-				variablesLock.readLock().unlock();
+				variablesLocks[i].readLock().unlock();
 			}
 		}
 	}
 	
 	/**
 	 * Sets a variable.
+	 * <p>
+	 * Local variables are stored in the {@link ExecutionFrame} that is currently executed for the given event, and are discarded if there is no such frame.
 	 * 
 	 * @param name The variable's name. Can be a "list variable::*" (<tt>value</tt> must be <tt>null</tt> in this case)
 	 * @param value The variable's value. Use <tt>null</tt> to delete the variable.
 	 */
 	public final static void setVariable(final String name, final Object value, final Event e, final boolean local) {
 		if (local) {
-			VariablesMap map = localVariables.get(e);
-			if (map == null)
-				localVariables.put(e, map = new VariablesMap());
-			map.setVariable(name, value);
+			final ExecutionFrame f = ExecutionFrame.get(e);
+			if (f == null) // not executed by a trigger, e.g. an effect command
+				return;
+			if (value == null && f.getLocalVariables() == null)
+				return;
+			f.getOrCreateLocalVariables().setVariable(name, value);
 		} else {
 			setVariable(name, value);
 		}
 	}
 	
 	final static void setVariable(final String name, final Object value) {
+		final VariablesCache cache = getCache(name);
+		if (cache != null) {
+			saveVariableChange(name, value, cache);
+			return;
+		}
+		final int i = stripe(name);
 		try {
-			variablesLock.writeLock().lock();
-			variables.setVariable(name, value);
-			saveVariableChange(name, value);
+			variablesLocks[i].writeLock().lock();
+			variables[i].setVariable(name, value);
+			saveVariableChange(name, value, null);
 		} finally {
-			variablesLock.writeLock().unlock();
+			variablesLocks[i].writeLock().unlock();
 		}
 	}
 	
 	/**
-	 * Doesn't lock the variables map and moves the loaded variable to the appropriate database if the config was changed.
+	 * Iterates over the elements of a list variable without copying the list, see {@link ListCursor}.
+	 * 
+	 * @param name The list's name, ending in <tt>::*</tt>
+	 * @param e
+	 * @param local
+	 * @return An iterator over the elements of the list as pairs of their indices and values. Elements which are lists themselves are only returned if they
+	 *         have a value.
+	 */
+	public final static Iterator<Pair<String, Object>> getListIterator(final String name, final Event e, final boolean local) {
+		if (local) {
+			final ExecutionFrame f = ExecutionFrame.get(e);
+			final VariablesMap map = f == null ? null : f.getLocalVariables();
+			if (map == null)
+				return new EmptyIterator<Pair<String, Object>>();
+			return new ListCursor(map, null, name);
+		}
+		final VariablesCache cache = getCache(name);
+		if (cache != null) // the cache returns a new map whenever the list changes
+			return new ListCursor((TreeMap<String, Object>) cache.get(name));
+		final int i = stripe(name);
+		return new ListCursor(variables[i], variablesLocks[i].readLock(), name);
+	}
+	
+	/**
+	 * Returns the elements of a list variable with numerical values in the given range, ordered by their values. The values of the list are indexed the first
+	 * time this is called for a list, and the index is updated on every change of the list afterwards. Thus only the first query has to look at the whole list.
+	 * <p>
+	 * Lists of storages that only load variables when they are used are not indexed, but sorted on every call.
+	 * 
+	 * @param name The list's name, ending in <tt>::*</tt>
+	 * @param e
+	 * @param local
+	 * @param min The lowest value (inclusive)
+	 * @param max The highest value (inclusive)
+	 * @param amount The maximum amount of elements to return, or -1 for no limit
+	 * @param descending Whether to order the elements from the highest to the lowest value
+	 * @return The elements as pairs of their indices and values
+	 */
+	@SuppressWarnings("unchecked")
+	public final static List<Pair<String, Object>> getListElementsByValue(final String name, final Event e, final boolean local, final double min, final double max, final int amount, final boolean descending) {
+		if (local) {
+			final ExecutionFrame f = ExecutionFrame.get(e);
+			final ListIndex index = f == null || f.getLocalVariables() == null ? null : f.getLocalVariables().getIndex(name, true);
+			return index == null ? new ArrayList<Pair<String, Object>>(0) : index.get(min, max, amount, descending);
+		}
+		final VariablesCache cache = getCache(name);
+		if (cache != null) {
+			final Object list = cache.get(name);
+			return list == null ? new ArrayList<Pair<String, Object>>(0) : new ListIndex((TreeMap<String, Object>) list).get(min, max, amount, descending);
+		}
+		final int i = stripe(name);
+		try {
+			variablesLocks[i].readLock().lock();
+			final ListIndex index = variables[i].getIndex(name, false);
+			if (index != null)
+				return index.get(min, max, amount, descending);
+		} finally {
+			variablesLocks[i].readLock().unlock();
+		}
+		try {
+			variablesLocks[i].writeLock().lock();
+			final ListIndex index = variables[i].getIndex(name, true);
+			return index == null ? new ArrayList<Pair<String, Object>>(0) : index.get(min, max, amount, descending);
+		} finally {
+			variablesLocks[i].writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Only locks the affected part of the variables map (which is already locked while loading) and moves the loaded variable to the appropriate database if the
+	 * config was changed.
 	 * 
 	 * @param name
 	 * @param value
 	 * @param source
 	 */
 	final static void variableLoaded(final String name, final Object value, final VariablesStorage source) {
-		variables.setVariable(name, value);
+		if (getCache(name) != null) {
+			// the variable has to be written to the storage to be available later
+			setVariable(name, value);
+			return;
+		}
+		final int i = stripe(name);
+		try {
+			variablesLocks[i].writeLock().lock();
+			variables[i].setVariable(name, value);
+		} finally {
+			variablesLocks[i].writeLock().unlock();
+		}
 		
 		for (final VariablesStorage s : storages) {
 			if (s == source) {
@@ -262,11 +544,113 @@ public abstract class Variables implements Closeable {
 		return Classes.serialize(value);
 	}
 	
-	private final static void saveVariableChange(final String name, final Object value) {
-		queue.add(serialize(name, value));
+	/**
+	 * Marks a value that had to be serialised on the main thread.
+	 */
+	private final static class SerializedValue {
+		final Pair<String, byte[]> value;
+		
+		SerializedValue(final Pair<String, byte[]> value) {
+			this.value = value;
+		}
 	}
 	
-	final static BlockingQueue<Pair<String, Pair<String, byte[]>>> queue = new LinkedBlockingQueue<Pair<String, Pair<String, byte[]>>>();
+	/**
+	 * Placeholder for deleted variables in {@link #changes}. A new instance is used for every deletion, as the caches of storages identify changes by their
+	 * value.
+	 */
+	private final static class Deleted {}
+	
+	private final static Object changesLock = new Object();
+	
+	/**
+	 * Global variables that have been changed but not yet been passed to the storages, mapped to their latest value, a {@link Deleted} or a
+	 * {@link SerializedValue}. A variable that is changed multiple times before the changes are saved is thus only serialised and saved once.
+	 * <p>
+	 * The map is ordered by the last change of each variable, as e.g. deleting a list variable must be saved after the changes to its elements made before the
+	 * deletion.
+	 * <p>
+	 * Must be synchronised with {@link #changesLock}.
+	 */
+	private static LinkedHashMap<String, Object> changes = new LinkedHashMap<String, Object>();
+	
+	/**
+	 * Whether the save thread is currently saving changes it has taken from {@link #changes}. Must be synchronised with {@link #changesLock}.
+	 */
+	private static boolean savingChanges = false;
+	
+	private final static AtomicLong coalescedChanges = new AtomicLong(), serializationTime = new AtomicLong();
+	
+	/**
+	 * @return The number of changed variables that are waiting to be saved
+	 */
+	public static int getUnsavedChanges() {
+		synchronized (changesLock) {
+			return changes.size();
+		}
+	}
+	
+	/**
+	 * @return How many changes did not have to be saved as the same variable was changed again before it was saved
+	 */
+	public static long getCoalescedChanges() {
+		return coalescedChanges.get();
+	}
+	
+	/**
+	 * @return The total time spent serialising changed variables, in nanoseconds
+	 */
+	public static long getSerializationTime() {
+		return serializationTime.get();
+	}
+	
+	/**
+	 * Types whose instances cannot change after they have been stored in a variable, apart from enums. Other values, e.g. items or {@link ch.njol.skript.util.Date
+	 * dates}, can still be modified by scripts or Bukkit until the save thread gets to them, thus they are serialised immediately on the thread that changed the
+	 * variable.
+	 */
+	private final static Set<Class<?>> immutableTypes = new HashSet<Class<?>>(Arrays.<Class<?>> asList(String.class, Boolean.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+			Timespan.class, Time.class, Timeperiod.class, Experience.class, Direction.class));
+	
+	/**
+	 * Only values of {@link #immutableTypes immutable types} and enums are serialised by the save thread. Values whose type must be deserialised on the main
+	 * thread are likely Bukkit objects that should not be accessed from other threads either.
+	 */
+	private final static boolean canSerializeAsync(final Object value) {
+		if (!(value instanceof Enum) && !immutableTypes.contains(value.getClass()))
+			return false;
+		final ClassInfo<?> ci = Classes.getSuperClassInfo(value.getClass());
+		return ci != null && ci.getSerializeAs() == null && ci.getSerializer() != null && !ci.getSerializer().mustSyncDeserialization();
+	}
+	
+	/**
+	 * @param cache The cache of the variable's storage if the variable is not stored in {@link #variables}
+	 */
+	private final static void saveVariableChange(final String name, final Object value, final VariablesCache cache) {
+		final Object v;
+		if (value == null) {
+			v = new Deleted();
+		} else if (canSerializeAsync(value)) {
+			v = value;
+		} else {
+			final long start = System.nanoTime();
+			v = new SerializedValue(serialize(value));
+			serializationTime.addAndGet(System.nanoTime() - start);
+		}
+		if (cache != null)
+			cache.changed(name, value, v);
+		synchronized (changesLock) {
+			if (changes.remove(name) != null)
+				coalescedChanges.incrementAndGet();
+			changes.put(name, v);
+			changesLock.notifyAll();
+		}
+	}
+	
+	/**
+	 * Minimum time between two saves of the changed variables in milliseconds, so that variables that are changed frequently are not saved for every change.
+	 */
+	private final static long SAVE_INTERVAL = 100;
 	
 	static volatile boolean closed = false;
 	
@@ -274,37 +658,85 @@ public abstract class Variables implements Closeable {
 		@Override
 		public void run() {
 			while (!closed) {
+				final long start = System.currentTimeMillis();
+				final LinkedHashMap<String, Object> changes;
+				synchronized (changesLock) {
+					try {
+						while (Variables.changes.isEmpty())
+							changesLock.wait();
+					} catch (final InterruptedException e) {
+						continue;
+					}
+					changes = Variables.changes;
+					Variables.changes = new LinkedHashMap<String, Object>();
+					savingChanges = true;
+				}
 				try {
-					final Pair<String, Pair<String, byte[]>> v = queue.take();
-					for (final VariablesStorage s : storages) {
-						if (s.accept(v.first)) {
-							s.save(v);
-							break;
+					for (final Entry<String, Object> c : changes.entrySet()) {
+						final Pair<String, byte[]> value;
+						if (c.getValue() instanceof Deleted) {
+							value = null;
+						} else if (c.getValue() instanceof SerializedValue) {
+							value = ((SerializedValue) c.getValue()).value;
+						} else {
+							final long s = System.nanoTime();
+							value = Classes.serialize(c.getValue());
+							serializationTime.addAndGet(System.nanoTime() - s);
+						}
+						final Pair<String, Pair<String, byte[]>> var = new Pair<String, Pair<String, byte[]>>(c.getKey(), value);
+						for (final VariablesStorage s : storages) {
+							if (s.accept(var.first)) {
+								if (s.cache != null)
+									s.cache.sending(var.first, c.getValue(), var);
+								s.save(var);
+								break;
+							}
 						}
 					}
-				} catch (final InterruptedException e) {}
+				} finally {
+					synchronized (changesLock) {
+						savingChanges = false;
+						changesLock.notifyAll();
+					}
+				}
+				final long wait = start + SAVE_INTERVAL - System.currentTimeMillis();
+				if (wait > 0) {
+					try {
+						Thread.sleep(wait);
+					} catch (final InterruptedException e) {}
+				}
 			}
 		}
 	}, "Skript variable save thread");
 	
-	@Override
-	public void close() {
-		while (queue.size() > 0) {
-			try {
-				Thread.sleep(10);
-			} catch (final InterruptedException e) {}
+	/**
+	 * Passes all remaining changes to the storages and stops the save thread. Must be called before the storages are closed.
+	 */
+	private final static void stopSaveThread() {
+		synchronized (changesLock) {
+			while (!changes.isEmpty() || savingChanges) {
+				try {
+					changesLock.wait(10);
+				} catch (final InterruptedException e) {}
+			}
+			closed = true;
 		}
-		closed = true;
 		saveThread.interrupt();
+		if (Skript.debug())
+			Skript.debug("Variables: " + coalescedChanges.get() + " changes coalesced, " + (serializationTime.get() / 1000000) + " ms spent serialising changes");
 	}
 	
 	public static int numVariables() {
-		try {
-			variablesLock.readLock().lock();
-			return variables.hashMap.size();
-		} finally {
-			variablesLock.readLock().unlock();
+		int r = 0;
+		for (int i = 0; i < STRIPES; i++) {
+			try {
+				variablesLocks[i].readLock().lock();
+				r += variables[i].size();
+			} finally {
+				variablesLocks[i].readLock().unlock();
+			}
 		}
+		return r;
 	}
 	
 }
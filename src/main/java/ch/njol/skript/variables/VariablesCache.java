@@ -0,0 +1,399 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011, 2012 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.variables;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import ch.njol.skript.lang.Variable;
+
+/**
+ * Holds a limited amount of the variables of a storage that only loads variables when they are accessed. Variables that have not been used recently are
+ * removed from the cache, variables that are not set are cached as well, and changed variables are kept in the cache until they have been written by the
+ * storage, as they would otherwise be loaded again with their old value.
+ * <p>
+ * The cache can be used from any thread. Its lock is never held while variables are loaded, thus a slow storage only blocks the threads that actually have to
+ * wait for a variable.
+ * 
+ * @author Peter Güttinger
+ */
+final class VariablesCache {
+	
+	/**
+	 * Loads variables that are not in the cache.
+	 */
+	static interface Loader {
+		
+		/**
+		 * @param name The name of a single variable
+		 * @return The value of the variable or null if it is not set
+		 * @throws SQLException If the variable could not be loaded. Nothing is cached in this case.
+		 */
+		Object load(String name) throws SQLException;
+		
+		/**
+		 * Loads all variables whose names start with the given prefix in any order.
+		 * 
+		 * @param prefix A list's name without the trailing <tt>*</tt>, e.g. <tt>list::</tt>
+		 * @param target The map to add the variables to by their full names
+		 * @throws SQLException If the list could not be loaded. Nothing is cached in this case.
+		 */
+		void loadList(String prefix, Map<String, Object> target) throws SQLException;
+		
+	}
+	
+	/**
+	 * Value of cached variables that are not set
+	 */
+	private final static Object ABSENT = new Object();
+	
+	private final static String LIST_SUFFIX = Variable.SEPARATOR + "*";
+	
+	private final static class CacheEntry {
+		final String name;
+		/**
+		 * The value or {@link #ABSENT}. For lists the value is the map returned by {@link VariablesMap#getVariable(String)}.
+		 */
+		Object value;
+		int weight;
+		
+		/**
+		 * Whether this entry has been changed but not yet been written, i.e. the storage might still contain an old value.
+		 */
+		boolean unsaved = false;
+		/**
+		 * The latest change made to this entry, and the token that was used to pass the change to the storage (null if it hasn't been passed to the storage yet).
+		 */
+		Object change, sent;
+		
+		/**
+		 * Only saved entries are in the list of recently used entries, and can thus be removed from the cache.
+		 */
+		CacheEntry prev, next;
+		
+		CacheEntry(final String name, final Object value, final int weight) {
+			this.name = name;
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+	
+	private final Loader loader;
+	
+	private final int maxSize;
+	
+	/**
+	 * The sum of the weights of all saved entries
+	 */
+	private int size = 0;
+	
+	/**
+	 * All entries by name. Sorted to be able to find all elements of a list.
+	 */
+	private final TreeMap<String, CacheEntry> entries = new TreeMap<String, CacheEntry>();
+	
+	/**
+	 * Sentinel of the list of saved entries. The entry after the head is the least recently used entry.
+	 */
+	private final CacheEntry head = new CacheEntry("", null, 0);
+	{
+		head.prev = head.next = head;
+	}
+	
+	private long hits = 0, misses = 0;
+	
+	/**
+	 * Incremented whenever a variable is changed. Variables are not cached if this changed while they were loaded, as the loaded value might be outdated.
+	 */
+	private long version = 0;
+	
+	/**
+	 * @param loader
+	 * @param maxSize The maximum amount of variables to keep in the cache, not including changed variables that have not been saved yet.
+	 */
+	VariablesCache(final Loader loader, final int maxSize) {
+		this.loader = loader;
+		this.maxSize = maxSize;
+	}
+	
+	private final void unlink(final CacheEntry e) {
+		e.prev.next = e.next;
+		e.next.prev = e.prev;
+		e.prev = e.next = null;
+		size -= e.weight;
+	}
+	
+	private final void link(final CacheEntry e) {
+		e.prev = head.prev;
+		e.next = head;
+		head.prev.next = e;
+		head.prev = e;
+		size += e.weight;
+		while (size > maxSize && head.next != e) {
+			final CacheEntry lru = head.next;
+			unlink(lru);
+			entries.remove(lru.name);
+		}
+	}
+	
+	private final void remove(final CacheEntry e) {
+		if (!e.unsaved)
+			unlink(e);
+		entries.remove(e.name);
+	}
+	
+	/**
+	 * @return The last key of all strings starting with the given prefix (exclusive)
+	 */
+	private final static String end(final String prefix) {
+		return prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1);
+	}
+	
+	/**
+	 * Returns the value of a variable, loading it if it is not cached.
+	 * 
+	 * @param name The name of a variable or list (ending in <tt>::*</tt>)
+	 * @return The variable's value, a map for a list like {@link VariablesMap#getVariable(String)}, or null if the variable is not set or could not be loaded.
+	 */
+	@SuppressWarnings("unchecked")
+	Object get(final String name) {
+		final boolean list = isList(name);
+		final ListChanges changes;
+		final long v;
+		synchronized (this) {
+			final CacheEntry e = entries.get(name);
+			if (e != null && !(e.unsaved && list)) {
+				hits++;
+				if (!e.unsaved) {
+					unlink(e);
+					link(e);
+				}
+				return e.value == ABSENT ? null : e.value;
+			}
+			misses++;
+			if (!list && isDeletedList(name)) {
+				final CacheEntry d = new CacheEntry(name, ABSENT, 1);
+				link(d);
+				entries.put(name, d);
+				return null;
+			}
+			changes = list ? getListChanges(name) : null;
+			v = version;
+		}
+		final Object value;
+		try {
+			value = list ? loadList(name, changes) : loader.load(name);
+		} catch (final SQLException ex) {
+			return null;
+		}
+		synchronized (this) {
+			if (v == version && !entries.containsKey(name)) {
+				int weight = 1;
+				if (list && value != null)
+					weight += VariablesMap.count((TreeMap<String, Object>) value);
+				final CacheEntry e = new CacheEntry(name, value == null ? ABSENT : value, weight);
+				link(e);
+				entries.put(name, e);
+			}
+		}
+		return value;
+	}
+	
+	private final static boolean isList(final String name) {
+		return name.endsWith(LIST_SUFFIX);
+	}
+	
+	/**
+	 * @return Whether a list containing the given variable has been deleted, but the deletion has not been saved yet
+	 */
+	private final boolean isDeletedList(final String name) {
+		int i = -1;
+		while ((i = name.indexOf(Variable.SEPARATOR, i + 1)) != -1) {
+			final CacheEntry l = entries.get(name.substring(0, i) + LIST_SUFFIX);
+			if (l != null && l.unsaved)
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * The unsaved changes to the elements of a list, which are applied to the list after it has been loaded from the storage.
+	 */
+	private final static class ListChanges {
+		/**
+		 * Whether the list or a list containing it has been deleted, in which case the storage may still contain its old elements
+		 */
+		boolean deleted;
+		/**
+		 * Prefixes of deleted sub-lists, whose elements are still in the storage
+		 */
+		final List<String> deletedLists = new ArrayList<String>();
+		/**
+		 * Unsaved values of the list's elements, {@link #ABSENT} for deleted elements
+		 */
+		final Map<String, Object> values = new HashMap<String, Object>();
+	}
+	
+	/**
+	 * Must be called while holding the lock.
+	 */
+	private final ListChanges getListChanges(final String name) {
+		assert Thread.holdsLock(this);
+		final String prefix = name.substring(0, name.length() - 1);
+		final ListChanges changes = new ListChanges();
+		changes.deleted = isDeletedList(name);
+		for (final Entry<String, CacheEntry> v : entries.subMap(prefix, end(prefix)).entrySet()) {
+			if (!v.getValue().unsaved)
+				continue;
+			if (isList(v.getKey()))
+				changes.deletedLists.add(v.getKey().substring(0, v.getKey().length() - 1));
+			else
+				changes.values.put(v.getKey(), v.getValue().value);
+		}
+		return changes;
+	}
+	
+	/**
+	 * Loads a list from the storage and applies the given unsaved changes to it. Must not be called while holding the lock.
+	 */
+	private final Object loadList(final String name, final ListChanges changes) throws SQLException {
+		final String prefix = name.substring(0, name.length() - 1);
+		final TreeMap<String, Object> vars = new TreeMap<String, Object>();
+		if (!changes.deleted) {
+			loader.loadList(prefix, vars);
+			for (final String p : changes.deletedLists)
+				vars.subMap(p, end(p)).clear();
+		}
+		for (final Entry<String, Object> v : changes.values.entrySet()) {
+			if (v.getValue() == ABSENT)
+				vars.remove(v.getKey());
+			else
+				vars.put(v.getKey(), v.getValue());
+		}
+		if (vars.isEmpty())
+			return null;
+		final VariablesMap map = new VariablesMap();
+		final String parent = prefix.substring(0, prefix.length() - Variable.SEPARATOR.length());
+		final Object parentValue = get(parent);
+		if (parentValue != null)
+			map.setVariable(parent, parentValue);
+		for (final Entry<String, Object> v : vars.entrySet())
+			map.setVariable(v.getKey(), v.getValue());
+		return map.getVariable(name);
+	}
+	
+	/**
+	 * Must be called whenever a variable of the storage is changed, before the change is passed to the storage.
+	 * 
+	 * @param name The name of the changed variable or list
+	 * @param value The new value (must be null for lists)
+	 * @param change An object identifying this change, which will be passed to {@link #sending(String, Object, Object)}
+	 */
+	synchronized void changed(final String name, final Object value, final Object change) {
+		final boolean list = isList(name);
+		assert !list || value == null;
+		if (list) {
+			// the deletion of the list will be saved after any previous changes to its elements
+			final String prefix = name.substring(0, name.length() - 1);
+			final SortedMap<String, CacheEntry> elements = entries.subMap(prefix, end(prefix));
+			while (!elements.isEmpty())
+				remove(elements.get(elements.firstKey()));
+		} else {
+			final CacheEntry l = entries.get(name + LIST_SUFFIX);
+			if (l != null && !l.unsaved)
+				remove(l);
+		}
+		// invalidate all lists containing the variable
+		int i = -1;
+		while ((i = name.indexOf(Variable.SEPARATOR, i + 1)) != -1 && i + Variable.SEPARATOR.length() < name.length() - (list ? 1 : 0)) {
+			final CacheEntry l = entries.get(name.substring(0, i) + LIST_SUFFIX);
+			if (l != null && !l.unsaved)
+				remove(l);
+		}
+		CacheEntry e = entries.get(name);
+		if (e == null) {
+			e = new CacheEntry(name, null, 1);
+			entries.put(name, e);
+		} else if (!e.unsaved) {
+			unlink(e);
+		}
+		e.value = value == null ? ABSENT : value;
+		e.weight = 1;
+		e.unsaved = true;
+		version++;
+		e.change = change;
+		e.sent = null;
+	}
+	
+	/**
+	 * Must be called when a change is passed to the storage.
+	 * 
+	 * @param name
+	 * @param change The object passed to {@link #changed(String, Object, Object)}
+	 * @param token An object that identifies this save, which must be passed to {@link #saved(String, Object)} after the change has been written
+	 */
+	synchronized void sending(final String name, final Object change, final Object token) {
+		final CacheEntry e = entries.get(name);
+		if (e != null && e.unsaved && e.change == change)
+			e.sent = token;
+	}
+	
+	/**
+	 * Must be called after a change has been written.
+	 * 
+	 * @param name
+	 * @param token The token passed to {@link #sending(String, Object, Object)}
+	 */
+	synchronized void saved(final String name, final Object token) {
+		final CacheEntry e = entries.get(name);
+		if (e == null || !e.unsaved || e.sent != token)
+			return;
+		e.unsaved = false;
+		e.change = e.sent = null;
+		if (isList(name)) // the list may have new elements by now
+			entries.remove(name);
+		else
+			link(e);
+	}
+	
+	/**
+	 * @return The amount of cached variables, not including unsaved changes
+	 */
+	synchronized int size() {
+		return size;
+	}
+	
+	synchronized long getHits() {
+		return hits;
+	}
+	
+	synchronized long getMisses() {
+		return misses;
+	}
+
+}
@@ -22,17 +22,26 @@
 package ch.njol.skript.variables;
 
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
 import ch.njol.skript.lang.Variable;
-import ch.njol.skript.util.Utils;
-import ch.njol.util.StringUtils;
 
-final class VariablesMap {
+/**
+ * Stores variables, with list variables as sorted maps of their elements.
+ * 
+ * @author Peter Güttinger
+ */
+public final class VariablesMap {
 	
+	/**
+	 * Compares variable names by comparing runs of digits by their numerical value and everything else by character. Does not allocate any objects, as this is
+	 * the comparator of every list variable.
+	 * <p>
+	 * Numbers are compared by their significant digits, thus arbitrarily long numbers are supported. Leading zeros are ignored, i.e. "1" and "01" are equal.
+	 */
 	final static Comparator<String> variableNameComparator = new Comparator<String>() {
 		@Override
 		public int compare(final String s1, final String s2) {
@@ -40,19 +49,31 @@ final class VariablesMap {
 				return s2 == null ? 0 : -1;
 			if (s2 == null)
 				return 1;
+			final int l1 = s1.length(), l2 = s2.length();
 			int i = 0, j = 0;
-			while (i < s1.length() && j < s2.length()) {
+			while (i < l1 && j < l2) {
 				final char c1 = s1.charAt(i), c2 = s2.charAt(j);
-				if ('0' <= c1 && c1 <= '9' && '0' <= c2 && c2 <= '9') {
-					final int i2 = StringUtils.findLastDigit(s1, i), j2 = StringUtils.findLastDigit(s2, j);
-					final int n1 = Utils.parseInt(s1.substring(i, i2)), n2 = Utils.parseInt(s2.substring(j, j2));
-					if (n1 > n2)
-						return 1;
-					if (n1 < n2)
-						return -1;
-					i = i2;
-					j = j2;
-					continue;
+				if (isDigit(c1) && isDigit(c2)) {
+					int z1 = i, z2 = j;
+					while (z1 < l1 && s1.charAt(z1) == '0')
+						z1++;
+					while (z2 < l2 && s2.charAt(z2) == '0')
+						z2++;
+					int e1 = z1, e2 = z2;
+					while (e1 < l1 && isDigit(s1.charAt(e1)))
+						e1++;
+					while (e2 < l2 && isDigit(s2.charAt(e2)))
+						e2++;
+					// more significant digits = larger number
+					if (e1 - z1 != e2 - z2)
+						return e1 - z1 > e2 - z2 ? 1 : -1;
+					for (int k = 0; k < e1 - z1; k++) {
+						final char d1 = s1.charAt(z1 + k), d2 = s2.charAt(z2 + k);
+						if (d1 != d2)
+							return d1 > d2 ? 1 : -1;
+					}
+					i = e1;
+					j = e2;
 				} else {
 					if (c1 > c2)
 						return 1;
@@ -62,17 +83,110 @@ final class VariablesMap {
 					j++;
 				}
 			}
-			if (i < s1.length())
+			if (i < l1)
 				return -1;
-			if (j < s2.length())
+			if (j < l2)
 				return 1;
 			return 0;
 		}
+		
+		private final boolean isDigit(final char c) {
+			return '0' <= c && c <= '9';
+		}
 	};
 	
-	final HashMap<String, Object> hashMap = new HashMap<String, Object>();
+	/**
+	 * The map of a list variable. Keeps track of the first free numerical index of the list, so that adding an element to a list does not have to search the
+	 * whole list for a free index.
+	 */
+	private final static class ListMap extends TreeMap<String, Object> {
+		private final static long serialVersionUID = 4127520154196337834L;
+		
+		/**
+		 * All indices from 1 to <tt>firstFree - 1</tt> are used, but <tt>firstFree</tt> is not.
+		 */
+		int firstFree = 1;
+		
+		ListMap() {
+			super(variableNameComparator);
+		}
+		
+		void added(final String key) {
+			if (indexOf(key) != firstFree)
+				return;
+			do {
+				firstFree++;
+			} while (firstFree > 0 && containsKey(String.valueOf(firstFree)));
+		}
+		
+		void removed(final String key) {
+			final int i = indexOf(key);
+			if (i > 0 && i < firstFree)
+				firstFree = i;
+		}
+		
+		/**
+		 * @return The positive index the key represents, ignoring leading zeros like the comparator does, or -1 if the key is not a number that fits into an int.
+		 */
+		private final static int indexOf(final String key) {
+			if (key == null || key.isEmpty() || key.length() > 10)
+				return -1;
+			long r = 0;
+			for (int i = 0; i < key.length(); i++) {
+				final char c = key.charAt(i);
+				if (c < '0' || c > '9')
+					return -1;
+				r = r * 10 + c - '0';
+			}
+			return r > Integer.MAX_VALUE ? -1 : (int) r;
+		}
+	}
+	
+	/**
+	 * Returns the lowest positive index that is not used by the given list, in constant time for lists of this class.
+	 * 
+	 * @param list A map returned by {@link #getVariable(String)} for a list variable, or by {@link Variables#getVariable(String, org.bukkit.event.Event, boolean)}
+	 * @return The first free index of the list, or 1 if the map is not a list of a variables map, in which case the caller has to skip used indices itself.
+	 */
+	public final static int getFirstFreeIndex(final Map<String, Object> list) {
+		if (list instanceof ListMap && ((ListMap) list).firstFree > 0)
+			return ((ListMap) list).firstFree;
+		return 1;
+	}
+	
+	private final static String LIST_SUFFIX = Variable.SEPARATOR + "*";
+	
+	/**
+	 * The variables, stored as a tree of maps by the parts of their names. A variable that has both a value and sub-variables is stored as a map that maps
+	 * <tt>null</tt> to its value.
+	 * <p>
+	 * This is the only structure holding the variables - names are never split into arrays but walked part by part, and each part of a name is only stored once
+	 * per level, as a TreeMap keeps the existing key when a value is replaced.
+	 */
 	final TreeMap<String, Object> treeMap = new TreeMap<String, Object>();
 	
+	/**
+	 * The amount of variables in this map, i.e. values not including lists.
+	 */
+	private int size = 0;
+	
+	/**
+	 * The value indices of lists that have been queried by their values, by the maps of the lists. Null if no list has an index.
+	 */
+	private IdentityHashMap<TreeMap<String, Object>, ListIndex> indices = null;
+	
+	/**
+	 * Incremented whenever a list is deleted, as this removes or replaces the list's map, which might still be in use by a {@link ListCursor}.
+	 */
+	int listDeletions = 0;
+	
+	/**
+	 * @return The amount of variables in this map
+	 */
+	final int size() {
+		return size;
+	}
+	
 	/**
 	 * Returns the internal value of the requested variable.
 	 * <p>
@@ -83,29 +197,25 @@ final class VariablesMap {
 	 */
 	@SuppressWarnings("unchecked")
 	final Object getVariable(final String name) {
-		if (!name.endsWith("*")) {
-			return hashMap.get(name);
-		} else {
-			final String[] split = Variables.splitVariableName(name);
-			TreeMap<String, Object> current = treeMap;
-			for (int i = 0; i < split.length; i++) {
-				final String n = split[i];
-				if (n.equals("*")) {
-					assert i == split.length - 1;
-					return current;
-				}
-				final Object o = current.get(n);
-				if (o == null)
-					return null;
-				if (o instanceof Map) {
-					current = (TreeMap<String, Object>) o;
-					assert i != split.length - 1;
-					continue;
-				} else {
-					return null;
-				}
+		final boolean list = name.endsWith(LIST_SUFFIX);
+		final int end = list ? name.length() - LIST_SUFFIX.length() : name.length();
+		TreeMap<String, Object> current = treeMap;
+		int start = 0;
+		while (true) {
+			int sep = name.indexOf(Variable.SEPARATOR, start);
+			final boolean last = sep == -1 || sep >= end;
+			if (last)
+				sep = end;
+			final Object o = current.get(start == 0 && sep == name.length() ? name : name.substring(start, sep));
+			if (last) {
+				if (list)
+					return o instanceof TreeMap ? o : null;
+				return o instanceof TreeMap ? ((TreeMap<String, Object>) o).get(null) : o;
 			}
-			return null;
+			if (!(o instanceof TreeMap))
+				return null;
+			current = (TreeMap<String, Object>) o;
+			start = sep + Variable.SEPARATOR.length();
 		}
 	}
 	
@@ -117,78 +227,173 @@ final class VariablesMap {
 	 */
 	@SuppressWarnings("unchecked")
 	final void setVariable(final String name, final Object value) {
-		if (!name.endsWith("*")) {
-			if (value == null)
-				hashMap.remove(name);
-			else
-				hashMap.put(name, value);
-		}
-		final String[] split = Variables.splitVariableName(name);
+		final boolean list = name.endsWith(LIST_SUFFIX);
+		assert !list || value == null;
+		final int end = list ? name.length() - LIST_SUFFIX.length() : name.length();
 		TreeMap<String, Object> parent = treeMap;
-		for (int i = 0; i < split.length; i++) {
-			final String n = split[i];
-			Object current = parent.get(n);
-			if (current == null) {
-				if (i == split.length - 1) {
-					if (value != null)
-						parent.put(n, value);
-					break;
-				} else if (value != null) {
-					parent.put(n, current = new TreeMap<String, Object>(variableNameComparator));
-					parent = (TreeMap<String, Object>) current;
-					continue;
-				} else {
-					break;
+		int start = 0;
+		while (true) {
+			int sep = name.indexOf(Variable.SEPARATOR, start);
+			final boolean last = sep == -1 || sep >= end;
+			if (last)
+				sep = end;
+			final String n = start == 0 && sep == name.length() ? name : name.substring(start, sep);
+			final Object current = parent.get(n);
+			if (last) {
+				if (list) {
+					if (current instanceof TreeMap) {
+						// deletes all sub-variables, but keeps the variable itself if it has a value
+						final Object v = ((TreeMap<String, Object>) current).get(null);
+						size -= count((TreeMap<String, Object>) current) - (v == null ? 0 : 1);
+						if (v == null) {
+							parent.remove(n);
+							if (parent instanceof ListMap)
+								((ListMap) parent).removed(n);
+						} else {
+							parent.put(n, v);
+						}
+						listDeletions++;
+						if (indices != null) {
+							removeIndices((TreeMap<String, Object>) current);
+							if (indices.isEmpty())
+								indices = null;
+						}
+					}
+					return;
+				}
+				if (indices != null) {
+					final ListIndex index = indices.get(parent);
+					if (index != null)
+						index.set(n, value);
 				}
-			} else if (current instanceof TreeMap) {
-				if (i == split.length - 1) {
-					if (value == null)
-						((TreeMap<String, Object>) current).remove(null);
-					else
-						((TreeMap<String, Object>) current).put(null, value);
-					break;
-				} else if (i == split.length - 2 && split[i + 1].equals("*")) {
-					assert value == null;
-					deleteFromHashMap(StringUtils.join(split, Variable.SEPARATOR, 0, i + 1), (TreeMap<String, Object>) current);
-					final Object v = ((TreeMap<String, Object>) current).get(null);
-					if (v == null)
+				if (current instanceof TreeMap) {
+					final Object old = value == null ? ((TreeMap<String, Object>) current).remove(null) : ((TreeMap<String, Object>) current).put(null, value);
+					if (old == null && value != null)
+						size++;
+					else if (old != null && value == null)
+						size--;
+				} else if (value == null) {
+					if (current != null) {
 						parent.remove(n);
-					else
-						parent.put(n, v);
-					break;
+						if (parent instanceof ListMap)
+							((ListMap) parent).removed(n);
+						size--;
+					}
 				} else {
-					parent = (TreeMap<String, Object>) current;
-					continue;
+					parent.put(n, value);
+					if (current == null) {
+						if (parent instanceof ListMap)
+							((ListMap) parent).added(n);
+						size++;
+					}
 				}
+				return;
+			}
+			if (current instanceof TreeMap) {
+				parent = (TreeMap<String, Object>) current;
+			} else if (value == null) {
+				return;
 			} else {
-				if (i == split.length - 1) {
-					if (value == null)
-						parent.remove(n);
-					else
-						parent.put(n, value);
-					break;
-				} else if (value != null) {
-					final TreeMap<String, Object> c = new TreeMap<String, Object>(variableNameComparator);
+				final TreeMap<String, Object> c = new ListMap();
+				if (current != null)
 					c.put(null, current);
-					parent.put(n, c);
-					parent = c;
-					continue;
-				} else {
-					break;
-				}
+				parent.put(n, c);
+				if (current == null && parent instanceof ListMap)
+					((ListMap) parent).added(n);
+				parent = c;
 			}
+			start = sep + Variable.SEPARATOR.length();
 		}
 	}
 	
-	void deleteFromHashMap(final String parent, final TreeMap<String, Object> current) {
-		for (final Entry<String, Object> e : current.entrySet()) {
-			if (e.getKey() == null)
-				continue;
-			hashMap.remove(parent + Variable.SEPARATOR + e.getKey());
+	/**
+	 * Removes the indices of the given list and all its sub-lists.
+	 */
+	@SuppressWarnings("unchecked")
+	private final void removeIndices(final TreeMap<String, Object> list) {
+		indices.remove(list);
+		for (final Object o : list.values()) {
+			if (o instanceof TreeMap)
+				removeIndices((TreeMap<String, Object>) o);
+		}
+	}
+	
+	/**
+	 * Returns the index of the values of a list. Indices are only created when requested, after which they are updated whenever an element of the list changes
+	 * until the list is deleted.
+	 * <p>
+	 * Creating an index modifies this map, thus this must only be called while holding a write lock if <tt>create</tt> is true.
+	 * 
+	 * @param name The list's name, ending in <tt>::*</tt>
+	 * @param create Whether to create the index if the list doesn't have one yet
+	 * @return The list's index, or null if the list doesn't exist or doesn't have an index and <tt>create</tt> is false
+	 */
+	@SuppressWarnings("unchecked")
+	final ListIndex getIndex(final String name, final boolean create) {
+		final Object list = getVariable(name);
+		if (list == null)
+			return null;
+		ListIndex index = indices == null ? null : indices.get(list);
+		if (index == null && create) {
+			if (indices == null)
+				indices = new IdentityHashMap<TreeMap<String, Object>, ListIndex>();
+			indices.put((TreeMap<String, Object>) list, index = new ListIndex((TreeMap<String, Object>) list));
+		}
+		return index;
+	}
+	
+	/**
+	 * @return The amount of values in the given map and all its sub-maps
+	 */
+	@SuppressWarnings("unchecked")
+	final static int count(final TreeMap<String, Object> map) {
+		int r = 0;
+		for (final Object o : map.values()) {
+			if (o instanceof TreeMap)
+				r += count((TreeMap<String, Object>) o);
+			else
+				r++;
+		}
+		return r;
+	}
+	
+	/**
+	 * Copies all entries of the given tree into the target map, copying nested maps (i.e. list variables) as well so that the target is independent of the source.
+	 * The values themselves are not copied.
+	 */
+	@SuppressWarnings("unchecked")
+	static void copyTreeInto(final TreeMap<String, Object> source, final TreeMap<String, Object> target) {
+		for (final Entry<String, Object> e : source.entrySet()) {
 			if (e.getValue() instanceof TreeMap) {
-				deleteFromHashMap(parent + Variable.SEPARATOR + e.getKey(), (TreeMap<String, Object>) e.getValue());
+				final ListMap copy = new ListMap();
+				copyTreeInto((TreeMap<String, Object>) e.getValue(), copy);
+				if (e.getValue() instanceof ListMap)
+					copy.firstFree = ((ListMap) e.getValue()).firstFree;
+				target.put(e.getKey(), copy);
+			} else {
+				target.put(e.getKey(), e.getValue());
 			}
 		}
 	}
 	
+	/**
+	 * Puts all variables of the given tree into the target map by their full names.
+	 * 
+	 * @param parent The name of the variable the given tree belongs to, or null if it's the root
+	 */
+	@SuppressWarnings("unchecked")
+	static void flattenInto(final String parent, final TreeMap<String, Object> tree, final Map<String, Object> target) {
+		for (final Entry<String, Object> e : tree.entrySet()) {
+			if (e.getKey() == null) {
+				target.put(parent, e.getValue());
+				continue;
+			}
+			final String name = parent == null ? e.getKey() : parent + Variable.SEPARATOR + e.getKey();
+			if (e.getValue() instanceof TreeMap)
+				flattenInto(name, (TreeMap<String, Object>) e.getValue(), target);
+			else
+				target.put(name, e.getValue());
+		}
+	}
+	
 }
@@ -24,7 +24,13 @@ package ch.njol.skript.variables;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -48,8 +54,26 @@ public abstract class VariablesStorage implements Closeable {
 	
 	final LinkedBlockingQueue<Pair<String, Pair<String, byte[]>>> changesQueue = new LinkedBlockingQueue<Pair<String, Pair<String, byte[]>>>(QUEUE_SIZE);
 	
+	/**
+	 * Put into the queue by {@link #close()} to stop the write thread after it has saved all changes before it
+	 */
+	private final static Pair<String, Pair<String, byte[]>> CLOSE = new Pair<String, Pair<String, byte[]>>("", null);
+	
+	/**
+	 * How long {@link #close()} waits for the write thread to save the remaining changes, in milliseconds
+	 */
+	private final static long CLOSE_TIMEOUT = 60000;
+	
+	/**
+	 * Set after the write thread has stopped or {@link #close()} stopped waiting for it
+	 */
 	protected volatile boolean closed = false;
 	
+	/**
+	 * The number of changes the write thread is currently saving
+	 */
+	private volatile int saving = 0;
+	
 	protected final String name;
 	
 	protected File file;
@@ -61,18 +85,82 @@ public abstract class VariablesStorage implements Closeable {
 	
 	private final Thread writeThread;
 	
+	/**
+	 * The maximum amount of changes that are passed to {@link #saveBatch(Map)} at once. 1 disables batching, i.e. {@link #save(String, String, byte[])} is called for
+	 * every change.
+	 */
+	protected int batchSize = 1;
+	
+	/**
+	 * How long to wait for more changes before an incomplete batch is saved, in milliseconds.
+	 */
+	protected long batchDelay = 0;
+	
+	/**
+	 * The cache of the variables of this storage if they are only loaded when used, or null if all variables are loaded into {@link Variables} when the storage
+	 * is loaded. The cache is notified by the writer thread after changes have been saved.
+	 */
+	VariablesCache cache = null;
+	
 	protected VariablesStorage(final SectionNode n) {
 		name = n.getKey();
 		writeThread = Skript.newThread(new Runnable() {
 			@Override
 			public void run() {
-				while (!closed) {
+				while (true) {
 					try {
 						final Pair<String, Pair<String, byte[]>> var = changesQueue.take();
-						if (var.second != null)
-							save(var.first, var.second.first, var.second.second);
-						else
-							save(var.first, null, null);
+						if (var == CLOSE)
+							return;
+						if (batchSize <= 1) {
+							saving = 1;
+							final boolean saved;
+							if (var.second != null)
+								saved = save(var.first, var.second.first, var.second.second);
+							else
+								saved = save(var.first, null, null);
+							// if the change could not be written the cache must keep it, as the storage still contains the old value
+							if (saved && cache != null)
+								cache.saved(var.first, var);
+							saving = 0;
+							continue;
+						}
+						// only the last change of each variable is kept, ordered by the last change (deleting a list must be saved after changes to its elements)
+						final LinkedHashMap<String, Pair<String, byte[]>> batch = new LinkedHashMap<String, Pair<String, byte[]>>();
+						final ArrayList<Pair<String, Pair<String, byte[]>>> vars = cache == null ? null : new ArrayList<Pair<String, Pair<String, byte[]>>>();
+						batch.put(var.first, var.second);
+						if (vars != null)
+							vars.add(var);
+						final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchDelay);
+						boolean close = false;
+						try {
+							while (batch.size() < batchSize) {
+								final long wait = end - System.nanoTime();
+								final Pair<String, Pair<String, byte[]>> v = wait > 0 ? changesQueue.poll(wait, TimeUnit.NANOSECONDS) : changesQueue.poll();
+								if (v == null)
+									break;
+								if (v == CLOSE) {
+									close = true;
+									break;
+								}
+								batch.remove(v.first);
+								batch.put(v.first, v.second);
+								if (vars != null)
+									vars.add(v);
+							}
+						} catch (final InterruptedException e) {}
+						saving = batch.size();
+						saveBatch(batch);
+						if (vars != null) {
+							// changes that could not be written have been removed from the batch
+							for (final Pair<String, Pair<String, byte[]>> v : vars) {
+								if (batch.containsKey(v.first))
+									cache.saved(v.first, v);
+							}
+						}
+						saving = 0;
+						if (close)
+							return;
 					} catch (final InterruptedException e) {}
 				}
 			}
@@ -102,6 +190,17 @@ public abstract class VariablesStorage implements Closeable {
 		}
 	}
 	
+	/**
+	 * Like {@link #getValue(SectionNode, String, Class)}, but returns the given default value without printing an error if the entry is missing.
+	 * 
+	 * @return The parsed value, <tt>def</tt> if the entry is missing, or null if the entry is invalid
+	 */
+	protected <T> T getValue(final SectionNode n, final String key, final Class<T> type, final T def) {
+		if (n.getValue(key) == null)
+			return def;
+		return getValue(n, key, type);
+	}
+	
 	public final boolean load(final SectionNode n) {
 		final String pattern = getValue(n, "pattern");
 		if (pattern == null)
@@ -193,20 +292,16 @@ public abstract class VariablesStorage implements Closeable {
 		backupTask = new Task(Skript.getInstance(), t.getTicks(), t.getTicks(), true) {
 			@Override
 			public void run() {
+				// variables can still be changed during the backup, the changes will be written to the file when the writer thread can acquire the connection lock again
 				synchronized (connectionLock) {
+					disconnect();
 					try {
-						Variables.getReadLock().lock();
-						disconnect();
-						try {
-							FileUtils.backup(file);
-						} catch (final IOException e) {
-							Skript.error("Automatic variables backup failed: " + e.getLocalizedMessage());
-						} finally {
-							connect();
-							connectionLock.notifyAll();
-						}
+						FileUtils.backup(file);
+					} catch (final IOException e) {
+						Skript.error("Automatic variables backup failed: " + e.getLocalizedMessage());
 					} finally {
-						Variables.getReadLock().unlock();
+						connect();
+						connectionLock.notifyAll();
 					}
 				}
 			}
@@ -245,14 +340,27 @@ public abstract class VariablesStorage implements Closeable {
 		}
 	}
 	
+	/**
+	 * Waits until the write thread has saved all changes, or logs how many changes could not be saved if it takes longer than {@link #CLOSE_TIMEOUT}.
+	 */
 	@Override
 	public void close() {
-		while (changesQueue.size() > 0) {
+		// the write thread saves all changes before the marker, including the last batch, and then stops
+		try {
+			while (writeThread.isAlive() && !changesQueue.offer(CLOSE, 10, TimeUnit.MILLISECONDS)) {}
+		} catch (final InterruptedException e) {}
+		final long end = System.currentTimeMillis() + CLOSE_TIMEOUT;
+		long wait;
+		while (writeThread.isAlive() && (wait = end - System.currentTimeMillis()) > 0) {
 			try {
-				Thread.sleep(10);
+				writeThread.join(wait);
 			} catch (final InterruptedException e) {}
 		}
 		closed = true;
+		changesQueue.remove(CLOSE);
+		final int unsaved = changesQueue.size() + (writeThread.isAlive() ? saving : 0);
+		if (unsaved > 0)
+			Skript.error(unsaved + " variable changes could not be saved to the database '" + name + "' before it was closed.");
 		writeThread.interrupt();
 	}
 	
@@ -269,7 +377,30 @@ public abstract class VariablesStorage implements Closeable {
 	 * @param name
 	 * @param type
 	 * @param value
+	 * @return Whether the variable was written successfully
+	 */
+	protected abstract boolean save(String name, String type, byte[] value);
+	
+	/**
+	 * Saves several variables at once. Only used if {@link #batchSize} is larger than 1.
+	 * <p>
+	 * The default implementation saves the variables one by one.
+	 * 
+	 * @param batch The variables to save, mapped to their type and value. The value may be null to delete a variable. Variables that could not be written
+	 *            must be removed from the map.
 	 */
-	protected abstract void save(String name, String type, byte[] value);
+	protected void saveBatch(final Map<String, Pair<String, byte[]>> batch) {
+		final Iterator<Entry<String, Pair<String, byte[]>>> iter = batch.entrySet().iterator();
+		while (iter.hasNext()) {
+			final Entry<String, Pair<String, byte[]>> v = iter.next();
+			final boolean saved;
+			if (v.getValue() != null)
+				saved = save(v.getKey(), v.getValue().first, v.getValue().second);
+			else
+				saved = save(v.getKey(), null, null);
+			if (!saved)
+				iter.remove();
+		}
+	}
 	
 }
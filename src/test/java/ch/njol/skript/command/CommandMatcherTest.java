@@ -0,0 +1,125 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.command;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ch.njol.skript.classes.Parser;
+import ch.njol.skript.lang.ParseContext;
+
+/**
+ * @author Peter Güttinger
+ */
+public class CommandMatcherTest {
+	
+	private abstract static class TestParser<T> extends Parser<T> {
+		@Override
+		public String toString(final T o, final int flags) {
+			return "" + o;
+		}
+		
+		@Override
+		public String toVariableNameString(final T o) {
+			return "" + o;
+		}
+		
+		@Override
+		public String getVariableNamePattern() {
+			return ".+";
+		}
+	}
+	
+	private final static Parser<Integer> integerParser = new TestParser<Integer>() {
+		@Override
+		public Integer parse(final String s, final ParseContext context) {
+			try {
+				return Integer.valueOf(s);
+			} catch (final NumberFormatException e) {
+				return null;
+			}
+		}
+	};
+	
+	private final static Parser<String> nameParser = new TestParser<String>() {
+		@Override
+		public String parse(final String s, final ParseContext context) {
+			return s.matches("[a-zA-Z0-9_]+") ? s : null;
+		}
+	};
+	
+	private final static Parser<String> textParser = new TestParser<String>() {
+		@Override
+		public String parse(final String s, final ParseContext context) {
+			return s;
+		}
+	};
+	
+	private final static CommandMatcher give = new CommandMatcher("%string% %integer% %strings%", new Class<?>[] {String.class, Integer.class, String.class},
+			new boolean[] {true, true, false}, new Parser<?>[] {nameParser, integerParser, textParser});
+	
+	@Test
+	public void testArguments() {
+		final Object[][] r = give.match("Njol 5 hello world", null);
+		assertNotNull(r);
+		assertArrayEquals(new Object[] {"Njol"}, r[0]);
+		assertArrayEquals(new Object[] {5}, r[1]);
+		assertArrayEquals(new Object[] {"hello world"}, r[2]);
+		assertTrue(r[1] instanceof Integer[]);
+		
+		assertNull(give.match("Njol 5", null));
+		assertNull(give.match("", null));
+	}
+	
+	@Test
+	public void testLiteralsAndOptionals() {
+		final CommandMatcher m = new CommandMatcher("set %integer% to %integer%[ and %-integer%]", new Class<?>[] {Integer.class, Integer.class, Integer.class},
+				new boolean[] {true, true, true}, new Parser<?>[] {integerParser, integerParser, integerParser});
+		Object[][] r = m.match("SET 1 to 2", null);
+		assertNotNull(r);
+		assertArrayEquals(new Object[] {1}, r[0]);
+		assertArrayEquals(new Object[] {2}, r[1]);
+		assertNull(r[2]);
+		
+		r = m.match("set 1 to 2 and 3", null);
+		assertNotNull(r);
+		assertArrayEquals(new Object[] {2}, r[1]);
+		assertArrayEquals(new Object[] {3}, r[2]);
+		
+		assertNull(m.match("set 1 from 2", null));
+	}
+	
+	@Test
+	public void testEscapes() {
+		final CommandMatcher m = new CommandMatcher("\\(%integer%\\)", new Class<?>[] {Integer.class}, new boolean[] {true}, new Parser<?>[] {integerParser});
+		final Object[][] r = m.match("(42)", null);
+		assertNotNull(r);
+		assertArrayEquals(new Object[] {42}, r[0]);
+		
+		try {
+			new CommandMatcher("(a|b) %integer%", new Class<?>[] {Integer.class}, new boolean[] {true}, new Parser<?>[] {integerParser});
+			fail();
+		} catch (final IllegalArgumentException e) {}
+	}
+	
+}
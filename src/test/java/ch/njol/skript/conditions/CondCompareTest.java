@@ -0,0 +1,135 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.conditions;
+
+import static org.junit.Assert.*;
+
+import org.bukkit.event.Event;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.classes.Comparator;
+import ch.njol.skript.classes.Comparator.Relation;
+import ch.njol.skript.expressions.ExprArithmetic;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.skript.lang.util.SimpleLiteral;
+import ch.njol.skript.registrations.Comparators;
+import ch.njol.util.Kleenean;
+
+/**
+ * @author Peter Güttinger
+ */
+public class CondCompareTest {
+	
+	private final static int GREATER = 0, SMALLER = 2, NOT_EQUAL = 4, EQUAL = 5;
+	
+	@BeforeClass
+	public static void registerComparator() {
+		if (Comparators.getComparator(Number.class, Number.class) != null)
+			return;
+		Comparators.registerComparator(Number.class, Number.class, new Comparator<Number, Number>() {
+			@Override
+			public Relation compare(final Number n1, final Number n2) {
+				final double diff = n1.doubleValue() - n2.doubleValue();
+				if (Math.abs(diff) < Skript.EPSILON)
+					return Relation.EQUAL;
+				return Relation.get(diff);
+			}
+			
+			@Override
+			public boolean supportsOrdering() {
+				return true;
+			}
+		});
+	}
+	
+	private final static CondCompare compare(final Expression<?> first, final int pattern, final Expression<?> second) {
+		final CondCompare c = new CondCompare();
+		assertTrue(c.init(new Expression<?>[] {first, second}, pattern, Kleenean.FALSE, null));
+		return c;
+	}
+	
+	private final static <T> SimpleLiteral<T> literal(final T value) {
+		return new SimpleLiteral<T>(value, false);
+	}
+	
+	/**
+	 * A number which might be different for every event, and which has no value if there is no event
+	 */
+	private final static class EventNumber extends SimpleExpression<Integer> {
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		protected Integer[] get(final Event e) {
+			return e == null ? new Integer[0] : new Integer[] {e.hashCode()};
+		}
+		
+		@Override
+		public Class<? extends Integer> getReturnType() {
+			return Integer.class;
+		}
+		
+		@Override
+		public boolean isSingle() {
+			return true;
+		}
+		
+		@Override
+		public String toString(final Event e, final boolean debug) {
+			return "event number";
+		}
+	}
+	
+	@Test
+	public void testLiterals() {
+		assertEquals(Kleenean.TRUE, compare(literal(2), SMALLER, literal(3)).getConstantResult());
+		assertEquals(Kleenean.FALSE, compare(literal(2), GREATER, literal(3)).getConstantResult());
+		assertEquals(Kleenean.TRUE, compare(literal(2), EQUAL, literal(2.0)).getConstantResult());
+	}
+	
+	@Test
+	public void testSimplifiedConstants() {
+		final ExprArithmetic product = new ExprArithmetic();
+		assertTrue(product.init(new Expression<?>[] {literal(2), literal(3)}, 2, Kleenean.FALSE, null));
+		assertEquals(Kleenean.TRUE, compare(product.simplify(), EQUAL, literal(6)).getConstantResult());
+	}
+	
+	@Test
+	public void testNotConstant() {
+		assertEquals(Kleenean.UNKNOWN, compare(new EventNumber(), EQUAL, literal(0)).getConstantResult());
+		assertEquals(Kleenean.UNKNOWN, compare(literal(1), EQUAL, new SimpleLiteral<Integer>(1, true)).getConstantResult());
+	}
+	
+	@Test
+	public void testMissingValue() {
+		assertFalse(compare(new EventNumber(), EQUAL, literal(0)).check(null));
+		assertFalse(compare(new EventNumber(), NOT_EQUAL, literal(0)).check(null));
+		assertFalse(compare(literal(1), SMALLER, new EventNumber()).check(null));
+	}
+	
+}
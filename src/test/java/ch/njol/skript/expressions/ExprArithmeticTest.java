@@ -0,0 +1,90 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.expressions;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.skript.lang.util.SimpleLiteral;
+import ch.njol.util.Kleenean;
+
+/**
+ * @author Peter Güttinger
+ */
+public class ExprArithmeticTest {
+	
+	private final static int PLUS = 0, MINUS = 1, MULT = 2, DIV = 3, EXP = 4;
+	
+	private final static ExprArithmetic arithmetic(final Expression<?> first, final int op, final Expression<?> second) {
+		final ExprArithmetic a = new ExprArithmetic();
+		assertTrue(a.init(new Expression<?>[] {first, second}, op, Kleenean.FALSE, null));
+		return a;
+	}
+	
+	private final static <T> SimpleLiteral<T> literal(final T value) {
+		return new SimpleLiteral<T>(value, false);
+	}
+	
+	@Test
+	public void testIntegers() {
+		final ExprArithmetic a = arithmetic(literal(2), PLUS, literal(3L));
+		assertEquals(Integer.class, a.getReturnType());
+		assertEquals(5, a.getLong(null, -1));
+		assertEquals(5, a.getDouble(null, -1), 0);
+		assertEquals(Integer.valueOf(5), a.getSingle(null));
+		
+		assertEquals(-4, arithmetic(literal(3), MINUS, literal(7)).getLong(null, -1));
+		assertEquals(Integer.MIN_VALUE, arithmetic(literal(Integer.MAX_VALUE), PLUS, literal(1)).getLong(null, -1)); // overflows like Skript always did
+		assertEquals(8, arithmetic(literal(2), EXP, literal(3)).getLong(null, -1));
+	}
+	
+	@Test
+	public void testDoubles() {
+		final ExprArithmetic a = arithmetic(literal(7), DIV, literal(2));
+		assertEquals(Double.class, a.getReturnType());
+		assertEquals(3.5, a.getDouble(null, -1), 0);
+		assertEquals(3, a.getLong(null, -1));
+		assertEquals(Double.valueOf(3.5), a.getSingle(null));
+		
+		final ExprArithmetic nested = arithmetic(arithmetic(literal(1.5), MULT, literal(4)), MINUS, a);
+		assertEquals(2.5, nested.getDouble(null, -1), 0);
+		assertEquals(Double.valueOf(2.5), nested.getSingle(null));
+	}
+	
+	/**
+	 * Constants must not be simplified to literals, e.g. <tt>(2 * 3) of stone</tt> must not be parsed like <tt>6 of stone</tt>.
+	 */
+	@Test
+	public void testSimplify() {
+		final Expression<? extends Number> product = arithmetic(literal(2), MULT, literal(3)).simplify();
+		assertFalse(product instanceof Literal);
+		assertTrue(SimpleExpression.isConstant(product));
+		assertEquals(Integer.valueOf(6), product.getSingle(null));
+		
+		assertTrue(arithmetic(literal(2), PLUS, new SimpleLiteral<Integer>(1, true)).simplify() instanceof ExprArithmetic);
+	}
+	
+}
@@ -0,0 +1,105 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.util.Kleenean;
+
+/**
+ * @author Peter Güttinger
+ */
+public class ParseCacheTest {
+	
+	@SuppressWarnings("serial")
+	public final static class TestElement implements SyntaxElement {
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+	}
+	
+	private final static SyntaxElementInfo<TestElement> info(final int index) {
+		final SyntaxElementInfo<TestElement> info = new SyntaxElementInfo<TestElement>(new String[] {"a", "b", "c"}, TestElement.class);
+		info.index = index;
+		return info;
+	}
+	
+	@Test
+	public void testRecording() {
+		final SyntaxElementInfo<TestElement> a = info(0), b = info(1), unregistered = info(-1);
+		final ParseCache cache = ParseCache.record();
+		assertFalse(cache.isReplaying());
+		
+		cache.recordNoMatch("never");
+		cache.recordMatch("once", a, 2);
+		cache.recordNoMatch("once");
+		cache.recordMatch("twice", a, 1);
+		cache.recordMatch("twice", b, 0);
+		cache.recordMatch("twice", a, 1);
+		cache.recordMatch("entity", b, 2);
+		cache.recordMatch("entity", unregistered, 0);
+		
+		assertArrayEquals(new int[0], cache.get("never"));
+		assertArrayEquals(new int[] {0, 2}, cache.get("once"));
+		assertArrayEquals(new int[] {0, 1, 1, 0}, cache.get("twice"));
+		assertNull(cache.get("entity"));
+		assertNull(cache.get("unknown"));
+		
+		assertTrue(ParseCache.contains(cache.get("twice"), b, 0));
+		assertFalse(ParseCache.contains(cache.get("twice"), b, 1));
+		assertFalse(ParseCache.contains(cache.get("twice"), unregistered, 0));
+	}
+	
+	@Test
+	public void testReadWrite() throws Exception {
+		final ParseCache cache = ParseCache.record();
+		cache.recordNoMatch("never");
+		cache.recordMatch("twice", info(3), 1);
+		cache.recordMatch("twice", info(300), 2);
+		cache.recordMatch("entity", info(-1), 0);
+		
+		final File f = File.createTempFile("skript", ".skc");
+		try {
+			final byte[] hash = {1, 2, 3, 4};
+			cache.write(f, hash, 42);
+			
+			final ParseCache read = ParseCache.read(f, hash, 42);
+			assertNotNull(read);
+			assertTrue(read.isReplaying());
+			assertArrayEquals(new int[0], read.get("never"));
+			assertArrayEquals(new int[] {3, 1, 300, 2}, read.get("twice"));
+			assertNull(read.get("entity"));
+			
+			assertNull(ParseCache.read(f, new byte[] {1, 2, 3, 5}, 42));
+			assertNull(ParseCache.read(f, hash, 43));
+		} finally {
+			f.delete();
+		}
+	}
+	
+}
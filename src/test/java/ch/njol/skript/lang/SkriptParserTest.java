@@ -0,0 +1,65 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Peter Güttinger
+ */
+public class SkriptParserTest {
+	
+	@Test
+	public void testGetRequiredWords() {
+		final Object[][] tests = {
+				{"", new String[0]},
+				{"kill %entities%", new String[] {"kill"}},
+				{"[the] (health|hp) of %livingentities%", new String[] {"of"}},
+				{"%entities% (is|are) alive", new String[] {"alive"}},
+				{"push %entities% [%direction%] [(at|with) (speed|velocity|force) %number%]", new String[] {"push"}},
+				{"Send %texts% to %commandsenders%", new String[] {"send", "to"}},
+				{"loop-<.+>", new String[0]},
+				{"a|b", new String[0]},
+				{"cancel[ the] event", new String[] {"cancel", "event"}},
+				{"\\(%number%\\)", new String[] {"(", ")"}},
+				{"the x[(1¦y)]z coord", new String[] {"the", "x", "z", "coord"}},
+		};
+		for (final Object[] test : tests)
+			assertArrayEquals((String) test[0], (String[]) test[1], SkriptParser.getRequiredWords((String) test[0]));
+	}
+	
+	/**
+	 * Lists of objects are simplified before their unparsed literals are converted, e.g. in <tt>add "a" and 5 to {_l::*}</tt>.
+	 */
+	@Test
+	public void testSimplifyUnparsedList() {
+		final Expression<?> mixed = new ExpressionList<Object>(new Expression<?>[] {VariableString.newInstance("a"), new UnparsedLiteral("5")}, Object.class, true).simplify();
+		assertTrue(mixed instanceof ExpressionList);
+		assertTrue(((ExpressionList<?>) mixed).getExpressions()[1] instanceof UnparsedLiteral);
+		
+		final Expression<?> unparsed = new LiteralList<Object>(new Literal<?>[] {new UnparsedLiteral("5"), new UnparsedLiteral("6")}, Object.class, true).simplify();
+		assertTrue(unparsed instanceof LiteralList);
+	}
+	
+}
@@ -0,0 +1,77 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.registrations;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Peter Güttinger
+ */
+public class ClassPairCacheTest {
+	
+	@Test
+	public void test() {
+		final ClassPairCache<String> c = new ClassPairCache<String>();
+		assertSame(ClassPairCache.UNKNOWN, c.get(Integer.class, Number.class));
+		c.put(Integer.class, Number.class, "a");
+		c.put(Integer.class, String.class, null);
+		assertEquals("a", c.get(Integer.class, Number.class));
+		assertNull(c.get(Integer.class, String.class));
+		assertSame(ClassPairCache.UNKNOWN, c.get(Number.class, Integer.class));
+		c.clear();
+		assertSame(ClassPairCache.UNKNOWN, c.get(Integer.class, Number.class));
+	}
+	
+	@Test
+	public void testConcurrent() throws InterruptedException {
+		final ClassPairCache<Class<?>> c = new ClassPairCache<Class<?>>();
+		final Class<?>[] classes = {Integer.class, Long.class, Double.class, String.class, Object.class, Number.class, Boolean.class};
+		final Thread[] threads = new Thread[4];
+		final Throwable[] error = new Throwable[1];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 10000; i++) {
+							final Class<?> c1 = classes[i % classes.length], c2 = classes[i / classes.length % classes.length];
+							final Object v = c.get(c1, c2);
+							if (v == ClassPairCache.UNKNOWN)
+								c.put(c1, c2, c1 == c2 ? null : c2);
+							else
+								assertSame(c1 == c2 ? null : c2, v);
+						}
+					} catch (final Throwable e) {
+						error[0] = e;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (final Thread t : threads)
+			t.join();
+		assertNull(error[0]);
+	}
+	
+}
@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
@@ -40,12 +41,14 @@ import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.easymock.EasyMock;
+import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptAddon;
+import ch.njol.skript.classes.Parser;
 import ch.njol.skript.classes.data.BukkitClasses;
 import ch.njol.skript.classes.data.BukkitEventValues;
 import ch.njol.skript.classes.data.JavaClasses;
@@ -56,6 +59,7 @@ import ch.njol.skript.entity.HorseData;
 import ch.njol.skript.entity.SimpleEntityData;
 import ch.njol.skript.entity.WolfData;
 import ch.njol.skript.entity.XpOrbData;
+import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.util.Color;
 import ch.njol.skript.util.Date;
@@ -152,4 +156,17 @@ public class ClassesTest {
 		}
 	}
 	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCombinedParser() {
+		final Parser<Object> p = (Parser<Object>) Classes.getCombinedParser(Object.class, ParseContext.COMMAND);
+		final Pattern pattern = Pattern.compile(p.getVariableNamePattern());
+		for (final String s : new String[] {"5", "13.37", "adventure"}) {
+			final Object o = p.parse(s, ParseContext.COMMAND);
+			Assert.assertNotNull(s, o);
+			Assert.assertEquals(Classes.toString(o), p.toString(o, 0));
+			Assert.assertTrue(s, pattern.matcher(p.toVariableNameString(o)).matches());
+		}
+	}
+	
 }
@@ -0,0 +1,103 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compares writing variables to SQLite one statement at a time with autocommit like the write thread did without batches, and in one JDBC batch and
+ * transaction like {@link DatabaseStorage#saveBatch(java.util.Map)}.
+ * 
+ * @author Peter Güttinger
+ */
+public class DatabaseStorageTest {
+	
+	private final static int VARIABLES = 500;
+	
+	private File file;
+	private Connection c;
+	
+	@Before
+	public void before() throws IOException, SQLException {
+		try {
+			Class.forName("org.sqlite.JDBC");
+		} catch (final ClassNotFoundException e) {
+			Assume.assumeNoException(e);
+		}
+		file = File.createTempFile("skript-variables", ".db");
+		c = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+		c.createStatement().execute(DatabaseStorage.Type.SQLITE.createQuery);
+	}
+	
+	@After
+	public void after() throws SQLException {
+		if (c != null)
+			c.close();
+		if (file != null)
+			file.delete();
+	}
+	
+	private long write(final String prefix, final boolean batch) throws SQLException {
+		final long start = System.nanoTime();
+		final PreparedStatement writeQuery = c.prepareStatement("REPLACE INTO variables21 (name, type, value, update_guid) VALUES (?, ?, ?, ?)");
+		if (batch)
+			c.setAutoCommit(false);
+		for (int i = 0; i < VARIABLES; i++) {
+			writeQuery.setString(1, prefix + i);
+			writeQuery.setString(2, "long");
+			writeQuery.setBytes(3, new byte[] {0, 0, 0, 0, 0, 0, 0, (byte) i});
+			writeQuery.setString(4, "guid");
+			if (batch)
+				writeQuery.addBatch();
+			else
+				writeQuery.executeUpdate();
+		}
+		if (batch) {
+			writeQuery.executeBatch();
+			c.commit();
+			c.setAutoCommit(true);
+		}
+		writeQuery.close();
+		return System.nanoTime() - start;
+	}
+	
+	@Test
+	public void testBatchThroughput() throws SQLException {
+		write("warmup::", true);
+		final long single = write("single::", false);
+		final long batch = write("batch::", true);
+		assertTrue("single: " + single / 1000000 + " ms, batch: " + batch / 1000000 + " ms", batch * 2 < single);
+	}
+	
+}
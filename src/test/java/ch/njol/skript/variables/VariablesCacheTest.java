@@ -0,0 +1,150 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * @author Peter Güttinger
+ */
+public class VariablesCacheTest {
+	
+	/**
+	 * Stores variables sorted by the natural order of their names like a database index, and counts how often they are loaded.
+	 */
+	private final static class TestLoader implements VariablesCache.Loader {
+		final TreeMap<String, Object> storage = new TreeMap<String, Object>();
+		int loads = 0;
+		boolean fail = false;
+		
+		@Override
+		public Object load(final String name) throws SQLException {
+			loads++;
+			if (fail)
+				throw new SQLException("test");
+			return storage.get(name);
+		}
+		
+		@Override
+		public void loadList(final String prefix, final Map<String, Object> target) throws SQLException {
+			loads++;
+			if (fail)
+				throw new SQLException("test");
+			target.putAll(storage.subMap(prefix, prefix + Character.MAX_VALUE));
+		}
+	}
+	
+	@Test
+	public void testListOrder() {
+		final TestLoader loader = new TestLoader();
+		final String[] keys = {"b", "a10", "2", "100", "a", "11", "1", "a2", "20", "3", "10"};
+		for (final String k : keys)
+			loader.storage.put("list::" + k, k);
+		loader.storage.put("list::10::x", "x");
+		final VariablesCache cache = new VariablesCache(loader, 100);
+		final Map<?, ?> list = (Map<?, ?>) cache.get("list::*");
+		final List<Object> order = new ArrayList<Object>(list.keySet());
+		final List<String> sorted = new ArrayList<String>(Arrays.asList(keys));
+		Collections.sort(sorted, VariablesMap.variableNameComparator);
+		assertEquals(sorted, order);
+		assertEquals("x", ((Map<?, ?>) list.get("10")).get("x"));
+	}
+	
+	@Test
+	public void testCaching() {
+		final TestLoader loader = new TestLoader();
+		loader.storage.put("a", "a");
+		final VariablesCache cache = new VariablesCache(loader, 2);
+		assertEquals("a", cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals("a", cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(2, loader.loads);
+		
+		// 'b' is the least recently used variable
+		cache.get("a");
+		assertNull(cache.get("c"));
+		assertEquals(2, cache.size());
+		cache.get("a");
+		assertEquals(3, loader.loads);
+		cache.get("b");
+		assertEquals(4, loader.loads);
+	}
+	
+	@Test
+	public void testUnsavedChanges() {
+		final TestLoader loader = new TestLoader();
+		loader.storage.put("l::1", "old");
+		loader.storage.put("l::2", "old");
+		final VariablesCache cache = new VariablesCache(loader, 1);
+		final Object change = new Object(), token = new Object();
+		cache.changed("l::1", "new", change);
+		cache.get("x");
+		cache.get("y");
+		assertEquals("new", cache.get("l::1"));
+		
+		final Map<?, ?> list = (Map<?, ?>) cache.get("l::*");
+		assertEquals("new", list.get("1"));
+		assertEquals("old", list.get("2"));
+		
+		// the storage still contains the elements until the deletion has been saved
+		cache.changed("l::*", null, DELETED);
+		assertNull(cache.get("l::*"));
+		assertNull(cache.get("l::2"));
+		cache.changed("l::3", "3", change);
+		assertEquals(1, ((Map<?, ?>) cache.get("l::*")).size());
+		
+		cache.sending("l::*", DELETED, token);
+		loader.storage.clear();
+		cache.saved("l::*", token);
+		assertEquals("3", cache.get("l::3"));
+		assertEquals(1, ((Map<?, ?>) cache.get("l::*")).size());
+	}
+	
+	@Test
+	public void testLoadFailure() {
+		final TestLoader loader = new TestLoader();
+		loader.storage.put("a", "a");
+		loader.storage.put("l::1", "1");
+		final VariablesCache cache = new VariablesCache(loader, 10);
+		loader.fail = true;
+		assertNull(cache.get("a"));
+		assertNull(cache.get("l::*"));
+		assertEquals(0, cache.size());
+		loader.fail = false;
+		assertEquals("a", cache.get("a"));
+		assertEquals("1", ((Map<?, ?>) cache.get("l::*")).get("1"));
+	}
+	
+	private final static Object DELETED = new Object();
+	
+}
@@ -0,0 +1,153 @@
+/*
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * 
+ * Copyright 2011-2013 Peter Güttinger
+ * 
+ */
+
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author Peter Güttinger
+ */
+public class VariablesMapTest {
+	
+	@Test
+	public void testSetAndGet() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("a", "a");
+		map.setVariable("a::b", "ab");
+		map.setVariable("a::c::d", "acd");
+		map.setVariable("e", "e");
+		assertEquals(4, map.size());
+		assertEquals("a", map.getVariable("a"));
+		assertEquals("ab", map.getVariable("a::b"));
+		assertEquals("acd", map.getVariable("a::c::d"));
+		assertNull(map.getVariable("a::c"));
+		assertNull(map.getVariable("e::*"));
+		
+		final Map<?, ?> list = (Map<?, ?>) map.getVariable("a::*");
+		assertEquals("a", list.get(null));
+		assertEquals("ab", list.get("b"));
+		assertTrue(list.get("c") instanceof Map);
+		
+		map.setVariable("a::b", null);
+		assertNull(map.getVariable("a::b"));
+		assertEquals(3, map.size());
+	}
+	
+	@Test
+	public void testComparator() {
+		final String[] ordered = {null, "1", "2", "10", "4294967296", "18446744073709551616", "a1", "a2", "a10b", "a10", "b"};
+		for (int i = 0; i < ordered.length; i++) {
+			for (int j = 0; j < ordered.length; j++) {
+				final int c = VariablesMap.variableNameComparator.compare(ordered[i], ordered[j]);
+				assertEquals(ordered[i] + " <=> " + ordered[j], i < j ? -1 : i > j ? 1 : 0, Integer.signum(c));
+			}
+		}
+		// leading zeros are ignored
+		assertEquals(0, VariablesMap.variableNameComparator.compare("1", "01"));
+		assertEquals(0, VariablesMap.variableNameComparator.compare("a01b", "a1b"));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testFirstFreeIndex() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("a::1", "1");
+		map.setVariable("a::2", "2");
+		map.setVariable("a::x", "x");
+		assertEquals(3, VariablesMap.getFirstFreeIndex((Map<String, Object>) map.getVariable("a::*")));
+		map.setVariable("a::4", "4");
+		map.setVariable("a::3::b", "3b");
+		assertEquals(5, VariablesMap.getFirstFreeIndex((Map<String, Object>) map.getVariable("a::*")));
+		map.setVariable("a::02", null);
+		assertEquals(2, VariablesMap.getFirstFreeIndex((Map<String, Object>) map.getVariable("a::*")));
+		map.setVariable("a::2", "2");
+		assertEquals(5, VariablesMap.getFirstFreeIndex((Map<String, Object>) map.getVariable("a::*")));
+		map.setVariable("a::3::*", null);
+		assertEquals(3, VariablesMap.getFirstFreeIndex((Map<String, Object>) map.getVariable("a::*")));
+	}
+	
+	@Test
+	public void testDeleteList() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("a", "a");
+		map.setVariable("a::1", "1");
+		map.setVariable("a::2::x", "2x");
+		map.setVariable("b::1", "1");
+		map.setVariable("a::*", null);
+		assertEquals(2, map.size());
+		assertEquals("a", map.getVariable("a"));
+		assertNull(map.getVariable("a::*"));
+		assertNull(map.getVariable("a::2::x"));
+		map.setVariable("b::*", null);
+		assertEquals(1, map.size());
+		assertNull(map.getVariable("b::*"));
+	}
+	
+	@Test
+	public void testListIndex() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("s::a", 5);
+		map.setVariable("s::b", 1);
+		map.setVariable("s::c", "text");
+		map.setVariable("s::d", 3.5);
+		assertNull(map.getIndex("s::*", false));
+		final ListIndex index = map.getIndex("s::*", true);
+		assertEquals(3, index.size());
+		
+		map.setVariable("s::e", 7);
+		map.setVariable("s::b", null);
+		map.setVariable("s::a::x", 100); // not an element of s::*
+		List<? extends Map.Entry<String, Object>> r = index.get(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 2, true);
+		assertEquals(2, r.size());
+		assertEquals("e", r.get(0).getKey());
+		assertEquals("a", r.get(1).getKey());
+		r = index.get(3, 5, -1, false);
+		assertEquals(2, r.size());
+		assertEquals("d", r.get(0).getKey());
+		assertEquals(5, r.get(1).getValue());
+		
+		map.setVariable("s::*", null);
+		assertNull(map.getIndex("s::*", false));
+	}
+	
+	@Test
+	public void testListCursor() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("l::1", "a");
+		map.setVariable("l::2::x", "ignored");
+		map.setVariable("l::3", "c");
+		final Iterator<? extends Map.Entry<String, Object>> iter = new ListCursor(map, null, "l::*");
+		assertEquals("1", iter.next().getKey());
+		map.setVariable("l::2", "b");
+		map.setVariable("l::4", "added after the start");
+		assertEquals("b", iter.next().getValue());
+		assertEquals("3", iter.next().getKey());
+		assertFalse(iter.hasNext());
+	}
+	
+}